@@ -0,0 +1,137 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every {@link jenkins.benchmark.jmh.JmhBenchmark} of the plugin and writes the results as JSON. Only compiled
+ * and run with the {@code benchmark} profile:
+ *
+ * <pre>
+ * mvn test -P benchmark
+ * mvn test -P benchmark -Dbenchmark.baseline=jmh-baseline.json -Dbenchmark.threshold=0.1
+ * </pre>
+ *
+ * <p>With {@code benchmark.baseline} set to the JSON report of an earlier run, the build fails when a benchmark got
+ * slower (or lost throughput) by more than {@code benchmark.threshold}, 10% by default. Further knobs:
+ * {@code benchmark.include} (regular expression of benchmarks to run), {@code benchmark.params} (values replacing
+ * the {@code @Param} defaults, as in {@code size=1024,1048576}, several parameters separated by {@code ;}),
+ * {@code benchmark.forks}, {@code benchmark.warmupIterations}, {@code benchmark.iterations} and
+ * {@code benchmark.result} (report location).
+ */
+class BenchmarkRunner {
+
+    @Test
+    void runJmhBenchmarks() throws Exception {
+        String report = System.getProperty("benchmark.result", "target/jmh-report.json");
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .forks(Integer.getInteger("benchmark.forks", 1))
+                .warmupIterations(Integer.getInteger("benchmark.warmupIterations", 2))
+                .measurementIterations(Integer.getInteger("benchmark.iterations", 5))
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result(report);
+
+        String include = System.getProperty("benchmark.include");
+        if (include != null) {
+            options.include(include);
+        } else {
+            new BenchmarkFinder(getClass()).findBenchmarks(options);
+        }
+        String params = System.getProperty("benchmark.params");
+        if (params != null) {
+            for (String param : params.split(";")) {
+                int eq = param.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected name=value[,value...] in benchmark.params: " + param);
+                }
+                options.param(param.substring(0, eq).trim(), param.substring(eq + 1).trim().split("\\s*,\\s*"));
+            }
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        String baseline = System.getProperty("benchmark.baseline");
+        if (baseline != null) {
+            double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "0.1"));
+            List<String> regressions = compare(load(new File(baseline)), results, threshold);
+            assertTrue(
+                    regressions.isEmpty(),
+                    "Regressions against " + baseline + ":\n" + String.join("\n", regressions));
+        }
+    }
+
+    /**
+     * Scores of a JMH JSON report by benchmark and parameters.
+     */
+    private static Map<String, JSONObject> load(File report) throws Exception {
+        Map<String, JSONObject> scores = new HashMap<>();
+        JSONArray entries = JSONArray.fromObject(Files.readString(report.toPath(), StandardCharsets.UTF_8));
+        for (Object o : entries) {
+            JSONObject entry = (JSONObject) o;
+            Map<String, String> params = new TreeMap<>();
+            JSONObject json = entry.optJSONObject("params");
+            if (json != null) {
+                for (Object name : json.keySet()) {
+                    params.put((String) name, json.getString((String) name));
+                }
+            }
+            scores.put(key(entry.getString("benchmark"), params), entry);
+        }
+        return scores;
+    }
+
+    private static List<String> compare(
+            Map<String, JSONObject> baseline, Collection<RunResult> results, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        for (RunResult result : results) {
+            Map<String, String> params = new TreeMap<>();
+            for (String name : result.getParams().getParamsKeys()) {
+                params.put(name, result.getParams().getParam(name));
+            }
+            String key = key(result.getParams().getBenchmark(), params);
+            JSONObject previous = baseline.get(key);
+            if (previous == null) {
+                continue;
+            }
+
+            double before = previous.getJSONObject("primaryMetric").getDouble("score");
+            double now = result.getPrimaryResult().getScore();
+            // throughput should not drop, every other mode measures time and should not grow
+            boolean higherIsBetter = result.getParams().getMode() == Mode.Throughput;
+            double change = higherIsBetter ? (before - now) / before : (now - before) / before;
+            if (change > threshold) {
+                regressions.add(String.format(
+                        "%s: %.3f -> %.3f %s (%+.1f%%)",
+                        key, before, now, result.getPrimaryResult().getScoreUnit(), change * 100));
+            }
+        }
+        return regressions;
+    }
+
+    private static String key(String benchmark, Map<String, String> params) {
+        return params.isEmpty() ? benchmark : benchmark + params;
+    }
+}
@@ -0,0 +1,84 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Building the CLI command, masking it for the log and capturing CLI output as {@code executeCLI} does.
+ */
+@JmhBenchmark
+public class CommandBenchmark {
+
+    @State(Scope.Thread)
+    public static class Command {
+        String[] command;
+
+        @Setup
+        public void setup() {
+            command = TacotruckCLIHelper.buildSubmitCommand(
+                    "testfiesta",
+                    "build/test-results/test/TEST-com.example.CalculatorTest.xml",
+                    "project-key",
+                    "tf_0123456789abcdef0123456789abcdef",
+                    "acme",
+                    "Nightly regression run",
+                    "https://api.testfiesta.com",
+                    "/usr/local/bin/npx");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Output {
+        @Param({"10", "1000", "100000"})
+        int lines;
+
+        byte[] output;
+        PrintStream log;
+
+        @Setup
+        public void setup() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < lines; i++) {
+                sb.append("Uploaded batch ").append(i).append(" with token tf_0123456789abcdef\n");
+            }
+            output = sb.toString().getBytes(StandardCharsets.UTF_8);
+            log = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public String[] buildSubmitCommand() {
+        return TacotruckCLIHelper.buildSubmitCommand(
+                "testfiesta",
+                "build/test-results/test/TEST-com.example.CalculatorTest.xml",
+                "project-key",
+                "tf_0123456789abcdef0123456789abcdef",
+                "acme",
+                "Nightly regression run",
+                "https://api.testfiesta.com",
+                "/usr/local/bin/npx");
+    }
+
+    @Benchmark
+    public String maskCommand(Command state) {
+        return TacotruckCLIHelper.maskCommand(state.command);
+    }
+
+    @Benchmark
+    public String captureOutput(Output state) throws IOException {
+        CLIOutputStream.Tail tail = new CLIOutputStream.Tail();
+        try (CLIOutputStream out = new CLIOutputStream(state.log, "", List.of("tf_0123456789abcdef"), tail)) {
+            out.write(state.output);
+        }
+        return tail.toString();
+    }
+}
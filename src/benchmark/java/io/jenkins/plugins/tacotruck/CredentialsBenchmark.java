@@ -0,0 +1,46 @@
+package io.jenkins.plugins.tacotruck;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.util.Secret;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * API token lookup by credentials ID for a build, as submissions make it, in credential stores of growing size.
+ */
+@JmhBenchmark
+public class CredentialsBenchmark {
+
+    public static class Store extends JmhBenchmarkState {
+        @Param({"10", "1000", "10000"})
+        int size;
+
+        String id;
+        FreeStyleBuild run;
+
+        @Override
+        public void setup() throws Exception {
+            SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+            for (int i = 0; i < size; i++) {
+                store.getCredentials()
+                        .add(new StringCredentialsImpl(
+                                CredentialsScope.GLOBAL, "token-" + i, null, Secret.fromString("secret-" + i)));
+            }
+            store.save();
+            id = "token-" + (size / 2);
+            run = new FreeStyleBuild(getJenkins().createProject(FreeStyleProject.class, "submit"));
+        }
+    }
+
+    @Benchmark
+    public StringCredentials lookupToken(Store state) {
+        return CredentialsHelper.lookupApiTokenCredentials(state.id, state.run);
+    }
+}
@@ -0,0 +1,80 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Parsing and hashing JUnit XML reports. Reports are generated once per trial. By default only 1 KB and 1 MB reports
+ * are measured; the 100 MB and 1 GB ones need that much free disk and take minutes per trial, so they have to be
+ * asked for, e.g. with {@code -Dbenchmark.include=ResultFileBenchmark -Dbenchmark.params=size=104857600,1073741824}
+ * or JMH's own {@code -p size=104857600,1073741824} when running by hand.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResultFileBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Report {
+        @Param({"1024", "1048576"})
+        long size;
+
+        File dir;
+        File file;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("tacotruck-benchmark").toFile();
+            file = new File(dir, "TEST-report.xml");
+            try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuite name=\"BenchmarkSuite\">\n");
+                long written = 0;
+                for (int i = 0; written < size; i++) {
+                    String testCase = i % 10 == 0
+                            ? "  <testcase classname=\"com.example.Generated\" name=\"test" + i
+                                    + "\" time=\"0.125\"><failure message=\"expected true\">at Generated.java:"
+                                    + i + "</failure></testcase>\n"
+                            : "  <testcase classname=\"com.example.Generated\" name=\"test" + i
+                                    + "\" time=\"0.004\"/>\n";
+                    out.write(testCase);
+                    written += testCase.length();
+                }
+                out.write("</testsuite>\n");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file.toPath());
+            Files.deleteIfExists(dir.toPath());
+        }
+    }
+
+    @Benchmark
+    public long parse(Report report) throws Exception {
+        try (InputStream in = Files.newInputStream(report.file.toPath())) {
+            return new JUnitResultParser().parse(in, ResultParser.DEFAULT_BATCH_SIZE, batch -> {});
+        }
+    }
+
+    @Benchmark
+    public String hash(Report report) throws Exception {
+        return new SubmissionDigests.Compute(report.file.getName()).invoke(report.dir, null);
+    }
+}
@@ -0,0 +1,316 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.SystemProperties;
+
+/**
+ * Uploads the files attached to test cases from the machine they were written on, with the resumable
+ * <a href="https://tus.io/protocols/resumable-upload">tus</a> protocol: an upload is created with its length, its
+ * bytes are sent in {@code PATCH} requests at the offset the server acknowledged last, and after a failure the
+ * current offset is asked for with {@code HEAD} so the upload carries on from there instead of starting over.
+ *
+ * <p>Request bodies are read straight from a {@link FileChannel} with positional reads, so an attachment is never
+ * held in memory, whatever its size. Up to {@code parallelism} attachments are uploaded at once.
+ */
+class AttachmentUploader {
+
+    private static final Logger LOGGER = Logger.getLogger(AttachmentUploader.class.getName());
+
+    static final String ATTACHMENTS_PATH = "/v1/%s/projects/%s/attachments";
+
+    static final String TUS_VERSION = "1.0.0";
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int MAX_ATTEMPTS = SystemProperties.getInteger(AttachmentUploader.class.getName() + ".maxAttempts", 6);
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long RETRY_BACKOFF_MILLIS = SystemProperties.getLong(
+            AttachmentUploader.class.getName() + ".retryBackoffMillis", TimeUnit.SECONDS.toMillis(1));
+
+    /**
+     * Bytes sent per {@code PATCH} request, i.e. how much is sent between acknowledged offsets.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long REQUEST_BYTES =
+            SystemProperties.getLong(AttachmentUploader.class.getName() + ".requestBytes", 16L * 1024 * 1024);
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final SubmissionTarget target;
+
+    @CheckForNull
+    private final String runId;
+
+    private final int parallelism;
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+
+    /**
+     * @param runId id of the run the results were submitted as, when the submission returned one
+     */
+    AttachmentUploader(SubmissionTarget target, @CheckForNull String runId, int parallelism) {
+        this.target = target;
+        this.runId = runId;
+        this.parallelism = parallelism > 0 ? parallelism : ChunkedUploader.DEFAULT_PARALLELISM;
+    }
+
+    static URI attachmentsUri(String baseUrl, String handle, String project) {
+        return TacotruckHttp.apiUri(baseUrl, ATTACHMENTS_PATH, handle, project);
+    }
+
+    CLIResult upload(List<ResultAttachments.Attachment> attachments) throws InterruptedException {
+        if (attachments.isEmpty()) {
+            return new CLIResult(0, "No attachments referenced in the results.", true, null);
+        }
+        URI uploads = attachmentsUri(target.getBaseUrl(), target.getHandle(), target.getProject());
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(parallelism, attachments.size()),
+                new NamingThreadFactory(new DaemonThreadFactory(), "TacoTruck attachment upload"));
+        List<String> failures = new ArrayList<>();
+        try {
+            List<Future<String>> futures = new ArrayList<>(attachments.size());
+            for (ResultAttachments.Attachment attachment : attachments) {
+                futures.add(executor.submit(() -> upload(uploads, attachment)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                String error;
+                try {
+                    error = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    error = "Failed to upload " + attachments.get(i).getFile().getName() + ": " + e.getCause();
+                }
+                if (error != null) {
+                    failures.add(error);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String output = "Uploaded " + (attachments.size() - failures.size()) + " of " + attachments.size()
+                + " attachment(s), " + bytesSent.get() + " bytes"
+                + (resumed.get() > 0 ? " (" + resumed.get() + " resumed)" : "") + ".";
+        if (!failures.isEmpty()) {
+            return new CLIResult(1, output, false, String.join("\n", failures), bytesSent.get(), null);
+        }
+        return new CLIResult(0, output, true, null, bytesSent.get(), null);
+    }
+
+    /**
+     * @return {@code null} once the attachment is uploaded, the reason otherwise
+     */
+    @CheckForNull
+    private String upload(URI uploads, ResultAttachments.Attachment attachment) throws InterruptedException {
+        File file = attachment.getFile();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            HttpRequest create = request(uploads)
+                    .header("Upload-Length", Long.toString(length))
+                    .header("Upload-Metadata", metadata(attachment))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            TacotruckHttp.Response created =
+                    TacotruckHttp.withRetry(true, MAX_ATTEMPTS, RETRY_BACKOFF_MILLIS, retry -> {
+                        if (retry > 0) {
+                            LOGGER.fine(() -> "Retrying the upload of " + file);
+                        }
+                        return TacotruckHttp.send(create);
+                    });
+            if (created.error != null) {
+                return "Failed to create upload of " + file.getName() + ": " + created.error;
+            }
+            String location = created.headers.firstValue("Location").orElse(null);
+            if (location == null) {
+                return "TacoTruck API did not return an upload location for " + file.getName();
+            }
+            URI upload = TacotruckHttp.sameOrigin(uploads, location);
+            if (upload == null) {
+                return "TacoTruck API returned an upload location for " + file.getName() + " on another origin, "
+                        + "where the API token is not sent: " + location;
+            }
+
+            long offset = 0;
+            int failed = 0;
+            while (offset < length) {
+                long count = Math.min(Math.max(1, REQUEST_BYTES), length - offset);
+                TacotruckHttp.Response patched = TacotruckHttp.send(request(upload)
+                        .header("Upload-Offset", Long.toString(offset))
+                        .header("Content-Type", "application/offset+octet-stream")
+                        .method("PATCH", region(channel, offset, count))
+                        .build());
+                if (patched.error == null) {
+                    long acknowledged = offset(patched).orElse(offset + count);
+                    if (acknowledged <= offset) {
+                        return "TacoTruck API did not accept any bytes of " + file.getName() + " at byte " + offset;
+                    }
+                    bytesSent.addAndGet(acknowledged - offset);
+                    offset = acknowledged;
+                    failed = 0;
+                    continue;
+                }
+                // 409: the server holds a different offset, which HEAD asks for
+                if (!(patched.retryable || patched.status == 409) || ++failed >= Math.max(1, MAX_ATTEMPTS)) {
+                    return "Failed to upload " + file.getName() + " at byte " + offset + ": " + patched.error;
+                }
+                TacotruckHttp.backoff(RETRY_BACKOFF_MILLIS, failed);
+                TacotruckHttp.Response head = TacotruckHttp.send(request(upload)
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                        .build());
+                if (head.error == null) {
+                    long acknowledged = offset(head).orElse(offset);
+                    if (acknowledged > offset) {
+                        bytesSent.addAndGet(acknowledged - offset);
+                    }
+                    offset = acknowledged;
+                }
+                resumed.incrementAndGet();
+                long resumeAt = offset;
+                LOGGER.fine(() -> "Resuming upload of " + file + " at byte " + resumeAt);
+            }
+            return null;
+        } catch (IOException e) {
+            return "Failed to read " + file.getName() + ": " + e.getMessage();
+        }
+    }
+
+    /**
+     * Sends {@code count} bytes of {@code channel} from {@code offset}, read as the client asks for them.
+     */
+    private static HttpRequest.BodyPublisher region(FileChannel channel, long offset, long count) {
+        return HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> new RegionInputStream(channel, offset, count)),
+                count);
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + target.getApiToken())
+                .header("Tus-Resumable", TUS_VERSION)
+                .timeout(NativeSubmitter.requestTimeout());
+    }
+
+    private String metadata(ResultAttachments.Attachment attachment) {
+        return "filename " + base64(attachment.getFile().getName())
+                + ",filetype " + base64(ResultAttachments.contentType(attachment.getFile()))
+                + ",run " + base64(target.getRunName())
+                + (runId != null ? ",runId " + base64(runId) : "")
+                + ",test " + base64(attachment.getTest() != null ? attachment.getTest() : "")
+                + ",source " + base64(target.getProvider());
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static OptionalLong offset(TacotruckHttp.Response response) {
+        String value = response.headers.firstValue("Upload-Offset").orElse(null);
+        if (value == null) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * A window of a file channel read with positional reads, leaving the channel open and its position untouched.
+     */
+    private static final class RegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private final ByteBuffer single = ByteBuffer.allocate(1);
+        private long position;
+        private long remaining;
+
+        RegionInputStream(FileChannel channel, long offset, long count) {
+            this.channel = channel;
+            this.position = offset;
+            this.remaining = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            single.clear();
+            return read(single) > 0 ? single.get(0) & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            return read(ByteBuffer.wrap(b, off, Math.min(len, READ_BUFFER_BYTES)));
+        }
+
+        private int read(ByteBuffer buffer) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (buffer.remaining() > remaining) {
+                buffer.limit(buffer.position() + (int) remaining);
+            }
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File is shorter than announced, " + remaining + " bytes missing");
+            }
+            position += read;
+            remaining -= read;
+            return read;
+        }
+    }
+
+    /**
+     * Finds the attachments referenced by the result files in the workspace and uploads them from the agent.
+     */
+    static final class Callable extends MasterToSlaveFileCallable<CLIResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final SubmissionTarget target;
+
+        @CheckForNull
+        private final String runId;
+
+        private final String resultsPath;
+        private final int parallelism;
+
+        Callable(SubmissionTarget target, @CheckForNull String runId, String resultsPath, int parallelism) {
+            this.target = target;
+            this.runId = runId;
+            this.resultsPath = resultsPath;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public CLIResult invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+            List<File> reports = ResultFiles.resolve(workspace, resultsPath);
+            return new AttachmentUploader(target, runId, parallelism)
+                    .upload(ResultAttachments.find(workspace, reports));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.console.LineTransformationOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Forwards CLI output to the build log line by line as it arrives, masking secrets on the way, and keeps only a
+ * bounded tail of the most recent lines for {@link CLIResult}.
+ */
+class CLIOutputStream extends LineTransformationOutputStream {
+
+    static final String MASK = "***";
+
+    private final PrintStream logger;
+    private final String prefix;
+    private final List<String> secrets;
+    private final Tail tail;
+
+    /**
+     * @param logger where to echo lines, or {@code null} to only capture them
+     */
+    CLIOutputStream(@CheckForNull PrintStream logger, String prefix, Collection<String> secrets, Tail tail) {
+        this.logger = logger;
+        this.prefix = prefix;
+        this.secrets = new ArrayList<>(secrets);
+        this.tail = tail;
+    }
+
+    @Override
+    protected void eol(byte[] b, int len) {
+        String line = mask(trimEOL(new String(b, 0, len, StandardCharsets.UTF_8)), secrets);
+        tail.add(line);
+        if (logger != null) {
+            logger.println(prefix + line);
+        }
+    }
+
+    static String mask(String line, Collection<String> secrets) {
+        String masked = line;
+        for (String secret : secrets) {
+            if (secret != null && !secret.isEmpty() && masked.contains(secret)) {
+                masked = masked.replace(secret, MASK);
+            }
+        }
+        return masked;
+    }
+
+    /**
+     * Ring buffer of the last lines written to one or more {@link CLIOutputStream}s, bounded by line count and by
+     * total characters. A single line longer than the character limit is cut to its beginning.
+     */
+    static final class Tail {
+        static final int DEFAULT_MAX_LINES = 200;
+        static final int DEFAULT_MAX_CHARS = 32 * 1024;
+
+        private final int maxLines;
+        private final int maxChars;
+        private final Deque<String> lines = new ArrayDeque<>();
+        private int chars;
+        private boolean truncated;
+
+        Tail() {
+            this(DEFAULT_MAX_LINES, DEFAULT_MAX_CHARS);
+        }
+
+        Tail(int maxLines, int maxChars) {
+            this.maxLines = maxLines;
+            this.maxChars = maxChars;
+        }
+
+        synchronized void add(String line) {
+            String kept = line;
+            if (line.length() > maxChars) {
+                kept = line.substring(0, maxChars) + " [" + (line.length() - maxChars) + " more characters]";
+                truncated = true;
+            }
+            lines.addLast(kept);
+            chars += kept.length();
+            while (lines.size() > 1 && (lines.size() > maxLines || chars > maxChars)) {
+                chars -= lines.removeFirst().length();
+                truncated = true;
+            }
+        }
+
+        synchronized boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.join("\n", lines).trim();
+        }
+    }
+}
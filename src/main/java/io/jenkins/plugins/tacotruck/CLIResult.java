@@ -1,16 +1,55 @@
 package io.jenkins.plugins.tacotruck;
 
-public class CLIResult {
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.Serializable;
+
+public class CLIResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private final int exitCode;
     private final String output;
     private final boolean success;
     private final String errorMessage;
+    private final long bytesSent;
+    private final SubmissionSummary summary;
+    private final String runId;
 
     public CLIResult(int exitCode, String output, boolean success, String errorMessage) {
+        this(exitCode, output, success, errorMessage, 0, null);
+    }
+
+    /**
+     * @param bytesSent size of the request body sent to TacoTruck, or 0 when unknown
+     * @param summary summary of the submitted results, when the engine parsed them itself
+     */
+    CLIResult(
+            int exitCode,
+            String output,
+            boolean success,
+            String errorMessage,
+            long bytesSent,
+            @CheckForNull SubmissionSummary summary) {
+        this(exitCode, output, success, errorMessage, bytesSent, summary, null);
+    }
+
+    /**
+     * @param runId id of the TacoTruck run the results were submitted as, when the API returned one
+     */
+    CLIResult(
+            int exitCode,
+            String output,
+            boolean success,
+            String errorMessage,
+            long bytesSent,
+            @CheckForNull SubmissionSummary summary,
+            @CheckForNull String runId) {
         this.exitCode = exitCode;
         this.output = output;
         this.success = success;
         this.errorMessage = errorMessage;
+        this.bytesSent = bytesSent;
+        this.summary = summary;
+        this.runId = runId;
     }
 
     public int getExitCode() {
@@ -28,4 +67,27 @@ public class CLIResult {
     public String getErrorMessage() {
         return errorMessage;
     }
+
+    /**
+     * Size of the request body sent to TacoTruck, when known.
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Summary of the submitted results, when the engine parsed them itself.
+     */
+    @CheckForNull
+    public SubmissionSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Id of the TacoTruck run the results were submitted as, when the native engine submitted them.
+     */
+    @CheckForNull
+    public String getRunId() {
+        return runId;
+    }
 }
@@ -0,0 +1,273 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * Uploads a result set as one TacoTruck run in fixed-size chunks of test cases: the run is created first, the chunks
+ * are sent concurrently while the results are still being read, and the run is committed once every chunk has been
+ * acknowledged. A chunk that fails is retried on its own, so a timeout late in a large upload no longer discards the
+ * chunks before it. A run that cannot be completed, because a chunk failed for good, the results could not be read or
+ * the upload was interrupted, is deleted again rather than left behind uncommitted.
+ *
+ * <p>At most {@code parallelism} chunks are in flight and one more is being filled, which bounds memory use
+ * independently of the size of the result set.
+ */
+class ChunkedUploader {
+
+    private static final Logger LOGGER = Logger.getLogger(ChunkedUploader.class.getName());
+
+    static final String RUNS_PATH = "/v1/%s/projects/%s/runs";
+
+    static final int DEFAULT_PARALLELISM = 4;
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int MAX_ATTEMPTS = SystemProperties.getInteger(ChunkedUploader.class.getName() + ".maxAttempts", 4);
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long RETRY_BACKOFF_MILLIS = SystemProperties.getLong(
+            ChunkedUploader.class.getName() + ".retryBackoffMillis", TimeUnit.SECONDS.toMillis(1));
+
+    private final SubmissionTarget target;
+    private final int chunkSize;
+    private final int parallelism;
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    ChunkedUploader(SubmissionTarget target, int chunkSize, int parallelism) {
+        this.target = target;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : DEFAULT_PARALLELISM;
+    }
+
+    static URI runsUri(String baseUrl, String handle, String project) {
+        return TacotruckHttp.apiUri(baseUrl, RUNS_PATH, handle, project);
+    }
+
+    /**
+     * Uploads the test cases of {@code source}, described as {@code origin} in the output.
+     */
+    CLIResult upload(TestCaseSource source, String origin) throws InterruptedException {
+        URI runs = runsUri(target.getBaseUrl(), target.getHandle(), target.getProject());
+
+        TacotruckHttp.Response created = send(runs, "POST", encode(json -> json.beginObject()
+                .field("name", target.getRunName())
+                .field("project", target.getProject())
+                .field("organization", target.getHandle())
+                .field("source", target.getProvider())
+                .endObject()));
+        if (created.error != null) {
+            return failure("Failed to create TacoTruck run: " + created.error, created.body);
+        }
+        String runId = NativeSubmitter.runIdIn(created.body);
+        if (runId == null) {
+            return failure("TacoTruck API did not return a run id", created.body);
+        }
+        URI run = URI.create(runs + "/" + TacotruckHttp.encodeSegment(runId));
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                parallelism, new NamingThreadFactory(new DaemonThreadFactory(), "TacoTruck chunk upload"));
+        Semaphore inFlight = new Semaphore(parallelism);
+        AtomicReference<String> failed = new AtomicReference<>();
+        List<TestCaseRecord> chunk = new ArrayList<>(chunkSize);
+        SubmissionSummary.Collector summary = new SubmissionSummary.Collector();
+        int[] chunks = {0};
+        long count;
+        // whether the run was committed or deleted; any other way out of here deletes it
+        boolean settled = false;
+        TacotruckHttp.Response committed;
+        try {
+            try {
+                try {
+                    count = source.read(batch -> {
+                        for (TestCaseRecord record : batch) {
+                            summary.accept(record);
+                            chunk.add(record);
+                            if (chunk.size() >= chunkSize) {
+                                dispatch(run, chunks[0]++, chunk, executor, inFlight, failed);
+                                chunk.clear();
+                            }
+                        }
+                    });
+                    if (!chunk.isEmpty() || chunks[0] == 0) {
+                        dispatch(run, chunks[0]++, chunk, executor, inFlight, failed);
+                    }
+                } catch (IOException e) {
+                    if (failed.get() == null) {
+                        inFlight.acquire(parallelism);
+                        String aborted = abort(run, runId);
+                        settled = true;
+                        return failure("Failed to read results: " + e.getMessage() + aborted, "");
+                    }
+                    count = 0;
+                }
+                inFlight.acquire(parallelism);
+            } finally {
+                executor.shutdownNow();
+            }
+            if (failed.get() != null) {
+                String aborted = abort(run, runId);
+                settled = true;
+                return failure(failed.get() + aborted, "");
+            }
+
+            int total = chunks[0];
+            long testCases = count;
+            byte[] commit = encode(json -> json.beginObject()
+                    .field("chunks", total)
+                    .field("testCases", testCases)
+                    .endObject());
+            // once the commit is sent the API may have acted on it, so the run is no longer deleted
+            settled = true;
+            // not idempotent: only resent when it was refused before the API acted on it
+            committed = sendWithRetry(URI.create(run + "/commit"), "POST", commit, false);
+        } finally {
+            if (!settled) {
+                abandon(run, runId);
+            }
+        }
+        if (committed.error != null) {
+            return failure("Failed to commit TacoTruck run " + runId + ": " + committed.error, committed.body);
+        }
+        return new CLIResult(
+                0,
+                "Submitted " + count + " test cases from " + origin + " in " + chunks[0]
+                        + " chunk(s)" + (retries.get() > 0 ? " (" + retries.get() + " retried)" : "")
+                        + ". " + committed.body,
+                true,
+                null,
+                bytesSent.get(),
+                summary.build().linkedTo(SubmissionSummary.linkIn(committed.body)),
+                runId);
+    }
+
+    /**
+     * Hands a full chunk to the executor, blocking the parser while {@code parallelism} chunks are in flight. Stops
+     * the parser with an {@link IOException} once a chunk has failed for good.
+     */
+    private void dispatch(
+            URI run,
+            int index,
+            List<TestCaseRecord> records,
+            ExecutorService executor,
+            Semaphore inFlight,
+            AtomicReference<String> failed)
+            throws IOException, InterruptedException {
+        byte[] body = encode(json -> {
+            json.beginObject().field("index", index).name("results").beginArray();
+            for (TestCaseRecord record : records) {
+                record.writeTo(json);
+            }
+            json.endArray().endObject();
+        });
+        inFlight.acquire();
+        if (failed.get() != null) {
+            inFlight.release();
+            throw new IOException(failed.get());
+        }
+        executor.execute(() -> {
+            try {
+                TacotruckHttp.Response attempt =
+                        sendWithRetry(URI.create(run + "/chunks/" + index), "PUT", body, true);
+                if (attempt.error != null) {
+                    failed.compareAndSet(null, "Failed to upload chunk " + index + ": " + attempt.error);
+                }
+            } catch (InterruptedException e) {
+                failed.compareAndSet(null, "Upload of chunk " + index + " was interrupted");
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Deletes the uncommitted run after a failed upload.
+     *
+     * @return what became of the run, to be appended to the error message
+     */
+    private String abort(URI run, String runId) throws InterruptedException {
+        TacotruckHttp.Response deleted = sendWithRetry(run, "DELETE", new byte[0], true);
+        return deleted.error == null
+                ? "; deleted the incomplete run " + runId
+                : "; could not delete the incomplete run " + runId + ": " + deleted.error;
+    }
+
+    /**
+     * Deletes the run when the upload ends by an exception, such as an interrupt or a parser failure. An interrupt is
+     * set aside for the single {@code DELETE} and restored afterwards.
+     */
+    private void abandon(URI run, String runId) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            TacotruckHttp.Response deleted = send(run, "DELETE", new byte[0]);
+            if (deleted.error != null) {
+                LOGGER.warning("Could not delete the incomplete TacoTruck run " + runId + ": " + deleted.error);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Sends a request with {@link TacotruckHttp#withRetry}, counting the retries for the output.
+     */
+    private TacotruckHttp.Response sendWithRetry(URI uri, String method, byte[] body, boolean idempotent)
+            throws InterruptedException {
+        return TacotruckHttp.withRetry(idempotent, MAX_ATTEMPTS, RETRY_BACKOFF_MILLIS, retry -> {
+            if (retry > 0) {
+                retries.incrementAndGet();
+                LOGGER.fine(() -> "Retrying " + method + " " + uri);
+            }
+            return send(uri, method, body);
+        });
+    }
+
+    private TacotruckHttp.Response send(URI uri, String method, byte[] body) throws InterruptedException {
+        TacotruckHttp.Response response = TacotruckHttp.send(HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + target.getApiToken())
+                .header("Content-Type", "application/json")
+                .timeout(NativeSubmitter.requestTimeout())
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body))
+                .build());
+        if (response.status != 0) {
+            bytesSent.addAndGet(body.length);
+        }
+        return response;
+    }
+
+    private CLIResult failure(String error, String output) {
+        return new CLIResult(1, output, false, error, bytesSent.get(), null);
+    }
+
+    private static byte[] encode(StreamingPayload.Producer producer) throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonWriter json = new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8))) {
+            producer.writeTo(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
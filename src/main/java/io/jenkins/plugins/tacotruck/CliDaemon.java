@@ -0,0 +1,420 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.init.Terminator;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+import hudson.slaves.WorkspaceList;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Keeps one long-lived TacoTruck CLI worker ({@code tacotruck-worker.js}) per agent, CLI location and {@code PATH},
+ * so submissions with {@link SubmissionEngine#DAEMON} skip the Node.js boot and module loading of a fresh
+ * {@code npx @testfiesta/tacotruck} process.
+ *
+ * <p>Requests and responses are single-line JSON frames over the worker's stdin and stdout; the CLI's output comes
+ * back as it is written, in frames of its own, and goes to the build log line by line. The worker process runs with
+ * the agent's environment and the {@code PATH} of the build that started it, never with a build's variables or
+ * secrets: each request carries the environment of its build, which the worker applies for that run only.
+ *
+ * <p>A worker is pinged before use when it has been idle for {@link #IDLE_PING_MILLIS}, recycled after
+ * {@link #MAX_REQUESTS} requests, once its resident memory exceeds {@link #MAX_RSS_BYTES} or once it holds
+ * {@link #MAX_MODULE_GENERATIONS} copies of an ES module entry point, and stopped when its agent goes offline.
+ * Whenever the worker cannot take a request (busy with another build, failed to start, unhealthy) the caller falls
+ * back to spawning the CLI as usual.
+ */
+public class CliDaemon {
+
+    private static final Logger LOGGER = Logger.getLogger(CliDaemon.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long MAX_REQUESTS = SystemProperties.getLong(CliDaemon.class.getName() + ".maxRequests", 100L);
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long MAX_RSS_BYTES =
+            SystemProperties.getLong(CliDaemon.class.getName() + ".maxRssBytes", 512L * 1024 * 1024);
+
+    /**
+     * An ES module cannot be unloaded, so every run of a CLI whose entry point is one leaves a copy of that module in
+     * the worker.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long MAX_MODULE_GENERATIONS =
+            SystemProperties.getLong(CliDaemon.class.getName() + ".maxModuleGenerations", 20L);
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long IDLE_PING_MILLIS = SystemProperties.getLong(
+            CliDaemon.class.getName() + ".idlePingMillis", TimeUnit.MINUTES.toMillis(1));
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long START_TIMEOUT_MILLIS = SystemProperties.getLong(
+            CliDaemon.class.getName() + ".startTimeoutMillis", TimeUnit.MINUTES.toMillis(2));
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long PING_TIMEOUT_MILLIS = SystemProperties.getLong(
+            CliDaemon.class.getName() + ".pingTimeoutMillis", TimeUnit.SECONDS.toMillis(10));
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long REQUEST_TIMEOUT_MILLIS = SystemProperties.getLong(
+            CliDaemon.class.getName() + ".requestTimeoutMillis", TimeUnit.MINUTES.toMillis(30));
+
+    private static final String SCRIPT = "tacotruck-worker.js";
+
+    private static final ConcurrentMap<String, Worker> WORKERS = new ConcurrentHashMap<>();
+
+    private static final ExecutorService READERS = new ContextResettingExecutorService(Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "TacoTruck CLI worker reader")));
+
+    /**
+     * Runs a command built by {@link TacotruckCLIHelper#buildSubmitCommand} on the worker of the agent that owns
+     * {@code workspace}.
+     *
+     * @param prefixLength number of leading elements of {@code command} that invoke the CLI: 2 for
+     *     {@code npx @testfiesta/tacotruck}, 1 for an installed {@code tacotruck} binary
+     * @return the result, or {@code null} if no worker could take the request and the command was not run
+     */
+    @CheckForNull
+    static CLIResult execute(
+            String[] command,
+            int prefixLength,
+            TaskListener listener,
+            FilePath workspace,
+            @CheckForNull EnvVars envVars,
+            boolean echo)
+            throws IOException, InterruptedException {
+        String nodeName = TacotruckCLIHelper.nodeName(workspace);
+        List<String> cli = Arrays.asList(command).subList(0, prefixLength);
+        String path = envVars != null ? envVars.get("PATH") : null;
+        Worker worker = WORKERS.computeIfAbsent(
+                nodeName + "\u0000" + cli + "\u0000" + path, k -> new Worker(nodeName, cli, path));
+        if (!worker.lock.tryLock()) {
+            listener.getLogger().println("TacoTruck CLI worker is busy; starting a separate CLI process");
+            return null;
+        }
+        try {
+            try {
+                worker.ensureHealthy(workspace);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "TacoTruck CLI worker on '" + nodeName + "' is unavailable", e);
+                listener.getLogger()
+                        .println("✗ TacoTruck CLI worker is unavailable (" + e.getMessage()
+                                + "); starting a separate CLI process");
+                worker.stop();
+                return null;
+            }
+
+            PrintStream logger = listener.getLogger();
+            List<String> secrets = TacotruckCLIHelper.secrets(command);
+            CLIOutputStream.Tail stdoutTail = new CLIOutputStream.Tail();
+            CLIOutputStream.Tail stderrTail = new CLIOutputStream.Tail();
+            JSONObject response;
+            try (CLIOutputStream stdout = new CLIOutputStream(echo ? logger : null, "", secrets, stdoutTail);
+                    CLIOutputStream stderr = new CLIOutputStream(logger, "[stderr] ", secrets, stderrTail)) {
+                JSONObject request = new JSONObject();
+                request.put("type", "run");
+                request.put("argv", Arrays.asList(command).subList(prefixLength, command.length));
+                request.put("cwd", workspace.getRemote());
+                if (envVars != null) {
+                    request.put("env", envVars);
+                }
+                try {
+                    response = worker.call(request, REQUEST_TIMEOUT_MILLIS, stdout, stderr);
+                } catch (IOException e) {
+                    // the request may have been (partially) processed, so do not run it a second time
+                    worker.stop();
+                    String errorMsg = "TacoTruck CLI worker failed: " + e.getMessage();
+                    logger.println("✗ " + errorMsg);
+                    return new CLIResult(1, stdoutTail.toString(), false, errorMsg);
+                }
+                stderr.write(response.optString("stderr", "").getBytes(StandardCharsets.UTF_8));
+            }
+            worker.recycleIfNeeded(response);
+            return toResult(response, stdoutTail, stderrTail);
+        } finally {
+            worker.lock.unlock();
+        }
+    }
+
+    private static CLIResult toResult(
+            JSONObject response, CLIOutputStream.Tail stdoutTail, CLIOutputStream.Tail stderrTail) {
+        int exitCode = response.optInt("exitCode", 1);
+        String errorOutput = stderrTail.toString();
+        String errorMessage = exitCode != 0 && !errorOutput.isEmpty() ? errorOutput : null;
+        return new CLIResult(exitCode, stdoutTail.toString(), exitCode == 0, errorMessage);
+    }
+
+    /**
+     * Stops every worker running on the given node.
+     */
+    public static void stop(@NonNull String nodeName) {
+        WORKERS.values().removeIf(worker -> {
+            if (worker.nodeName.equals(nodeName)) {
+                worker.stop();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @Terminator
+    public static void stopAll() {
+        WORKERS.values().forEach(Worker::stop);
+        WORKERS.clear();
+    }
+
+    static int getRunningCount() {
+        return (int) WORKERS.values().stream().filter(Worker::isRunning).count();
+    }
+
+    private static final class Worker {
+        private final String nodeName;
+        private final List<String> cli;
+
+        @CheckForNull
+        private final String path;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final CLIOutputStream.Tail stderrTail = new CLIOutputStream.Tail(20, 4096);
+
+        private volatile Proc proc;
+        private volatile BufferedReader stdout;
+        private volatile OutputStream stdin;
+        private long nextId;
+        private long requests;
+        private long lastUsed;
+
+        Worker(String nodeName, List<String> cli, @CheckForNull String path) {
+            this.nodeName = nodeName;
+            this.cli = List.copyOf(cli);
+            this.path = path;
+        }
+
+        boolean isRunning() {
+            Proc p = proc;
+            try {
+                return p != null && p.isAlive();
+            } catch (IOException | InterruptedException e) {
+                return false;
+            }
+        }
+
+        void ensureHealthy(FilePath workspace) throws IOException, InterruptedException {
+            if (!isRunning()) {
+                stop();
+                start(workspace);
+                ping(START_TIMEOUT_MILLIS);
+            } else if (System.currentTimeMillis() - lastUsed > IDLE_PING_MILLIS) {
+                ping(PING_TIMEOUT_MILLIS);
+            }
+        }
+
+        private void start(FilePath workspace) throws IOException, InterruptedException {
+            FilePath dir = workerDir(workspace);
+            dir.mkdirs();
+            FilePath script = dir.child(SCRIPT);
+            script.copyFrom(CliDaemon.class.getResource(SCRIPT));
+
+            // the worker serves later builds too, so it gets none of this build's variables; only the PATH that
+            // locates node and npx, which is part of the key of the worker
+            EnvVars env = new EnvVars(EnvVars.getRemote(workspace.getChannel()));
+            if (path != null) {
+                env.put("PATH", path);
+            }
+            // the worker outlives the build that started it, so keep the process tree killer away from it
+            env.put("JENKINS_NODE_COOKIE", "dontKillMe");
+            env.put("BUILD_ID", "dontKillMe");
+
+            Launcher launcher = workspace.createLauncher(TaskListener.NULL);
+            ArgumentListBuilder cmds = new ArgumentListBuilder();
+            if (cli.size() == 1) {
+                // an installed binary: put its directory on the PATH, where the worker looks for the CLI
+                String bin = cli.get(0);
+                int separator = Math.max(bin.lastIndexOf('/'), bin.lastIndexOf('\\'));
+                env.override("PATH+TACOTRUCK", bin.substring(0, Math.max(separator, 0)));
+                cmds.add("node", script.getRemote());
+            } else {
+                cmds.add(cli.get(0), "--yes", "-p", cli.get(1), "-c", "node \"" + script.getRemote() + "\"");
+            }
+            proc = launcher.launch()
+                    .cmds(cmds)
+                    .pwd(dir)
+                    .envs(env)
+                    .quiet(true)
+                    .readStdout()
+                    .writeStdin()
+                    .stderr(new CLIOutputStream(null, "", List.of(), stderrTail))
+                    .start();
+            stdout = new BufferedReader(new InputStreamReader(proc.getStdout(), StandardCharsets.UTF_8));
+            stdin = proc.getStdin();
+            requests = 0;
+            LOGGER.fine("Started TacoTruck CLI worker on '" + nodeName + "'");
+        }
+
+        private FilePath workerDir(FilePath workspace) {
+            Computer computer = workspace.toComputer();
+            Node node = computer != null ? computer.getNode() : null;
+            FilePath root = node != null ? node.getRootPath() : null;
+            if (root == null) {
+                root = WorkspaceList.tempDir(workspace);
+            }
+            return root.child("tacotruck");
+        }
+
+        private void ping(long timeoutMillis) throws IOException, InterruptedException {
+            JSONObject request = new JSONObject();
+            request.put("type", "ping");
+            JSONObject response = call(request, timeoutMillis, null, null);
+            if (!response.optBoolean("ok")) {
+                throw new IOException("unexpected ping response " + response);
+            }
+        }
+
+        /**
+         * Sends {@code request} and waits for its response, writing the output frames that come before it to
+         * {@code stdout} and {@code stderr}.
+         */
+        JSONObject call(
+                JSONObject request,
+                long timeoutMillis,
+                @CheckForNull OutputStream stdout,
+                @CheckForNull OutputStream stderr)
+                throws IOException, InterruptedException {
+            BufferedReader in = this.stdout;
+            OutputStream out = stdin;
+            if (in == null || out == null) {
+                throw new IOException("worker is not running");
+            }
+
+            long id = ++nextId;
+            request.put("id", id);
+            out.write((request.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (true) {
+                String line = readLine(in, deadline);
+                if (line == null) {
+                    String errors = stderrTail.toString();
+                    throw new IOException("worker exited" + (errors.isEmpty() ? "" : ": " + errors));
+                }
+                JSONObject response;
+                try {
+                    response = JSONObject.fromObject(line);
+                } catch (JSONException e) {
+                    // stray output the CLI wrote before its streams were captured
+                    LOGGER.finest(() -> "Ignoring TacoTruck CLI worker output: " + line);
+                    continue;
+                }
+                if (response.optLong("id", -1) != id) {
+                    continue;
+                }
+                if ("output".equals(response.optString("type"))) {
+                    OutputStream target = "stderr".equals(response.optString("stream")) ? stderr : stdout;
+                    if (target != null) {
+                        target.write(response.optString("data", "").getBytes(StandardCharsets.UTF_8));
+                    }
+                } else {
+                    lastUsed = System.currentTimeMillis();
+                    return response;
+                }
+            }
+        }
+
+        private static String readLine(BufferedReader in, long deadline) throws IOException, InterruptedException {
+            Future<String> line = READERS.submit(in::readLine);
+            try {
+                return line.get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                line.cancel(true);
+                throw new IOException("no response in time", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            } catch (InterruptedException e) {
+                line.cancel(true);
+                throw e;
+            }
+        }
+
+        void recycleIfNeeded(JSONObject response) {
+            requests++;
+            long rss = response.optLong("rss", 0);
+            long generations = response.optLong("generations", 0);
+            if (requests >= MAX_REQUESTS || rss > MAX_RSS_BYTES || generations >= MAX_MODULE_GENERATIONS) {
+                LOGGER.fine(() -> "Recycling TacoTruck CLI worker on '" + nodeName + "' after " + requests
+                        + " request(s), rss " + rss + " bytes, " + generations + " module generation(s)");
+                stop();
+            }
+        }
+
+        void stop() {
+            Proc p = proc;
+            proc = null;
+            if (p == null) {
+                return;
+            }
+            OutputStream out = stdin;
+            stdout = null;
+            stdin = null;
+            try {
+                if (out != null) {
+                    out.close();
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close TacoTruck CLI worker stdin", e);
+            }
+            try {
+                p.kill();
+            } catch (IOException | InterruptedException e) {
+                LOGGER.log(Level.FINE, "Failed to stop TacoTruck CLI worker on '" + nodeName + "'", e);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @Extension
+    public static final class StoppingComputerListener extends ComputerListener {
+
+        @Override
+        public void onOffline(@NonNull Computer c, @CheckForNull OfflineCause cause) {
+            stop(c.getName());
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * Caches the outcome of the {@code which npx} / {@code npx @testfiesta/tacotruck --version} probes per agent.
+ *
+ * <p>Entries are keyed on the node name plus the environment variables that influence how {@code npx} resolves,
+ * expire after {@link #TTL_MILLIS} and are dropped when the agent goes on- or offline. Concurrent builds asking for
+ * the same key share a single in-flight probe.
+ */
+public class CliResolutionCache {
+
+    private static final Logger LOGGER = Logger.getLogger(CliResolutionCache.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long TTL_MILLIS =
+            SystemProperties.getLong(CliResolutionCache.class.getName() + ".ttlMillis", TimeUnit.MINUTES.toMillis(30));
+
+    private static final String[] KEY_VARIABLES = {
+        "PATH", "NODEJS_HOME", "NODE_HOME", "NODE_PATH", "NODE_OPTIONS", "NPM_CONFIG_PREFIX", "npm_config_registry"
+    };
+
+    private static final ConcurrentMap<Key, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    /**
+     * Resolved location of {@code npx} and the TacoTruck CLI version it reports.
+     */
+    public static final class Resolution {
+        private final String npxPath;
+        private final String version;
+
+        public Resolution(@CheckForNull String npxPath, @CheckForNull String version) {
+            this.npxPath = npxPath;
+            this.version = version;
+        }
+
+        @CheckForNull
+        public String getNpxPath() {
+            return npxPath;
+        }
+
+        @CheckForNull
+        public String getVersion() {
+            return version;
+        }
+
+        boolean isComplete() {
+            return npxPath != null && version != null;
+        }
+    }
+
+    @FunctionalInterface
+    interface Probe {
+        Resolution run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Returns the cached resolution for the given node and environment, running {@code probe} if there is none.
+     * Incomplete resolutions (the CLI not found) and failures, such as npx not being found, are handed to the callers
+     * waiting on the probe but are never kept, so the next build probes again.
+     */
+    static Resolution resolve(@NonNull String nodeName, @CheckForNull Map<String, String> env, @NonNull Probe probe)
+            throws IOException, InterruptedException {
+        Key key = new Key(nodeName, env);
+        while (true) {
+            Entry existing = ENTRIES.get(key);
+            if (existing != null && !existing.isExpired(System.currentTimeMillis())) {
+                return existing.await();
+            }
+
+            Entry mine = new Entry();
+            boolean claimed =
+                    existing == null ? ENTRIES.putIfAbsent(key, mine) == null : ENTRIES.replace(key, existing, mine);
+            if (!claimed) {
+                continue;
+            }
+
+            try {
+                Resolution resolution = probe.run();
+                mine.complete(resolution);
+                if (!resolution.isComplete()) {
+                    ENTRIES.remove(key, mine);
+                }
+                return resolution;
+            } catch (IOException | InterruptedException | RuntimeException | Error e) {
+                ENTRIES.remove(key, mine);
+                mine.fail(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Drops every cached resolution for the given node, e.g. after Node.js was upgraded on it.
+     */
+    public static void invalidate(@NonNull String nodeName) {
+        if (ENTRIES.keySet().removeIf(key -> key.nodeName.equals(nodeName))) {
+            LOGGER.fine("Invalidated TacoTruck CLI resolution cache for node '" + nodeName + "'");
+        }
+    }
+
+    public static void invalidateAll() {
+        ENTRIES.clear();
+    }
+
+    static int size() {
+        return ENTRIES.size();
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Resolution> future = new CompletableFuture<>();
+        private volatile long resolvedAt;
+
+        void complete(Resolution resolution) {
+            resolvedAt = System.currentTimeMillis();
+            future.complete(resolution);
+        }
+
+        void fail(Throwable t) {
+            future.completeExceptionally(t);
+        }
+
+        boolean isExpired(long now) {
+            return future.isDone() && now - resolvedAt > TTL_MILLIS;
+        }
+
+        Resolution await() throws IOException, InterruptedException {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof AbortException) {
+                    throw new AbortException(cause.getMessage());
+                }
+                if (cause instanceof IOException) {
+                    throw new IOException(cause.getMessage(), cause);
+                }
+                if (cause instanceof InterruptedException) {
+                    throw new IOException("TacoTruck CLI probe was interrupted in another build", cause);
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    private static final class Key {
+        private final String nodeName;
+        private final Map<String, String> variables = new TreeMap<>();
+
+        Key(String nodeName, Map<String, String> env) {
+            this.nodeName = nodeName;
+            if (env != null) {
+                for (String name : KEY_VARIABLES) {
+                    String value = env.get(name);
+                    if (value != null) {
+                        variables.put(name, value);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return nodeName.equals(other.nodeName) && variables.equals(other.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(nodeName, variables);
+        }
+    }
+
+    @Extension
+    public static final class InvalidatingComputerListener extends ComputerListener {
+
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            invalidate(c.getName());
+        }
+
+        @Override
+        public void onOffline(@NonNull Computer c, @CheckForNull OfflineCause cause) {
+            invalidate(c.getName());
+        }
+    }
+}
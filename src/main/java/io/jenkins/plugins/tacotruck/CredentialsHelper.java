@@ -1,32 +1,144 @@
 package io.jenkins.plugins.tacotruck;
 
+import com.cloudbees.plugins.credentials.Credentials;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsParameterValue;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.common.UsernamePasswordCredentials;
 import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.XmlFile;
 import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.ParametersAction;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.User;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.model.queue.Tasks;
 import hudson.security.ACL;
 import hudson.util.ListBoxModel;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.springframework.security.core.Authentication;
 
 public class CredentialsHelper {
     private static final Logger LOGGER = Logger.getLogger(CredentialsHelper.class.getName());
 
+    /**
+     * String credentials by ID, per context item and the authentication they were looked up with. Each is built with
+     * one listing of the credentials that context can see and dropped whenever a credentials store, a folder or a user
+     * is saved, or an item is moved or deleted.
+     */
+    private static final ConcurrentMap<String, Map<String, StringCredentials>> INDEXES = new ConcurrentHashMap<>();
+
+    /** Counts invalidations, so that an index listed before one is not kept after it. */
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /**
+     * Resolves global string credentials by ID, as the system.
+     */
     @CheckForNull
     protected static StringCredentials lookupApiTokenCredentials(@CheckForNull String credentialsId) {
         if (credentialsId == null) {
             return null;
         }
+        return find(credentialsId, "\n" + ACL.SYSTEM2.getName(), () -> index(
+                CredentialsProvider.lookupCredentialsInItemGroup(
+                        StringCredentials.class, Jenkins.get(), ACL.SYSTEM2, Collections.emptyList())));
+    }
+
+    /**
+     * Resolves string credentials by ID for {@code run} like {@link CredentialsProvider#findCredentialById}: with the
+     * authentication the build runs as, from the stores its job and folders can see, and tracked against the build.
+     * Without a run, only global credentials are found.
+     */
+    @CheckForNull
+    protected static StringCredentials lookupApiTokenCredentials(
+            @CheckForNull String credentialsId, @CheckForNull Run<?, ?> run) {
+        if (run == null) {
+            return lookupApiTokenCredentials(credentialsId);
+        }
+        if (credentialsId == null) {
+            return null;
+        }
+        ParametersAction parameters = run.getAction(ParametersAction.class);
+        if (parameters != null && parameters.getParameter(credentialsId) instanceof CredentialsParameterValue) {
+            // a credentials parameter is resolved as the user who chose it, which only findCredentialById knows
+            return CredentialsProvider.findCredentialById(credentialsId, StringCredentials.class, run);
+        }
+
+        Job<?, ?> job = run.getParent();
+        Authentication authentication =
+                job instanceof Queue.Task ? Tasks.getAuthenticationOf2((Queue.Task) job) : ACL.SYSTEM2;
+        // as findCredentialById does, add the job's own credentials if the build may use them
+        boolean useItem = authentication != ACL.SYSTEM2
+                && run.getACL().hasPermission2(authentication, CredentialsProvider.USE_ITEM);
+        String key = job.getFullName() + "\n" + authentication.getName() + "\n" + useItem;
+        StringCredentials credentials = find(credentialsId, key, () -> {
+            List<StringCredentials> candidates = new ArrayList<>(CredentialsProvider.lookupCredentialsInItem(
+                    StringCredentials.class, job, authentication, Collections.emptyList()));
+            if (useItem) {
+                candidates.addAll(CredentialsProvider.lookupCredentialsInItem(
+                        StringCredentials.class, job, ACL.SYSTEM2, Collections.emptyList()));
+            }
+            return index(candidates);
+        });
+        if (credentials == null) {
+            return null;
+        }
+        CredentialsProvider.track(run, credentials);
+        Credentials contextual = credentials.forRun(run);
+        return contextual instanceof StringCredentials ? (StringCredentials) contextual : credentials;
+    }
+
+    @CheckForNull
+    private static StringCredentials find(
+            String credentialsId, String key, Supplier<Map<String, StringCredentials>> lookup) {
+        Map<String, StringCredentials> index = INDEXES.get(key);
+        if (index == null || !index.containsKey(credentialsId)) {
+            // a miss may just be a credential added through a store that does not report saves, so re-index once
+            long generation = GENERATION.get();
+            index = lookup.get();
+            if (GENERATION.get() == generation) {
+                INDEXES.put(key, index);
+            }
+        }
+        return index.get(credentialsId);
+    }
+
+    private static Map<String, StringCredentials> index(List<StringCredentials> credentials) {
+        Map<String, StringCredentials> byId = new HashMap<>();
+        for (StringCredentials c : credentials) {
+            // lookups list the closest scope first, so keep the first match like CredentialsMatchers.firstOrNull
+            byId.putIfAbsent(c.getId(), c);
+        }
+        return byId;
+    }
 
-        return CredentialsMatchers.firstOrNull(
-                CredentialsProvider.lookupCredentials(StringCredentials.class, Jenkins.get(), ACL.SYSTEM),
-                CredentialsMatchers.withId(credentialsId));
+    static void invalidate() {
+        GENERATION.incrementAndGet();
+        if (!INDEXES.isEmpty()) {
+            INDEXES.clear();
+            LOGGER.fine("Invalidated TacoTruck credentials index");
+        }
     }
 
     protected static ListBoxModel doFillCredentialsIdItems(Item item, String credentialsId) {
@@ -47,4 +159,33 @@ public class CredentialsHelper {
                                 CredentialsMatchers.instanceOf(UsernamePasswordCredentials.class)))
                 .includeCurrentValue(credentialsId);
     }
+
+    /**
+     * Global credentials are saved through {@link SystemCredentialsProvider}, folder credentials with their folder and
+     * user credentials with their user.
+     */
+    @Extension
+    public static final class InvalidatingSaveableListener extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof SystemCredentialsProvider || o instanceof ItemGroup || o instanceof User) {
+                invalidate();
+            }
+        }
+    }
+
+    @Extension
+    public static final class InvalidatingItemListener extends ItemListener {
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            invalidate();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            invalidate();
+        }
+    }
 }
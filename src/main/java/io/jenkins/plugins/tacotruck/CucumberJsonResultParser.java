@@ -0,0 +1,179 @@
+package io.jenkins.plugins.tacotruck;
+
+import hudson.Extension;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams Cucumber JSON reports: an array of features, each with {@code elements} (scenarios) made of steps and
+ * hooks with a {@code result}. Every scenario is one test case of its feature; a failing background is reported on
+ * the scenario it precedes. A feature without a {@code uri} is named after the file. The scenarios of a feature are
+ * held until the feature ends, as its {@code uri} and {@code name} may come after them.
+ */
+@Extension
+public class CucumberJsonResultParser extends ResultParser {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String getFormat() {
+        return "Cucumber JSON";
+    }
+
+    @Override
+    public boolean accepts(String head) {
+        String text = head.stripLeading();
+        if (!text.startsWith("[")) {
+            return false;
+        }
+        String rest = text.substring(1).stripLeading();
+        return rest.isEmpty() || rest.startsWith("{") || rest.startsWith("]");
+    }
+
+    @Override
+    public long parse(InputStream in, String fileName, int batchSize, TestCaseSink sink)
+            throws IOException, InterruptedException {
+        Batcher batch = new Batcher(batchSize, sink);
+        JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        reader.beginArray();
+        while (reader.hasNext()) {
+            readFeature(reader, fileName, batch);
+        }
+        reader.endArray();
+        return batch.finish();
+    }
+
+    private static void readFeature(JsonReader reader, String fileName, Batcher batch)
+            throws IOException, InterruptedException {
+        String uri = null;
+        String name = null;
+        List<Outcome> scenarios = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("uri".equals(field)) {
+                uri = reader.nextString();
+            } else if ("name".equals(field)) {
+                name = reader.nextString();
+            } else if ("elements".equals(field)) {
+                Outcome background = null;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Outcome element = readElement(reader);
+                    if ("background".equals(element.type)) {
+                        background = element;
+                        continue;
+                    }
+                    if (background != null) {
+                        element.merge(background);
+                        background = null;
+                    }
+                    scenarios.add(element);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        String suite = uri != null ? uri : fileName;
+        String className = name != null && !name.isEmpty() ? name : suite;
+        for (Outcome scenario : scenarios) {
+            batch.add(new TestCaseRecord(
+                    suite, className, scenario.name, scenario.nanos / 1_000_000, scenario.status, scenario.message));
+        }
+    }
+
+    private static Outcome readElement(JsonReader reader) throws IOException {
+        Outcome outcome = new Outcome();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("name".equals(field)) {
+                String name = reader.nextString();
+                outcome.name = name != null ? name : "";
+            } else if ("type".equals(field)) {
+                outcome.type = reader.nextString();
+            } else if ("steps".equals(field) || "before".equals(field) || "after".equals(field)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readStep(reader, outcome);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return outcome;
+    }
+
+    private static void readStep(JsonReader reader, Outcome outcome) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"result".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            String status = null;
+            String duration = null;
+            String message = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if ("status".equals(field)) {
+                    status = reader.nextString();
+                } else if ("duration".equals(field)) {
+                    duration = reader.nextString();
+                } else if ("error_message".equals(field)) {
+                    message = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            outcome.step(status, duration, message);
+        }
+        reader.endObject();
+    }
+
+    private static final class Outcome {
+        private String name = "";
+        private String type;
+        private long nanos;
+        private TestCaseRecord.Status status = TestCaseRecord.Status.PASSED;
+        private String message;
+
+        void step(String result, String duration, String error) {
+            if (duration != null) {
+                try {
+                    nanos += (long) Double.parseDouble(duration);
+                } catch (NumberFormatException e) {
+                    // leave the duration out
+                }
+            }
+            if ("failed".equals(result) || "ambiguous".equals(result)) {
+                if (status != TestCaseRecord.Status.FAILED) {
+                    status = TestCaseRecord.Status.FAILED;
+                    message = error;
+                }
+            } else if (result != null && !"passed".equals(result) && status == TestCaseRecord.Status.PASSED) {
+                status = TestCaseRecord.Status.SKIPPED;
+                message = result;
+            }
+        }
+
+        void merge(Outcome background) {
+            nanos += background.nanos;
+            if (background.status == TestCaseRecord.Status.FAILED && status != TestCaseRecord.Status.FAILED) {
+                status = TestCaseRecord.Status.FAILED;
+                message = background.message;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.jenkins.plugins.tacotruck;
+
+import hudson.Extension;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams JUnit XML reports ({@code <testsuites>}/{@code <testsuite>}/{@code <testcase>}) with StAX, handing test
+ * cases to a {@link TestCaseSink} in batches so memory use depends on the batch size rather than the file size.
+ */
+@Extension
+public class JUnitResultParser extends XmlResultParser {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String getFormat() {
+        return "JUnit XML";
+    }
+
+    @Override
+    protected Set<String> getRootElements() {
+        return Set.of("testsuites", "testsuite");
+    }
+
+    /**
+     * @return the number of test cases read
+     */
+    public long parse(InputStream in, int batchSize, TestCaseSink sink) throws IOException, InterruptedException {
+        return parse(in, "", batchSize, sink);
+    }
+
+    @Override
+    protected void read(XMLStreamReader reader, String fileName, Batcher batch)
+            throws XMLStreamException, IOException, InterruptedException {
+        Deque<String> suites = new ArrayDeque<>();
+        CaseBuilder current = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("testsuite".equals(element)) {
+                    suites.push(attribute(reader, "name", ""));
+                } else if ("testcase".equals(element)) {
+                    current = new CaseBuilder(
+                            suites.peek(),
+                            attribute(reader, "classname", null),
+                            attribute(reader, "name", ""),
+                            secondsToMillis(attribute(reader, "time", null)));
+                } else if (current != null) {
+                    current.outcome(element, attribute(reader, "message", null));
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("testsuite".equals(element)) {
+                    suites.poll();
+                } else if ("testcase".equals(element) && current != null) {
+                    batch.add(current.build());
+                    current = null;
+                }
+            }
+        }
+    }
+
+    private static final class CaseBuilder {
+        private final String suite;
+        private final String className;
+        private final String name;
+        private final long durationMillis;
+        private TestCaseRecord.Status status = TestCaseRecord.Status.PASSED;
+        private String message;
+
+        CaseBuilder(String suite, String className, String name, long durationMillis) {
+            this.suite = suite;
+            this.className = className;
+            this.name = name;
+            this.durationMillis = durationMillis;
+        }
+
+        void outcome(String element, String message) {
+            TestCaseRecord.Status outcome;
+            if ("failure".equals(element)) {
+                outcome = TestCaseRecord.Status.FAILED;
+            } else if ("error".equals(element)) {
+                outcome = TestCaseRecord.Status.ERROR;
+            } else if ("skipped".equals(element)) {
+                outcome = TestCaseRecord.Status.SKIPPED;
+            } else {
+                return;
+            }
+            if (status == TestCaseRecord.Status.PASSED) {
+                this.status = outcome;
+                this.message = message;
+            }
+        }
+
+        TestCaseRecord build() {
+            return new TestCaseRecord(suite, className, name, durationMillis, status, message);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.PluginWrapper;
+import hudson.model.Run;
+import hudson.tasks.junit.CaseResult;
+import hudson.tasks.junit.SuiteResult;
+import hudson.tasks.junit.TestResult;
+import hudson.tasks.junit.TestResultAction;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.model.Jenkins;
+
+/**
+ * Reads the test results the {@code junit} step already recorded for a build, so they can be submitted without
+ * parsing the report files a second time. The results are those Jenkins shows for the build, counted the same way.
+ *
+ * <p>Only {@link #forRun} may be called unconditionally; it checks for the optional junit plugin before touching any
+ * of its classes.
+ */
+final class JUnitTestResults {
+
+    private JUnitTestResults() {}
+
+    /**
+     * The recorded results of {@code run}, or {@code null} if the junit plugin is missing or nothing was recorded.
+     */
+    @CheckForNull
+    static TestCaseSource forRun(Run<?, ?> run, int batchSize) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return forRun(run, batchSize, jenkins != null ? jenkins.getPluginManager().getPlugin("junit") : null);
+    }
+
+    /**
+     * @param junit the installed junit plugin, if any; its classes are only loaded when it is active
+     */
+    @CheckForNull
+    static TestCaseSource forRun(Run<?, ?> run, int batchSize, @CheckForNull PluginWrapper junit) {
+        return junit != null && junit.isActive() ? Reader.forRun(run, batchSize) : null;
+    }
+
+    /**
+     * Holds every reference to the junit plugin, so the class is only loaded when the plugin is present.
+     */
+    private static final class Reader {
+
+        @CheckForNull
+        static TestCaseSource forRun(Run<?, ?> run, int batchSize) {
+            TestResultAction action = run.getAction(TestResultAction.class);
+            if (action == null) {
+                return null;
+            }
+            return sink -> read(action.getResult(), batchSize, sink);
+        }
+
+        private static long read(TestResult result, int batchSize, TestCaseSink sink)
+                throws IOException, InterruptedException {
+            long count = 0;
+            List<TestCaseRecord> batch = new ArrayList<>(batchSize);
+            for (SuiteResult suite : result.getSuites()) {
+                for (CaseResult testCase : suite.getCases()) {
+                    batch.add(toRecord(suite, testCase));
+                    count++;
+                    if (batch.size() >= batchSize) {
+                        sink.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+            }
+            return count;
+        }
+
+        private static TestCaseRecord toRecord(SuiteResult suite, CaseResult testCase) {
+            TestCaseRecord.Status status;
+            String message;
+            if (testCase.isSkipped()) {
+                status = TestCaseRecord.Status.SKIPPED;
+                message = testCase.getSkippedMessage();
+            } else if (testCase.isFailed()) {
+                status = TestCaseRecord.Status.FAILED;
+                message = testCase.getErrorDetails();
+            } else {
+                status = TestCaseRecord.Status.PASSED;
+                message = null;
+            }
+            return new TestCaseRecord(
+                    suite.getName(),
+                    testCase.getClassName(),
+                    testCase.getName(),
+                    Math.round(testCase.getDuration() * 1000.0),
+                    status,
+                    message);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal streaming JSON reader, the counterpart of {@link JsonWriter}, used to read JSON reports without
+ * materialising them. It checks structure only as far as the caller asks for it; separators between values are
+ * skipped by {@link #hasNext()}.
+ */
+class JsonReader implements Closeable {
+
+    private final Reader in;
+    private int next = -1;
+
+    JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * The first character of the next value or closing bracket, not consumed.
+     */
+    char peek() throws IOException {
+        int c = next >= 0 ? next : in.read();
+        while (c >= 0 && (Character.isWhitespace(c) || c == '\uFEFF')) {
+            c = in.read();
+        }
+        if (c < 0) {
+            throw new IOException("Unexpected end of JSON");
+        }
+        next = c;
+        return (char) c;
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+    }
+
+    void endObject() throws IOException {
+        expect('}');
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+    }
+
+    void endArray() throws IOException {
+        expect(']');
+    }
+
+    /**
+     * Whether the current object or array has another member; consumes the separator before it.
+     */
+    boolean hasNext() throws IOException {
+        char c = peek();
+        if (c == ',') {
+            next = -1;
+            c = peek();
+        }
+        return c != '}' && c != ']';
+    }
+
+    String nextName() throws IOException {
+        expect('"');
+        String name = string();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Reads a string, number or literal as text; {@code null} for {@code null}.
+     */
+    @CheckForNull
+    String nextString() throws IOException {
+        char c = peek();
+        if (c == '"') {
+            next = -1;
+            return string();
+        }
+        if (c == '{' || c == '[') {
+            throw new IOException("Expected a JSON value but found '" + c + "'");
+        }
+        StringBuilder literal = new StringBuilder();
+        while (c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            literal.append(c);
+            int read = in.read();
+            if (read < 0) {
+                next = -1;
+                break;
+            }
+            c = (char) read;
+            next = read;
+        }
+        String value = literal.toString();
+        return "null".equals(value) ? null : value;
+    }
+
+    void skipValue() throws IOException {
+        char c = peek();
+        if (c != '{' && c != '[') {
+            nextString();
+            return;
+        }
+        next = -1;
+        int depth = 1;
+        while (depth > 0) {
+            int read = in.read();
+            if (read < 0) {
+                throw new IOException("Unexpected end of JSON");
+            }
+            if (read == '"') {
+                string();
+            } else if (read == '{' || read == '[') {
+                depth++;
+            } else if (read == '}' || read == ']') {
+                depth--;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(char expected) throws IOException {
+        char c = peek();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' in JSON but found '" + c + "'");
+        }
+        next = -1;
+    }
+
+    /**
+     * Reads the rest of a string whose opening quote was consumed.
+     */
+    private String string() throws IOException {
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                throw new IOException("Unterminated JSON string");
+            }
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append((char) c);
+                continue;
+            }
+            int escape = in.read();
+            switch (escape) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    char[] hex = new char[4];
+                    for (int i = 0; i < hex.length; i++) {
+                        int h = in.read();
+                        if (h < 0) {
+                            throw new IOException("Unterminated JSON string");
+                        }
+                        hex[i] = (char) h;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Malformed JSON escape \\u" + new String(hex), e);
+                    }
+                    break;
+                case -1:
+                    throw new IOException("Unterminated JSON string");
+                default:
+                    value.append((char) escape);
+                    break;
+            }
+        }
+    }
+}
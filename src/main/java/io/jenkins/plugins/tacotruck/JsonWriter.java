@@ -0,0 +1,151 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON writer used to build submission payloads without materialising them.
+ */
+class JsonWriter implements Closeable, Flushable {
+
+    private final Writer out;
+    private boolean[] nonEmpty = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    JsonWriter beginObject() throws IOException {
+        beforeValue();
+        out.write('{');
+        push();
+        return this;
+    }
+
+    JsonWriter endObject() throws IOException {
+        depth--;
+        out.write('}');
+        return this;
+    }
+
+    JsonWriter beginArray() throws IOException {
+        beforeValue();
+        out.write('[');
+        push();
+        return this;
+    }
+
+    JsonWriter endArray() throws IOException {
+        depth--;
+        out.write(']');
+        return this;
+    }
+
+    JsonWriter name(String name) throws IOException {
+        beforeValue();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        beforeValue();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    JsonWriter field(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void push() {
+        depth++;
+        if (depth == nonEmpty.length) {
+            nonEmpty = Arrays.copyOf(nonEmpty, depth * 2);
+        }
+        nonEmpty[depth] = false;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (nonEmpty[depth]) {
+                out.write(',');
+            }
+            nonEmpty[depth] = true;
+        }
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '"') {
+                replacement = "\\\"";
+            } else if (c == '\\') {
+                replacement = "\\\\";
+            } else if (c == '\n') {
+                replacement = "\\n";
+            } else if (c == '\r') {
+                replacement = "\\r";
+            } else if (c == '\t') {
+                replacement = "\\t";
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                replacement = String.format("\\u%04x", (int) c);
+            } else {
+                continue;
+            }
+            if (start < i) {
+                out.write(value, start, i - start);
+            }
+            out.write(replacement);
+            start = i + 1;
+        }
+        if (start < length) {
+            out.write(value, start, length - start);
+        }
+        out.write('"');
+    }
+}
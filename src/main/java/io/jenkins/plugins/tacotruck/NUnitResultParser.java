@@ -0,0 +1,99 @@
+package io.jenkins.plugins.tacotruck;
+
+import hudson.Extension;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams NUnit reports: NUnit 3 ({@code <test-run>}) and NUnit 2 ({@code <test-results>}), both nesting {@code
+ * <test-case>} elements in {@code <test-suite>} elements. Tests are grouped by their enclosing fixture.
+ */
+@Extension
+public class NUnitResultParser extends XmlResultParser {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String getFormat() {
+        return "NUnit XML";
+    }
+
+    @Override
+    protected Set<String> getRootElements() {
+        return Set.of("test-run", "test-results");
+    }
+
+    @Override
+    protected void read(XMLStreamReader reader, String fileName, Batcher batch)
+            throws XMLStreamException, IOException, InterruptedException {
+        Deque<String> fixtures = new ArrayDeque<>();
+        TestCaseRecord.Status status = null;
+        String suite = null;
+        String className = null;
+        String name = null;
+        long durationMillis = 0;
+        String message = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("test-suite".equals(element)) {
+                    String fixture = attribute(reader, "fullname", attribute(reader, "name", ""));
+                    boolean isFixture = attribute(reader, "type", "").endsWith("Fixture");
+                    fixtures.push(isFixture || fixtures.isEmpty() ? fixture : fixtures.peek());
+                } else if ("test-case".equals(element)) {
+                    suite = fixtures.isEmpty() ? fileName : fixtures.peek();
+                    className = attribute(reader, "classname", suite);
+                    name = attribute(reader, "name", "");
+                    if (name.startsWith(className + ".")) {
+                        name = name.substring(className.length() + 1);
+                    }
+                    durationMillis =
+                            secondsToMillis(attribute(reader, "duration", attribute(reader, "time", null)));
+                    status = status(attribute(reader, "result", ""), attribute(reader, "label", ""));
+                    message = null;
+                } else if (name != null && message == null && "message".equals(element)) {
+                    message = reader.getElementText().trim();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("test-suite".equals(element)) {
+                    fixtures.poll();
+                } else if ("test-case".equals(element) && name != null) {
+                    String detail = status == TestCaseRecord.Status.PASSED || message == null || message.isEmpty()
+                            ? null
+                            : message;
+                    batch.add(new TestCaseRecord(suite, className, name, durationMillis, status, detail));
+                    name = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps NUnit 3 results ({@code Passed}, {@code Failed} with an optional label, {@code Skipped}, ...) and NUnit 2
+     * results ({@code Success}, {@code Failure}, {@code Error}, {@code Ignored}, ...).
+     */
+    private static TestCaseRecord.Status status(String result, String label) {
+        switch (result) {
+            case "Passed":
+            case "Success":
+            case "Warning":
+                return TestCaseRecord.Status.PASSED;
+            case "Failed":
+                return "Error".equals(label) || "Invalid".equals(label)
+                        ? TestCaseRecord.Status.ERROR
+                        : TestCaseRecord.Status.FAILED;
+            case "Failure":
+                return TestCaseRecord.Status.FAILED;
+            case "Error":
+                return TestCaseRecord.Status.ERROR;
+            default:
+                return TestCaseRecord.Status.SKIPPED;
+        }
+    }
+}
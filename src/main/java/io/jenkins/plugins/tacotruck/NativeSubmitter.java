@@ -0,0 +1,271 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Submits results straight from the agent JVM, without going through the Node.js CLI.
+ *
+ * <p>The request is the contract documented under "Native Engine API" in the README: one {@code POST} of
+ * {@code {"name", "project", "organization", "source", "results": [...]}} to {@link #SUBMIT_PATH}, with the results
+ * written by {@link TestCaseRecord#writeTo}. It is the plugin's own description of the TacoTruck API, not something
+ * read from the CLI, and has to be kept in step with the API when either changes.
+ */
+public class NativeSubmitter {
+
+    /**
+     * Path of the single-request submission, relative to the API URL; formatted with the handle and the project.
+     */
+    static final String SUBMIT_PATH = "/v1/%s/projects/%s/runs/data";
+
+    static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * How long a request may take until its response arrives, counted from when it is sent, so including the upload
+     * of its body.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long REQUEST_TIMEOUT_SECONDS = SystemProperties.getLong(
+            NativeSubmitter.class.getName() + ".requestTimeoutSeconds", TimeUnit.MINUTES.toSeconds(10));
+
+    static Duration requestTimeout() {
+        return Duration.ofSeconds(Math.max(1, REQUEST_TIMEOUT_SECONDS));
+    }
+
+    protected static CLIResult submitResults(
+            String provider,
+            String resultsPath,
+            String project,
+            String apiToken,
+            String handle,
+            String runName,
+            String baseUrl,
+            int batchSize,
+            int chunkSize,
+            int parallelism,
+            TaskListener listener,
+            FilePath workspace)
+            throws IOException, InterruptedException {
+
+        listener.getLogger().println("Submitting test results to TacoTruck (native engine)...");
+
+        SubmissionTarget target = new SubmissionTarget(provider, project, apiToken, handle, runName, baseUrl);
+        CLIResult result;
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.UPLOAD)) {
+            result = workspace.act(new SubmitCallable(target, resultsPath, batchSize, chunkSize, parallelism));
+        }
+        SubmissionTimings.addBytes(result.getBytesSent());
+
+        if (result.getErrorMessage() != null) {
+            listener.getLogger().println("✗ " + result.getErrorMessage());
+        }
+        listener.getLogger().println(result.getOutput());
+
+        return result;
+    }
+
+    protected static CLIResult submitResultsWithCredentials(
+            String provider,
+            String resultsPath,
+            String project,
+            String credentialsId,
+            String handle,
+            String runName,
+            String baseUrl,
+            int batchSize,
+            int chunkSize,
+            int parallelism,
+            TaskListener listener,
+            FilePath workspace,
+            @CheckForNull Run<?, ?> run)
+            throws IOException, InterruptedException {
+
+        String apiToken = TacotruckCLIHelper.getApiToken(credentialsId, run);
+        if (apiToken == null) {
+            String errorMsg = "✗ Failed to retrieve API token from credentials: " + credentialsId;
+            listener.getLogger().println(errorMsg);
+            throw new AbortException(errorMsg);
+        }
+
+        return submitResults(
+                provider,
+                resultsPath,
+                project,
+                apiToken,
+                handle,
+                runName,
+                baseUrl,
+                batchSize,
+                chunkSize,
+                parallelism,
+                listener,
+                workspace);
+    }
+
+    static URI submitUri(String baseUrl, String handle, String project) {
+        return TacotruckHttp.apiUri(baseUrl, SUBMIT_PATH, handle, project);
+    }
+
+    /**
+     * The {@code id} of the run in a TacoTruck API response body, if it is a JSON object that has one.
+     */
+    @CheckForNull
+    static String runIdIn(@CheckForNull String response) {
+        if (response == null || !response.startsWith("{")) {
+            return null;
+        }
+        try {
+            String id = JSONObject.fromObject(response).optString("id", "");
+            return id.isEmpty() ? null : id;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Streams {@code payload} to {@code uri} and maps the response onto the {@link CLIResult} contract used by the CLI
+     * engine: exit code 0 and the response body on a 2xx status, exit code 1 and an error message otherwise.
+     */
+    static CLIResult post(URI uri, String apiToken, StreamingPayload payload) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + apiToken)
+                .header("Content-Type", "application/json")
+                .timeout(requestTimeout())
+                .POST(HttpRequest.BodyPublishers.ofInputStream(payload::open))
+                .build();
+
+        // sent once: the streamed body cannot be sent again, so a failed submission is retried as a whole
+        TacotruckHttp.Response response = TacotruckHttp.send(request);
+        try {
+            payload.finish(response.status != 0);
+        } catch (IOException e) {
+            return new CLIResult(1, "", false, "Failed to read results: " + e.getMessage());
+        }
+        if (response.error == null) {
+            return new CLIResult(0, response.body, true, null);
+        }
+        return new CLIResult(1, response.body, false, response.error);
+    }
+
+    static File resolve(File workspace, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(workspace, path);
+    }
+
+    /**
+     * Parses {@code files} and uploads them as a single run, in one request or, with a positive {@code chunkSize}, in
+     * chunks of that many test cases sent {@code parallelism} at a time. Runs wherever the files are, agent or
+     * controller.
+     */
+    static CLIResult upload(List<File> files, SubmissionTarget target, int batchSize, int chunkSize, int parallelism)
+            throws InterruptedException {
+        return upload(TestCaseSource.of(files, batchSize), files.size() + " file(s)", target, chunkSize, parallelism);
+    }
+
+    /**
+     * Parses {@code files} and uploads them as a single run in one request.
+     */
+    static CLIResult upload(List<File> files, SubmissionTarget target, int batchSize) throws InterruptedException {
+        return upload(files, target, batchSize, 0, 0);
+    }
+
+    /**
+     * Uploads the test cases of {@code source}, described as {@code origin} in the output, as a single run.
+     */
+    static CLIResult upload(
+            TestCaseSource source, String origin, SubmissionTarget target, int chunkSize, int parallelism)
+            throws InterruptedException {
+        if (chunkSize > 0) {
+            return new ChunkedUploader(target, chunkSize, parallelism).upload(source, origin);
+        }
+        AtomicLong count = new AtomicLong();
+        SubmissionSummary.Collector summary = new SubmissionSummary.Collector();
+        StreamingPayload payload = new StreamingPayload(json -> {
+            json.beginObject()
+                    .field("name", target.getRunName())
+                    .field("project", target.getProject())
+                    .field("organization", target.getHandle())
+                    .field("source", target.getProvider())
+                    .name("results")
+                    .beginArray();
+            count.set(source.read(batch -> {
+                for (TestCaseRecord record : batch) {
+                    record.writeTo(json);
+                    summary.accept(record);
+                }
+                json.flush();
+            }));
+            json.endArray().endObject();
+        });
+
+        CLIResult result = post(
+                submitUri(target.getBaseUrl(), target.getHandle(), target.getProject()), target.getApiToken(), payload);
+        if (result.isSuccess()) {
+            return new CLIResult(
+                    0,
+                    "Submitted " + count.get() + " test cases from " + origin + ". " + result.getOutput(),
+                    true,
+                    null,
+                    payload.getBytesWritten(),
+                    summary.build().linkedTo(SubmissionSummary.linkIn(result.getOutput())),
+                    runIdIn(result.getOutput()));
+        }
+        return new CLIResult(
+                result.getExitCode(),
+                result.getOutput(),
+                false,
+                result.getErrorMessage(),
+                payload.getBytesWritten(),
+                null);
+    }
+
+    private static final class SubmitCallable extends MasterToSlaveFileCallable<CLIResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final SubmissionTarget target;
+        private final String resultsPath;
+        private final int batchSize;
+        private final int chunkSize;
+        private final int parallelism;
+        private final List<ResultParser> parsers = ResultParser.all();
+
+        SubmitCallable(SubmissionTarget target, String resultsPath, int batchSize, int chunkSize, int parallelism) {
+            this.target = target;
+            this.resultsPath = resultsPath;
+            this.batchSize = batchSize;
+            this.chunkSize = chunkSize;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public CLIResult invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+            List<File> files = ResultFiles.resolve(workspace, resultsPath);
+            if (files.isEmpty()) {
+                return new CLIResult(1, "", false, "No result files found matching: " + resultsPath);
+            }
+            return upload(
+                    TestCaseSource.of(files, batchSize, parsers),
+                    files.size() + " file(s)",
+                    target,
+                    chunkSize,
+                    parallelism);
+        }
+    }
+}
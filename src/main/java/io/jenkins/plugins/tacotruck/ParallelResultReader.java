@@ -0,0 +1,141 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parses several result files concurrently on a fork-join pool sized to the local cores and funnels the batches into
+ * a single {@link TestCaseSink}. The hand-over queue is bounded, so at most a few batches per worker are in memory.
+ * The format of each file is detected with the first {@link ResultParser} that accepts its first bytes.
+ */
+class ParallelResultReader {
+
+    private static final List<TestCaseRecord> END_OF_FILE = new ArrayList<>(0);
+
+    private final int batchSize;
+    private final List<ResultParser> parsers;
+
+    ParallelResultReader(int batchSize) {
+        this(batchSize, ResultParser.all());
+    }
+
+    ParallelResultReader(int batchSize, List<ResultParser> parsers) {
+        this.batchSize = batchSize;
+        this.parsers = parsers;
+    }
+
+    /**
+     * Reads every file and calls {@code sink} from the calling thread only.
+     *
+     * @return the number of test cases read
+     */
+    long read(List<File> files, TestCaseSink sink) throws IOException, InterruptedException {
+        if (files.size() == 1) {
+            return parse(files.get(0), sink);
+        }
+
+        int parallelism = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        BlockingQueue<List<TestCaseRecord>> queue = new ArrayBlockingQueue<>(parallelism * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        AtomicLong count = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (File file : files) {
+                pool.execute(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            count.addAndGet(parse(file, queue::put));
+                        }
+                    } catch (InterruptedException e) {
+                        failure.compareAndSet(null, e);
+                        Thread.currentThread().interrupt();
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        endOfFile(queue, abandoned);
+                    }
+                });
+            }
+
+            int remaining = files.size();
+            while (remaining > 0) {
+                List<TestCaseRecord> batch = queue.take();
+                if (batch == END_OF_FILE) {
+                    remaining--;
+                } else if (failure.get() == null) {
+                    sink.accept(batch);
+                }
+            }
+        } finally {
+            abandoned.set(true);
+            pool.shutdownNow();
+            queue.clear();
+        }
+
+        Throwable e = failure.get();
+        if (e == null) {
+            return count.get();
+        }
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e instanceof InterruptedException) {
+            throw (InterruptedException) e;
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw new IOException(e);
+    }
+
+    /**
+     * Tells the consumer that a file is done, however its parse ended, unless the consumer has given up already.
+     */
+    private static void endOfFile(BlockingQueue<List<TestCaseRecord>> queue, AtomicBoolean abandoned) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (!abandoned.get()) {
+                try {
+                    if (queue.offer(END_OF_FILE, 100, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long parse(File file, TestCaseSink sink) throws IOException, InterruptedException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            ResultParser parser = ResultParser.detect(parsers, in);
+            if (parser == null) {
+                throw new IOException("Unrecognised result format; supported formats are "
+                        + ResultParser.describe(parsers));
+            }
+            return parser.parse(in, file.getName(), batchSize, sink);
+        } catch (IOException e) {
+            throw new IOException("Failed to parse " + file + ": " + e.getMessage(), e);
+        }
+    }
+}
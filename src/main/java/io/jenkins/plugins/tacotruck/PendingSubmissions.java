@@ -0,0 +1,294 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.ContextResettingExecutorService;
+
+/**
+ * Background uploads started by {@link TacotruckSubmitStep}. Those started with {@code wait: false} are addressable by
+ * handle until {@link TacotruckAwaitStep} joins them or the build ends.
+ */
+public class PendingSubmissions {
+
+    private static final Logger LOGGER = Logger.getLogger(PendingSubmissions.class.getName());
+
+    private static final ExecutorService EXECUTOR = new ContextResettingExecutorService(Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "TacoTruck submission")));
+
+    private static final Map<String, Submission> SUBMISSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Directory under the build directory that detached uploads read their results from.
+     */
+    static final String STAGING_DIR = "tacotruck-staged";
+
+    @FunctionalInterface
+    interface Upload {
+        void run() throws Exception;
+    }
+
+    /**
+     * An upload running on the shared background pool. Cancelling it interrupts the thread running it.
+     */
+    static final class Submission {
+        private final String runId;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final List<TacotruckBuilder.BuildUpdate> updates = new CopyOnWriteArrayList<>();
+        private volatile File log;
+        private Future<?> task;
+        private boolean cancelled;
+
+        Submission(@NonNull Run<?, ?> run) {
+            this.runId = run.getExternalizableId();
+        }
+
+        CompletableFuture<Void> getFuture() {
+            return future;
+        }
+
+        /**
+         * Runs {@code upload} on the shared background pool and completes {@link #getFuture()} with its outcome.
+         */
+        synchronized Submission start(Upload upload) {
+            if (task != null) {
+                throw new IllegalStateException("Submission already started");
+            }
+            task = EXECUTOR.submit(() -> complete(upload, future));
+            if (cancelled) {
+                task.cancel(true);
+            }
+            return this;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (task != null) {
+                task.cancel(true);
+            }
+            future.completeExceptionally(new CancellationException("TacoTruck submission was cancelled"));
+        }
+
+        /**
+         * Keeps a change to the build for {@link #join}, as a detached upload must not touch the build itself.
+         */
+        void defer(TacotruckBuilder.BuildUpdate update) {
+            updates.add(update);
+        }
+
+        /**
+         * Sets the file the detached upload writes its log to, for {@link #join} to copy out.
+         */
+        void logTo(File log) {
+            this.log = log;
+        }
+
+        /**
+         * Once the upload is done, copies its log to {@code listener} and applies the changes it deferred to
+         * {@code run}. Completes with the outcome of the upload.
+         */
+        CompletableFuture<Void> join(Run<?, ?> run, TaskListener listener) {
+            return future.handleAsync(
+                    (ignored, failure) -> {
+                        File file = log;
+                        if (file != null) {
+                            try {
+                                Files.copy(file.toPath(), listener.getLogger());
+                            } catch (IOException e) {
+                                listener.getLogger()
+                                        .println("✗ Could not copy the log of the TacoTruck submission from " + file
+                                                + ": " + e.getMessage());
+                            }
+                        }
+                        for (TacotruckBuilder.BuildUpdate update : updates) {
+                            update.applyTo(run);
+                        }
+                        if (failure != null) {
+                            throw failure instanceof CompletionException
+                                    ? (CompletionException) failure
+                                    : new CompletionException(failure);
+                        }
+                        return null;
+                    },
+                    EXECUTOR);
+        }
+    }
+
+    private static void complete(Upload upload, CompletableFuture<Void> future) {
+        try {
+            upload.run();
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * Registers {@code submission} under a new handle, so {@link #claim} can find it.
+     */
+    static String register(Submission submission) {
+        String handle = "tacotruck-" + UUID.randomUUID();
+        SUBMISSIONS.put(handle, submission);
+        return handle;
+    }
+
+    /**
+     * Removes and returns the submission registered under {@code handle} if it belongs to {@code run}.
+     */
+    @CheckForNull
+    static Submission claim(@NonNull Run<?, ?> run, String handle) {
+        Submission submission = SUBMISSIONS.get(handle);
+        if (submission == null || !submission.runId.equals(run.getExternalizableId())) {
+            return null;
+        }
+        return SUBMISSIONS.remove(handle, submission) ? submission : null;
+    }
+
+    static List<Submission> claimAll(@NonNull Run<?, ?> run) {
+        List<Submission> claimed = new ArrayList<>();
+        String runId = run.getExternalizableId();
+        SUBMISSIONS.forEach((handle, submission) -> {
+            if (submission.runId.equals(runId) && SUBMISSIONS.remove(handle, submission)) {
+                claimed.add(submission);
+            }
+        });
+        return claimed;
+    }
+
+    public static int getPendingCount() {
+        return SUBMISSIONS.size();
+    }
+
+    /**
+     * The file under the build directory of {@code run} that the detached upload registered as {@code handle} logs to.
+     */
+    static File logFile(@NonNull Run<?, ?> run, String handle) {
+        return new File(run.getRootDir(), handle + ".log");
+    }
+
+    /**
+     * A new directory under the build directory of {@code run} to {@link #stage} results into.
+     */
+    static FilePath stagingDir(@NonNull Run<?, ?> run) {
+        return new FilePath(new File(new File(run.getRootDir(), STAGING_DIR), UUID.randomUUID().toString()));
+    }
+
+    /**
+     * Copies the files matching {@code resultsPath}, and with {@code attachments} the files they attach, from the
+     * workspace to {@code target} on the controller, keeping their workspace-relative paths, so an upload can go on
+     * after the workspace has been released.
+     *
+     * @return {@code resultsPath} as it resolves against {@code target}
+     */
+    static String stage(FilePath workspace, String resultsPath, boolean attachments, FilePath target)
+            throws IOException, InterruptedException {
+        target.mkdirs();
+        String staged = resultsPath;
+        if (ResultFiles.isPattern(resultsPath) || !new File(resultsPath).isAbsolute()) {
+            workspace.copyRecursiveTo(ResultFiles.toIncludes(resultsPath), target);
+        } else {
+            FilePath file = new FilePath(workspace.getChannel(), resultsPath);
+            staged = file.getName();
+            if (file.exists()) {
+                file.copyTo(target.child(staged));
+            }
+        }
+        if (attachments) {
+            for (String path : workspace.act(new AttachmentPaths(resultsPath))) {
+                FilePath copy = target.child(path);
+                if (!copy.exists()) {
+                    copy.getParent().mkdirs();
+                    workspace.child(path).copyTo(copy);
+                }
+            }
+        }
+        return staged;
+    }
+
+    /**
+     * Lists the attachments of the result files as paths relative to the workspace.
+     */
+    private static final class AttachmentPaths extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String resultsPath;
+
+        AttachmentPaths(String resultsPath) {
+            this.resultsPath = resultsPath;
+        }
+
+        @Override
+        public List<String> invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+            Path root = workspace.toPath().toRealPath();
+            List<String> paths = new ArrayList<>();
+            List<File> reports = ResultFiles.resolve(workspace, resultsPath);
+            for (ResultAttachments.Attachment attachment : ResultAttachments.find(workspace, reports)) {
+                paths.add(root.relativize(attachment.getFile().toPath()).toString().replace('\\', '/'));
+            }
+            return paths;
+        }
+    }
+
+    /**
+     * Hands uploads started with {@code wait: false} that were never joined over to the background when the build
+     * ends. They cannot change its result any more, so they are left to finish without holding up the listener; an
+     * aborted build cancels them.
+     */
+    @Extension
+    public static final class AwaitOnCompletion extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            List<Submission> submissions = claimAll(run);
+            if (submissions.isEmpty()) {
+                return;
+            }
+            if (run.getResult() == Result.ABORTED) {
+                submissions.forEach(Submission::cancel);
+                listener.getLogger().println("Cancelled " + submissions.size() + " pending TacoTruck submission(s)");
+                return;
+            }
+            listener.getLogger()
+                    .println(submissions.size() + " TacoTruck submission(s) were not awaited with tacotruckAwait;"
+                            + " they finish in the background, log to tacotruck-*.log in the build directory and do"
+                            + " not affect the build");
+            String name = run.getFullDisplayName();
+            for (Submission submission : submissions) {
+                submission.future.whenComplete((ignored, failure) -> {
+                    if (failure != null) {
+                        LOGGER.log(Level.WARNING, "Background TacoTruck submission of " + name + " failed", failure);
+                    } else {
+                        LOGGER.fine(() -> "Background TacoTruck submission of " + name + " finished");
+                    }
+                });
+            }
+        }
+    }
+}
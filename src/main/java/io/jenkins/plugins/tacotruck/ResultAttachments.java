@@ -0,0 +1,201 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Finds the files that test reports attach to their test cases, in the conventions Jenkins already understands:
+ * {@code [[ATTACHMENT|path]]} lines in the {@code system-out} or {@code system-err} of a JUnit test case, a JUnit
+ * {@code <property name="attachment" value="path"/>}, and NUnit 3 {@code <attachment><filePath>} elements.
+ *
+ * <p>Reports are streamed; only the attachment paths are kept. Relative paths are resolved against the directory of
+ * the report and then the workspace, and files outside the workspace are ignored.
+ */
+final class ResultAttachments {
+
+    private static final Logger LOGGER = Logger.getLogger(ResultAttachments.class.getName());
+
+    private static final Pattern MARKER = Pattern.compile("\\[\\[ATTACHMENT\\|(.+?)]]");
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private ResultAttachments() {}
+
+    /**
+     * A file attached to a test case.
+     */
+    static final class Attachment {
+        private final String test;
+        private final File file;
+
+        Attachment(String test, File file) {
+            this.test = test;
+            this.file = file;
+        }
+
+        /**
+         * {@code className.name} of the test case, as in {@link SubmissionSummary#getFailingTests()}.
+         */
+        String getTest() {
+            return test;
+        }
+
+        File getFile() {
+            return file;
+        }
+    }
+
+    /**
+     * The attachments of every test case in {@code reports}, each file once.
+     */
+    static List<Attachment> find(File workspace, List<File> reports) throws IOException {
+        Path root = workspace.toPath().toRealPath();
+        Map<Path, Attachment> found = new LinkedHashMap<>();
+        for (File report : reports) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(report.toPath()))) {
+                scan(in, (test, path) -> {
+                    Path file = resolve(root, report.toPath().getParent(), path);
+                    if (file == null) {
+                        LOGGER.fine(() -> "Ignoring attachment " + path + " of " + test + " in " + report);
+                    } else {
+                        found.putIfAbsent(file, new Attachment(test, file.toFile()));
+                    }
+                });
+            } catch (XMLStreamException e) {
+                LOGGER.log(Level.FINE, "Not looking for attachments in " + report, e);
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Resolves {@code path} to a regular file inside {@code root}, or {@code null}.
+     */
+    @CheckForNull
+    private static Path resolve(Path root, @CheckForNull Path reportDir, String path) {
+        List<Path> candidates = new ArrayList<>(2);
+        try {
+            Path given = Path.of(path.trim());
+            if (given.isAbsolute()) {
+                candidates.add(given);
+            } else {
+                if (reportDir != null) {
+                    candidates.add(reportDir.resolve(given));
+                }
+                candidates.add(root.resolve(given));
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        for (Path candidate : candidates) {
+            try {
+                Path real = candidate.toRealPath();
+                if (real.startsWith(root) && Files.isRegularFile(real)) {
+                    return real;
+                }
+            } catch (IOException e) {
+                // try the next candidate
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    interface Sink {
+        void accept(String test, String path);
+    }
+
+    /**
+     * Reports the attachment paths of a JUnit or NUnit report; other documents have none.
+     */
+    static void scan(InputStream in, Sink sink) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            String test = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if ("testcase".equals(element) || "test-case".equals(element)) {
+                        String className = reader.getAttributeValue(null, "classname");
+                        String name = reader.getAttributeValue(null, "name");
+                        test = className != null ? className + "." + name : name;
+                    } else if (test == null) {
+                        continue;
+                    } else if ("system-out".equals(element) || "system-err".equals(element)) {
+                        Matcher marker = MARKER.matcher(reader.getElementText());
+                        while (marker.find()) {
+                            sink.accept(test, marker.group(1));
+                        }
+                    } else if ("property".equals(element)
+                            && "attachment".equals(reader.getAttributeValue(null, "name"))) {
+                        String value = reader.getAttributeValue(null, "value");
+                        if (value != null && !value.isBlank()) {
+                            sink.accept(test, value);
+                        }
+                    } else if ("filePath".equals(element)) {
+                        String path = reader.getElementText();
+                        if (!path.isBlank()) {
+                            sink.accept(test, path);
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if ("testcase".equals(element) || "test-case".equals(element)) {
+                        test = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Content type for the upload metadata, guessed from the file name.
+     */
+    static String contentType(File file) {
+        String type = URLConnection.guessContentTypeFromName(file.getName());
+        if (type != null) {
+            return type;
+        }
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".webm")) {
+            return "video/webm";
+        }
+        if (name.endsWith(".mp4")) {
+            return "video/mp4";
+        }
+        if (name.endsWith(".log")) {
+            return "text/plain";
+        }
+        return "application/octet-stream";
+    }
+}
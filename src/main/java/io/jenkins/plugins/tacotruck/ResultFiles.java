@@ -0,0 +1,164 @@
+package io.jenkins.plugins.tacotruck;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Resolves {@code resultsPath}, which may be a single file or an Ant-style pattern such as
+ * {@code target/surefire-reports/TEST-*.xml}, relative to the workspace.
+ */
+public class ResultFiles {
+
+    static boolean isPattern(String resultsPath) {
+        return resultsPath.indexOf('*') >= 0 || resultsPath.indexOf('?') >= 0 || resultsPath.indexOf(',') >= 0;
+    }
+
+    /**
+     * Turns {@code resultsPath} into an include pattern for {@link FilePath#copyRecursiveTo(String, FilePath)}.
+     */
+    static String toIncludes(String resultsPath) {
+        String includes = resultsPath.trim().replace('\\', '/');
+        while (includes.startsWith("./")) {
+            includes = includes.substring(2);
+        }
+        return includes;
+    }
+
+    /**
+     * Lists the files matching {@code resultsPath} on the machine the workspace lives on, in a stable order.
+     */
+    static List<File> resolve(File workspace, String resultsPath) throws IOException, InterruptedException {
+        if (!isPattern(resultsPath)) {
+            File file = NativeSubmitter.resolve(workspace, resultsPath);
+            return file.isFile() ? List.of(file) : List.of();
+        }
+
+        List<File> files = new ArrayList<>();
+        for (FilePath match : new FilePath(workspace).list(resultsPath)) {
+            files.add(new File(match.getRemote()));
+        }
+        files.sort(Comparator.comparing(File::getPath));
+        return files;
+    }
+
+    /**
+     * Concatenates the {@code <testsuite>} elements of several JUnit reports under a single {@code <testsuites>}
+     * root, so the CLI engine can submit them as one run. Events are copied one at a time, so the inputs are never
+     * held in memory.
+     */
+    static final class Merge extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> sources;
+
+        Merge(List<String> sources) {
+            this.sources = new ArrayList<>(sources);
+        }
+
+        @Override
+        public Integer invoke(File target, VirtualChannel channel) throws IOException, InterruptedException {
+            XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            XMLEventFactory events = XMLEventFactory.newFactory();
+
+            try (OutputStream out = Files.newOutputStream(target.toPath())) {
+                XMLEventWriter writer = XMLOutputFactory.newFactory().createXMLEventWriter(out, "UTF-8");
+                writer.add(events.createStartDocument("UTF-8", "1.0"));
+                writer.add(events.createStartElement("", "", "testsuites"));
+                for (String source : sources) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    try (InputStream in = Files.newInputStream(new File(source).toPath())) {
+                        copySuites(inputFactory.createXMLEventReader(in), writer);
+                    } catch (XMLStreamException e) {
+                        throw new IOException("Malformed JUnit XML in " + source + ": " + e.getMessage(), e);
+                    }
+                }
+                writer.add(events.createEndElement("", "", "testsuites"));
+                writer.add(events.createEndDocument());
+                writer.close();
+            } catch (XMLStreamException e) {
+                throw new IOException("Failed to write merged results to " + target + ": " + e.getMessage(), e);
+            }
+            return sources.size();
+        }
+
+        private static void copySuites(XMLEventReader reader, XMLEventWriter writer) throws XMLStreamException {
+            int depth = 0;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (depth == 0) {
+                    if (event.isStartElement() && isSuite(event)) {
+                        depth = 1;
+                        writer.add(event);
+                    }
+                    continue;
+                }
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+                writer.add(event);
+            }
+            reader.close();
+        }
+
+        private static boolean isSuite(XMLEvent event) {
+            return "testsuite".equals(event.asStartElement().getName().getLocalPart());
+        }
+    }
+
+    /**
+     * Lists the files matching {@code resultsPath} with their sizes, in the order of {@link #resolve}, in a single
+     * call to the agent.
+     */
+    static final class Find extends MasterToSlaveFileCallable<LinkedHashMap<String, Long>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String resultsPath;
+
+        Find(String resultsPath) {
+            this.resultsPath = resultsPath;
+        }
+
+        @Override
+        public LinkedHashMap<String, Long> invoke(File workspace, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            LinkedHashMap<String, Long> files = new LinkedHashMap<>();
+            for (File file : resolve(workspace, resultsPath)) {
+                files.put(file.getPath(), file.length());
+            }
+            return files;
+        }
+    }
+
+    static String describe(Collection<String> paths) {
+        return paths.stream()
+                        .map(path -> new File(path).getName())
+                        .limit(5)
+                        .reduce((a, b) -> a + ", " + b)
+                        .orElse("")
+                + (paths.size() > 5 ? ", ..." : "");
+    }
+}
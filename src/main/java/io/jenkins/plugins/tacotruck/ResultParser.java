@@ -0,0 +1,159 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+
+/**
+ * Reads one test report format. The format of every file under {@code resultsPath} is detected by offering the first
+ * bytes of the file to each registered parser in turn, so reports of different formats can be submitted together.
+ *
+ * <p>Parsers are looked up on the controller and sent to the agent with the submission, so implementations must be
+ * serializable and should hold no state. {@link #parse} must stream its input and hand test cases over in batches,
+ * for which {@link Batcher} may be used.
+ */
+public abstract class ResultParser implements ExtensionPoint, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Bytes of each file offered to {@link #accepts}.
+     */
+    static final int SNIFF_BYTES = 4096;
+
+    /**
+     * Longest head offered to {@link #accepts} when no parser accepts a shorter one.
+     */
+    static final int MAX_SNIFF_BYTES = 1024 * 1024;
+
+    /**
+     * Name of the format for log and error messages, such as {@code JUnit XML}.
+     */
+    public abstract String getFormat();
+
+    /**
+     * Whether this parser reads files starting with {@code head}: up to the first {@value #SNIFF_BYTES} bytes decoded
+     * as UTF-8, without byte order mark. The last character may be cut off. When no parser accepts a file, its head
+     * is offered again at twice the length, up to {@value #MAX_SNIFF_BYTES} bytes, so that a format can also be
+     * recognised after a long preamble such as a licence comment.
+     */
+    public abstract boolean accepts(String head);
+
+    /**
+     * Streams the test cases of {@code in} to {@code sink}.
+     *
+     * @param fileName name of the file being read, for formats that do not name their suites
+     * @return the number of test cases read
+     */
+    public abstract long parse(InputStream in, String fileName, int batchSize, TestCaseSink sink)
+            throws IOException, InterruptedException;
+
+    /**
+     * The registered parsers in order of precedence. Outside a controller, such as in unit tests, the built-in
+     * parsers.
+     */
+    static List<ResultParser> all() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return List.of(
+                    new JUnitResultParser(),
+                    new TestNGResultParser(),
+                    new XUnitResultParser(),
+                    new NUnitResultParser(),
+                    new CucumberJsonResultParser(),
+                    new TapResultParser());
+        }
+        return new ArrayList<>(ExtensionList.lookup(ResultParser.class));
+    }
+
+    /**
+     * Finds the first of {@code parsers} that accepts {@code in}, which must support {@link InputStream#mark} and is
+     * left at its start.
+     */
+    @CheckForNull
+    static ResultParser detect(List<ResultParser> parsers, InputStream in) throws IOException {
+        in.mark(MAX_SNIFF_BYTES);
+        for (int size = SNIFF_BYTES; ; size *= 2) {
+            byte[] bytes = in.readNBytes(size);
+            in.reset();
+            String head = new String(bytes, StandardCharsets.UTF_8);
+            if (!head.isEmpty() && head.charAt(0) == '\uFEFF') {
+                head = head.substring(1);
+            }
+            for (ResultParser parser : parsers) {
+                if (parser.accepts(head)) {
+                    return parser;
+                }
+            }
+            if (bytes.length < size || size >= MAX_SNIFF_BYTES) {
+                return null;
+            }
+        }
+    }
+
+    static String describe(List<ResultParser> parsers) {
+        return parsers.stream().map(ResultParser::getFormat).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Converts a duration in seconds, as most report formats record it, to milliseconds; 0 if it is missing or
+     * malformed.
+     */
+    protected static long secondsToMillis(@CheckForNull String seconds) {
+        if (seconds == null || seconds.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.round(Double.parseDouble(seconds.replace(",", "").trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Collects test cases into batches of a fixed size and hands each full batch to a sink.
+     */
+    public static final class Batcher {
+        private final int size;
+        private final TestCaseSink sink;
+        private List<TestCaseRecord> batch;
+        private long count;
+
+        public Batcher(int batchSize, TestCaseSink sink) {
+            this.size = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+            this.sink = sink;
+            this.batch = new ArrayList<>(size);
+        }
+
+        public void add(TestCaseRecord record) throws IOException, InterruptedException {
+            batch.add(record);
+            count++;
+            if (batch.size() >= size) {
+                sink.accept(batch);
+                batch = new ArrayList<>(size);
+            }
+        }
+
+        /**
+         * Hands over the last, partial batch.
+         *
+         * @return the number of test cases added
+         */
+        public long finish() throws IOException, InterruptedException {
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+                batch = new ArrayList<>(size);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed test cases kept in a compact binary temporary file, so that results going to several destinations are
+ * parsed once and then read back concurrently, without XML parsing and without holding them in memory.
+ */
+final class ResultSpool implements Closeable {
+
+    private static final TestCaseRecord.Status[] STATUSES = TestCaseRecord.Status.values();
+
+    private final Path file;
+    private final long count;
+
+    private ResultSpool(Path file, long count) {
+        this.file = file;
+        this.count = count;
+    }
+
+    /**
+     * Reads {@code source} to the end and spools every test case.
+     */
+    static ResultSpool write(TestCaseSource source) throws IOException, InterruptedException {
+        Path file = Files.createTempFile("tacotruck-spool", ".bin");
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            return new ResultSpool(file, write(source, stream));
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads {@code source} to the end and writes every test case to {@code stream}, which may be remote, for
+     * {@link #open} to read back. Does not close {@code stream}.
+     *
+     * @return the number of test cases written
+     */
+    static long write(TestCaseSource source, OutputStream stream) throws IOException, InterruptedException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        long count = source.read(batch -> {
+            for (TestCaseRecord record : batch) {
+                write(out, record);
+            }
+        });
+        out.flush();
+        return count;
+    }
+
+    /**
+     * Takes over {@code file}, holding {@code count} test cases written by {@link #write(TestCaseSource,
+     * OutputStream)}; closing the spool deletes it.
+     */
+    static ResultSpool open(Path file, long count) {
+        return new ResultSpool(file, count);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * A source reading the spooled test cases back; each call of {@link TestCaseSource#read} opens the file anew, so
+     * several readers may run at the same time.
+     */
+    TestCaseSource reader(int batchSize) {
+        return sink -> {
+            try (InputStream stream = Files.newInputStream(file);
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+                List<TestCaseRecord> batch = new ArrayList<>(batchSize);
+                for (long i = 0; i < count; i++) {
+                    batch.add(read(in));
+                    if (batch.size() >= batchSize) {
+                        sink.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    sink.accept(batch);
+                }
+            }
+            return count;
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static void write(DataOutput out, TestCaseRecord record) throws IOException {
+        writeString(out, record.getSuite());
+        writeString(out, record.getClassName());
+        writeString(out, record.getName());
+        out.writeLong(record.getDurationMillis());
+        out.writeByte(record.getStatus().ordinal());
+        writeString(out, record.getMessage());
+    }
+
+    private static TestCaseRecord read(DataInput in) throws IOException {
+        String suite = readString(in);
+        String className = readString(in);
+        String name = readString(in);
+        long durationMillis = in.readLong();
+        TestCaseRecord.Status status = STATUSES[in.readByte()];
+        String message = readString(in);
+        return new TestCaseRecord(suite, className, name, durationMillis, status, message);
+    }
+
+    /**
+     * Length-prefixed UTF-8, as {@link DataOutput#writeUTF} is limited to 64 KB and messages may hold stack traces.
+     */
+    private static void writeString(DataOutput out, @CheckForNull String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @CheckForNull
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
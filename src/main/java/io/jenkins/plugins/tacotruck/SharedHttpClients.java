@@ -0,0 +1,29 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * One {@link HttpClient} per TacoTruck host and JVM, so submissions from concurrent builds reuse keep-alive
+ * connections and multiplex over HTTP/2 where the server supports it. Lives on whichever JVM does the upload: the
+ * controller for combined submissions and outbox retries, the agent for the native engine.
+ */
+final class SharedHttpClients {
+
+    private static final ConcurrentMap<String, HttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private SharedHttpClients() {}
+
+    static HttpClient forUri(URI uri) {
+        String key = uri.getScheme().toLowerCase(Locale.ROOT) + "://" + uri.getRawAuthority();
+        return CLIENTS.computeIfAbsent(key, k -> HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                // streamed request bodies can be sent only once, see StreamingPayload
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(NativeSubmitter.CONNECT_TIMEOUT)
+                .build());
+    }
+}
@@ -0,0 +1,172 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A JSON request body that is produced on a background thread while the HTTP client is sending it, so the payload
+ * never has to be held in memory as a whole.
+ *
+ * <p>If the producer fails, reading the end of the body throws instead of returning end of stream, so the HTTP client
+ * aborts the request rather than completing it with a truncated body. The body can be read only once, which is why
+ * {@link SharedHttpClients} never follows redirects.
+ */
+class StreamingPayload {
+
+    private static final Logger LOGGER = Logger.getLogger(StreamingPayload.class.getName());
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    @FunctionalInterface
+    interface Producer {
+        void writeTo(JsonWriter json) throws IOException, InterruptedException;
+    }
+
+    private final Producer producer;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile PipedInputStream in;
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    StreamingPayload(Producer producer) {
+        this.producer = producer;
+    }
+
+    /**
+     * Supplier for {@link java.net.http.HttpRequest.BodyPublishers#ofInputStream}. The HTTP client asks for the body
+     * again only to follow a redirect or to answer an authentication challenge, neither of which the shared clients
+     * do.
+     */
+    synchronized InputStream open() {
+        if (in != null) {
+            throw new IllegalStateException("Streaming payload can only be sent once");
+        }
+        try {
+            PipedInputStream pipe = new PipedInputStream(PIPE_SIZE);
+            PipedOutputStream out = new PipedOutputStream(pipe);
+            in = pipe;
+            Thread writer = new Thread(
+                    () -> {
+                        try (JsonWriter json = new JsonWriter(new BufferedWriter(
+                                new OutputStreamWriter(new CountingOutputStream(out), StandardCharsets.UTF_8)))) {
+                            producer.writeTo(json);
+                            json.flush();
+                            done.complete(null);
+                        } catch (Throwable t) {
+                            done.completeExceptionally(t);
+                        }
+                    },
+                    "TacoTruck payload writer");
+            writer.setDaemon(true);
+            writer.start();
+            return new ProducerCheckingInputStream(pipe);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Number of bytes of the body handed to the HTTP client so far.
+     */
+    long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /**
+     * Turns the end of the pipe into the producer's failure, if it failed.
+     */
+    private final class ProducerCheckingInputStream extends FilterInputStream {
+        ProducerCheckingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            return b < 0 ? checkProducer() : b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            return read < 0 ? checkProducer() : read;
+        }
+
+        /**
+         * The pipe is closed just before the producer's outcome is recorded, so wait for it.
+         */
+        private int checkProducer() throws IOException {
+            try {
+                done.get();
+                return -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while finishing the request body", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to produce the request body: " + e.getCause(), e.getCause());
+            }
+        }
+    }
+
+    private final class CountingOutputStream extends FilterOutputStream {
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytesWritten.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytesWritten.addAndGet(len);
+        }
+    }
+
+    /**
+     * Releases the producer once the response has arrived and reports whether it failed. A producer that was
+     * cut off because the server answered early is not treated as a failure.
+     */
+    void finish(boolean responseReceived) throws IOException, InterruptedException {
+        PipedInputStream pipe;
+        synchronized (this) {
+            pipe = in;
+        }
+        if (pipe == null) {
+            return;
+        }
+        pipe.close();
+        try {
+            done.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (responseReceived && cause instanceof IOException && "Pipe closed".equals(cause.getMessage())) {
+                LOGGER.log(Level.FINE, "Payload writer stopped after the server responded", cause);
+                return;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
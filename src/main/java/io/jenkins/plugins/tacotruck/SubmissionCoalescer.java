@@ -0,0 +1,401 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+/**
+ * Collects submissions for the same TacoTruck run, with the same credentials, from parallel branches of one build and
+ * uploads them together.
+ *
+ * <p>Each participant parses its result files on its agent and streams the test cases, in the {@link ResultSpool}
+ * format, into a file under the build directory on the controller, then joins the open batch for its key. A batch is
+ * flushed when its window elapses or it reaches {@link #MAX_BATCH_SIZE} participants; at most
+ * {@link #MAX_CONCURRENT_FLUSHES} batches are uploaded at once across the controller, the rest queue up behind them.
+ * The combined upload is always sent by the native engine, so coalescing requires {@code engine: 'NATIVE'}. The
+ * rate limit and concurrency cap of a {@link TacotruckEndpoint} apply to the combined upload, not to the participants
+ * waiting for it, and it is sent in chunks as configured by the participant that opened the batch.
+ */
+public class SubmissionCoalescer {
+
+    private static final Logger LOGGER = Logger.getLogger(SubmissionCoalescer.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long WINDOW_MILLIS = SystemProperties.getLong(SubmissionCoalescer.class.getName() + ".windowMillis", 5000L);
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int MAX_BATCH_SIZE = SystemProperties.getInteger(SubmissionCoalescer.class.getName() + ".maxBatchSize", 64);
+
+    static final int MAX_CONCURRENT_FLUSHES =
+            SystemProperties.getInteger(SubmissionCoalescer.class.getName() + ".maxConcurrentFlushes", 4);
+
+    static final String SPOOL_DIR = "tacotruck-coalesce";
+
+    private static final Semaphore FLUSH_PERMITS = new Semaphore(MAX_CONCURRENT_FLUSHES, true);
+
+    private static final ExecutorService FLUSH_POOL = new ContextResettingExecutorService(Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "TacoTruck coalesced submission")));
+
+    private static final Map<Key, Batch> OPEN = new HashMap<>();
+
+    /**
+     * Parses the results matching {@code resultsPath} on the agent into a spool on the controller, joins the batch
+     * for this run and waits for it to be uploaded.
+     *
+     * @return the outcome of the combined upload, with the summary of this participant's results only and the link
+     *     to the combined run
+     */
+    static CLIResult submit(
+            Run<?, ?> run,
+            FilePath workspace,
+            String resultsPath,
+            SubmissionTarget target,
+            @CheckForNull String credentialsId,
+            @CheckForNull TacotruckEndpoint endpoint,
+            int batchSize,
+            int chunkSize,
+            int parallelism,
+            TaskListener listener)
+            throws IOException, InterruptedException {
+        File spool = createSpool(run.getRootDir());
+        Spooled spooled;
+        try (OutputStream out = Files.newOutputStream(spool.toPath())) {
+            spooled = workspace.act(new Spool(resultsPath, batchSize, new RemoteOutputStream(out)));
+            if (workspace.getChannel() instanceof Channel) {
+                // let the streamed bytes arrive before the spool is read
+                ((Channel) workspace.getChannel()).syncLocalIO();
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            deleteSpools(List.of(spool));
+            throw e;
+        }
+        if (spooled.files == 0) {
+            deleteSpools(List.of(spool));
+            String errorMsg = "No result files found matching: " + resultsPath;
+            listener.getLogger().println("✗ " + errorMsg);
+            return new CLIResult(1, "", false, errorMsg);
+        }
+
+        listener.getLogger()
+                .println("Queued " + spooled.count + " test case(s) from " + spooled.files
+                        + " result file(s) for a combined TacoTruck submission...");
+        CompletableFuture<CLIResult> future = join(
+                new Key(run.getExternalizableId(), credentialsId, target),
+                spool,
+                spooled.count,
+                target,
+                endpoint,
+                batchSize,
+                chunkSize,
+                parallelism);
+        try {
+            CLIResult result = future.get();
+            if (result.getErrorMessage() != null) {
+                listener.getLogger().println("✗ " + result.getErrorMessage());
+            }
+            listener.getLogger().println(result.getOutput());
+            SubmissionSummary combined = result.getSummary();
+            return new CLIResult(
+                    result.getExitCode(),
+                    result.getOutput(),
+                    result.isSuccess(),
+                    result.getErrorMessage(),
+                    result.getBytesSent(),
+                    spooled.summary.linkedTo(combined != null ? combined.getLink() : null),
+                    result.getRunId());
+        } catch (ExecutionException e) {
+            throw new IOException("Combined TacoTruck submission failed", e.getCause());
+        }
+    }
+
+    /**
+     * A new, empty spool file in the coalescing directory under {@code buildDir}.
+     */
+    static File createSpool(File buildDir) throws IOException {
+        Path dir = new File(buildDir, SPOOL_DIR).toPath();
+        synchronized (OPEN) {
+            Files.createDirectories(dir);
+            return Files.createTempFile(dir, "spool", ".bin").toFile();
+        }
+    }
+
+    /**
+     * Deletes {@code spools}, and their directory once it is empty.
+     */
+    private static void deleteSpools(List<File> spools) {
+        synchronized (OPEN) {
+            for (File spool : spools) {
+                try {
+                    Files.deleteIfExists(spool.toPath());
+                    File dir = spool.getParentFile();
+                    String[] left = dir.list();
+                    if (left != null && left.length == 0) {
+                        Files.deleteIfExists(dir.toPath());
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to delete " + spool, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds {@code spool}, holding {@code count} test cases, to the open batch for {@code key} and returns the outcome
+     * of that batch's upload.
+     */
+    static CompletableFuture<CLIResult> join(Key key, File spool, long count, SubmissionTarget target, int batchSize) {
+        return join(key, spool, count, target, null, batchSize, 0, 0);
+    }
+
+    /**
+     * As {@link #join(Key, File, long, SubmissionTarget, int)}, uploading the batch within the limits of
+     * {@code endpoint}, if any, and in chunks of {@code chunkSize} test cases, as set by the participant that opened
+     * it.
+     */
+    static CompletableFuture<CLIResult> join(
+            Key key,
+            File spool,
+            long count,
+            SubmissionTarget target,
+            @CheckForNull TacotruckEndpoint endpoint,
+            int batchSize,
+            int chunkSize,
+            int parallelism) {
+        synchronized (OPEN) {
+            Batch existing = OPEN.get(key);
+            Batch batch = existing != null
+                    ? existing
+                    : new Batch(key, target, endpoint, batchSize, chunkSize, parallelism);
+            if (existing == null) {
+                batch.timer = Timer.get().schedule(() -> close(batch), WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+                OPEN.put(key, batch);
+            }
+            batch.spools.add(spool);
+            batch.counts.add(count);
+            if (batch.spools.size() >= MAX_BATCH_SIZE) {
+                OPEN.remove(key);
+                batch.timer.cancel(false);
+                FLUSH_POOL.submit(() -> flush(batch));
+            }
+            return batch.future;
+        }
+    }
+
+    private static void close(Batch batch) {
+        synchronized (OPEN) {
+            if (!OPEN.remove(batch.key, batch)) {
+                return;
+            }
+        }
+        FLUSH_POOL.submit(() -> flush(batch));
+    }
+
+    private static void flush(Batch batch) {
+        CLIResult combined = null;
+        Throwable failure = null;
+        try {
+            FLUSH_PERMITS.acquire();
+            try (TacotruckEndpoint.Throttle.Permit ignored =
+                    batch.endpoint != null ? batch.endpoint.acquire(TaskListener.NULL) : null) {
+                List<ResultSpool> spools = new ArrayList<>();
+                for (int i = 0; i < batch.spools.size(); i++) {
+                    spools.add(ResultSpool.open(batch.spools.get(i).toPath(), batch.counts.get(i)));
+                }
+                TestCaseSource source = sink -> {
+                    long total = 0;
+                    for (ResultSpool spool : spools) {
+                        total += spool.reader(batch.batchSize).read(sink);
+                    }
+                    return total;
+                };
+                CLIResult result = NativeSubmitter.upload(
+                        source,
+                        batch.spools.size() + " submission(s)",
+                        batch.target,
+                        batch.chunkSize,
+                        batch.parallelism);
+                combined = new CLIResult(
+                        result.getExitCode(),
+                        "Combined " + batch.spools.size() + " submission(s). " + result.getOutput(),
+                        result.isSuccess(),
+                        result.getErrorMessage(),
+                        result.getBytesSent(),
+                        result.getSummary(),
+                        result.getRunId());
+            } finally {
+                FLUSH_PERMITS.release();
+            }
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            // before completing, so that a participant never finds the spools of a finished batch
+            deleteSpools(batch.spools);
+        }
+        if (failure != null) {
+            batch.future.completeExceptionally(failure);
+        } else {
+            batch.future.complete(combined);
+        }
+    }
+
+    public static int getQueuedBatchCount() {
+        synchronized (OPEN) {
+            return OPEN.size();
+        }
+    }
+
+    public static int getFlushesWaiting() {
+        return FLUSH_PERMITS.getQueueLength();
+    }
+
+    static final class Key {
+        private final String apiUrl;
+        private final String handle;
+        private final String project;
+        private final String runName;
+        private final String build;
+        private final String credentialsId;
+
+        Key(String build, @CheckForNull String credentialsId, SubmissionTarget target) {
+            this.apiUrl = target.getBaseUrl();
+            this.handle = target.getHandle();
+            this.project = target.getProject();
+            this.runName = target.getRunName();
+            this.build = build;
+            this.credentialsId = credentialsId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(apiUrl, other.apiUrl)
+                    && Objects.equals(handle, other.handle)
+                    && Objects.equals(project, other.project)
+                    && Objects.equals(runName, other.runName)
+                    && Objects.equals(build, other.build)
+                    && Objects.equals(credentialsId, other.credentialsId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(apiUrl, handle, project, runName, build, credentialsId);
+        }
+    }
+
+    /**
+     * What a participant spooled: its result files, test cases, and their summary.
+     */
+    private static final class Spooled implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int files;
+        private final long count;
+        private final SubmissionSummary summary;
+
+        Spooled(int files, long count, SubmissionSummary summary) {
+            this.files = files;
+            this.count = count;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * Parses the result files on the agent and streams their test cases to the controller.
+     */
+    private static final class Spool extends MasterToSlaveFileCallable<Spooled> {
+        private static final long serialVersionUID = 1L;
+
+        private final String resultsPath;
+        private final int batchSize;
+        private final RemoteOutputStream out;
+        private final List<ResultParser> parsers = ResultParser.all();
+
+        Spool(String resultsPath, int batchSize, RemoteOutputStream out) {
+            this.resultsPath = resultsPath;
+            this.batchSize = batchSize;
+            this.out = out;
+        }
+
+        @Override
+        public Spooled invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+            List<File> files = ResultFiles.resolve(workspace, resultsPath);
+            SubmissionSummary.Collector summary = new SubmissionSummary.Collector();
+            long count;
+            try (OutputStream stream = out) {
+                TestCaseSource source = TestCaseSource.of(files, batchSize, parsers);
+                count = ResultSpool.write(
+                        sink -> source.read(batch -> {
+                            batch.forEach(summary::accept);
+                            sink.accept(batch);
+                        }),
+                        stream);
+            }
+            return new Spooled(files.size(), count, summary.build());
+        }
+    }
+
+    private static final class Batch {
+        private final Key key;
+        private final SubmissionTarget target;
+        private final TacotruckEndpoint endpoint;
+        private final int batchSize;
+        private final int chunkSize;
+        private final int parallelism;
+        private final List<File> spools = new ArrayList<>();
+        private final List<Long> counts = new ArrayList<>();
+        private final CompletableFuture<CLIResult> future = new CompletableFuture<>();
+        private ScheduledFuture<?> timer;
+
+        Batch(
+                Key key,
+                SubmissionTarget target,
+                @CheckForNull TacotruckEndpoint endpoint,
+                int batchSize,
+                int chunkSize,
+                int parallelism) {
+            this.key = key;
+            this.target = target;
+            this.endpoint = endpoint;
+            this.batchSize = batchSize;
+            this.chunkSize = chunkSize;
+            this.parallelism = parallelism;
+        }
+    }
+}
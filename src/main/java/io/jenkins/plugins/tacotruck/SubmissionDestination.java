@@ -0,0 +1,111 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.Item;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import java.io.Serializable;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * A further TacoTruck project or instance that a {@link TacotruckBuilder} submits the same results to, under the
+ * same run name and provider.
+ */
+public class SubmissionDestination extends AbstractDescribableImpl<SubmissionDestination> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String apiUrl;
+    private final String handle;
+    private final String project;
+    private final String credentialsId;
+
+    @DataBoundConstructor
+    public SubmissionDestination(String apiUrl, String handle, String project, String credentialsId) {
+        this.apiUrl = Util.fixEmptyAndTrim(apiUrl);
+        this.handle = Util.fixEmptyAndTrim(handle);
+        this.project = Util.fixEmptyAndTrim(project);
+        this.credentialsId = Util.fixEmptyAndTrim(credentialsId);
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    @Override
+    public String toString() {
+        return apiUrl + " " + handle + "/" + project;
+    }
+
+    @Symbol("destination")
+    @Extension
+    public static final class DescriptorImpl extends Descriptor<SubmissionDestination> {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "TacoTruck destination";
+        }
+
+        @POST
+        public FormValidation doCheckApiUrl(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            if (value == null || value.isBlank()) {
+                return FormValidation.error("API URL is required");
+            }
+            if (!value.startsWith("http://") && !value.startsWith("https://")) {
+                return FormValidation.error("API URL must start with http:// or https://");
+            }
+            return FormValidation.ok();
+        }
+
+        @POST
+        public FormValidation doCheckHandle(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            if (value == null || value.isBlank()) {
+                return FormValidation.error("Organization handle is required");
+            }
+            return FormValidation.ok();
+        }
+
+        @POST
+        public FormValidation doCheckProject(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            if (value == null || value.isBlank()) {
+                return FormValidation.error("Project is required");
+            }
+            return FormValidation.ok();
+        }
+
+        @POST
+        public ListBoxModel doFillCredentialsIdItems(
+                @AncestorInPath final Item item, @QueryParameter final String credentialsId) {
+            return CredentialsHelper.doFillCredentialsIdItems(item, credentialsId);
+        }
+    }
+}
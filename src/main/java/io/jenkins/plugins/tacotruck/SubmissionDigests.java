@@ -0,0 +1,204 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.console.HyperlinkNote;
+import hudson.console.ModelHyperlinkNote;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+
+/**
+ * Remembers, per job, the SHA-256 of result sets that were already submitted so byte-identical resubmissions from
+ * rebuilds, replays or retried stages can be skipped. The index lives in {@code tacotruck-digests.xml} in the job
+ * directory and keeps the most recent {@link #MAX_ENTRIES} digests.
+ */
+public class SubmissionDigests {
+
+    private static final Logger LOGGER = Logger.getLogger(SubmissionDigests.class.getName());
+
+    static final int MAX_ENTRIES = 50;
+
+    private static final String INDEX_FILE = "tacotruck-digests.xml";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern LINK = Pattern.compile("https?://\\S+");
+
+    /**
+     * A previous submission of the same content to the same destination.
+     */
+    public static final class Submitted {
+        private final int build;
+        private final String runName;
+        private final String reference;
+        private final long timestamp;
+
+        Submitted(int build, String runName, String reference, long timestamp) {
+            this.build = build;
+            this.runName = runName;
+            this.reference = reference;
+            this.timestamp = timestamp;
+        }
+
+        public int getBuild() {
+            return build;
+        }
+
+        public String getRunName() {
+            return runName;
+        }
+
+        @CheckForNull
+        public String getReference() {
+            return reference;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    /**
+     * Persisted form of the index; insertion order is submission order.
+     */
+    static final class Index {
+        private final LinkedHashMap<String, Submitted> entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Key for a digest scoped to the destination and the run name, so the same results sent to another project, or
+     * as another run, are not skipped.
+     */
+    static String key(String digest, String apiUrl, String handle, String project, String runName) {
+        return digest + "@" + apiUrl + "/" + handle + "/" + project + "/" + runName;
+    }
+
+    /**
+     * Describes {@code previous} for the build log, with console links to the build and, if it is a URL, to the
+     * TacoTruck reference.
+     */
+    static String link(Job<?, ?> job, Submitted previous) {
+        Run<?, ?> build = job.getBuildByNumber(previous.getBuild());
+        String text = build != null
+                ? ModelHyperlinkNote.encodeTo("/" + build.getUrl(), build.getDisplayName())
+                : "#" + previous.getBuild();
+        text += " as run '" + previous.getRunName() + "'";
+        String reference = previous.getReference();
+        if (reference != null) {
+            boolean url = LINK.matcher(reference).matches();
+            text += " (" + (url ? HyperlinkNote.encodeTo(reference, reference) : reference) + ")";
+        }
+        return text;
+    }
+
+    @CheckForNull
+    static synchronized Submitted find(Job<?, ?> job, String key) {
+        return load(job).entries.get(key);
+    }
+
+    static synchronized void record(Job<?, ?> job, String key, int build, String runName, String output) {
+        Index index = load(job);
+        index.entries.remove(key);
+        index.entries.put(key, new Submitted(build, runName, reference(output), System.currentTimeMillis()));
+        Iterator<Map.Entry<String, Submitted>> it = index.entries.entrySet().iterator();
+        while (index.entries.size() > MAX_ENTRIES && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        try {
+            file(job).write(index);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save TacoTruck submission digests of " + job.getFullName(), e);
+        }
+    }
+
+    @CheckForNull
+    private static String reference(String output) {
+        if (output == null || output.isBlank()) {
+            return null;
+        }
+        String firstLine = output.strip().lines().findFirst().orElse("");
+        return firstLine.length() > 200 ? firstLine.substring(0, 200) : firstLine;
+    }
+
+    private static Index load(Job<?, ?> job) {
+        XmlFile file = file(job);
+        if (file.exists()) {
+            try {
+                return (Index) file.read();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable " + file, e);
+            }
+        }
+        return new Index();
+    }
+
+    private static XmlFile file(Job<?, ?> job) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(job.getRootDir(), INDEX_FILE));
+    }
+
+    /**
+     * Hashes the files matching {@code resultsPath} on the agent, streaming each through a fixed buffer. The relative
+     * file names take part in the digest, so moving results around counts as a change. Returns {@code null} when
+     * nothing matches.
+     */
+    static final class Compute extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final String resultsPath;
+
+        Compute(String resultsPath) {
+            this.resultsPath = resultsPath;
+        }
+
+        @Override
+        public String invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+            List<File> files = ResultFiles.resolve(workspace, resultsPath);
+            if (files.isEmpty()) {
+                return null;
+            }
+
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            String base = workspace.getAbsolutePath();
+            for (File file : files) {
+                String path = file.getAbsolutePath();
+                String name = path.startsWith(base) ? path.substring(base.length()) : path;
+                digest.update(name.replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try (InputStream in = Files.newInputStream(file.toPath())) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+                digest.update((byte) 0);
+            }
+            return Util.toHexString(digest.digest());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.jenkins.plugins.tacotruck;
+
+/**
+ * How {@link TacotruckBuilder} hands results over to TacoTruck.
+ */
+public enum SubmissionEngine {
+    CLI("TacoTruck CLI (npx)"),
+    DAEMON("TacoTruck CLI worker (long-lived, per agent)"),
+    NATIVE("Native (no Node.js required)");
+
+    private final String displayName;
+
+    SubmissionEngine(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,123 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.SystemProperties;
+
+/**
+ * Submits one result set to several destinations: the results are parsed once into a {@link ResultSpool}, which is
+ * then uploaded to every destination concurrently.
+ *
+ * <p>Every failure is reported per destination, so that an exception thrown by the {@link Callable} means the
+ * connection to the agent failed, with no telling which destinations already received the results.
+ */
+final class SubmissionFanOut {
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int MAX_CONCURRENT_DESTINATIONS =
+            SystemProperties.getInteger(SubmissionFanOut.class.getName() + ".maxConcurrentDestinations", 4);
+
+    private SubmissionFanOut() {}
+
+    /**
+     * @return one result per target, in the order of {@code targets}; results that could not be read fail every
+     *     target, as nothing was sent
+     */
+    static List<CLIResult> upload(
+            TestCaseSource source,
+            String origin,
+            List<SubmissionTarget> targets,
+            int batchSize,
+            int chunkSize,
+            int parallelism)
+            throws IOException, InterruptedException {
+        ResultSpool written;
+        try {
+            written = ResultSpool.write(source);
+        } catch (IOException e) {
+            return failed(targets.size(), "Failed to read results: " + e.getMessage());
+        }
+        try (ResultSpool spool = written) {
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(targets.size(), MAX_CONCURRENT_DESTINATIONS)),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "TacoTruck destination upload"));
+            try {
+                List<Future<CLIResult>> futures = new ArrayList<>(targets.size());
+                for (SubmissionTarget target : targets) {
+                    futures.add(executor.submit(() -> NativeSubmitter.upload(
+                            spool.reader(batchSize), origin, target, chunkSize, parallelism)));
+                }
+                List<CLIResult> results = new ArrayList<>(targets.size());
+                for (Future<CLIResult> future : futures) {
+                    try {
+                        results.add(future.get());
+                    } catch (ExecutionException e) {
+                        results.add(new CLIResult(1, "", false, "Upload failed: " + e.getCause()));
+                    }
+                }
+                return results;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    static List<CLIResult> failed(int targets, String errorMessage) {
+        return Collections.nCopies(targets, new CLIResult(1, "", false, errorMessage));
+    }
+
+    /**
+     * Parses the result files in the workspace once and uploads them to every target from the agent.
+     */
+    static final class Callable extends MasterToSlaveFileCallable<List<CLIResult>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String resultsPath;
+        private final List<SubmissionTarget> targets;
+        private final int batchSize;
+        private final int chunkSize;
+        private final int parallelism;
+        private final List<ResultParser> parsers = ResultParser.all();
+
+        Callable(String resultsPath, List<SubmissionTarget> targets, int batchSize, int chunkSize, int parallelism) {
+            this.resultsPath = resultsPath;
+            this.targets = new ArrayList<>(targets);
+            this.batchSize = batchSize;
+            this.chunkSize = chunkSize;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public List<CLIResult> invoke(File workspace, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            List<File> files;
+            try {
+                files = ResultFiles.resolve(workspace, resultsPath);
+            } catch (IOException e) {
+                return failed(targets.size(), "Failed to list result files: " + e.getMessage());
+            }
+            if (files.isEmpty()) {
+                return failed(targets.size(), "No result files found matching: " + resultsPath);
+            }
+            return upload(
+                    TestCaseSource.of(files, batchSize, parsers),
+                    files.size() + " file(s)",
+                    targets,
+                    batchSize,
+                    chunkSize,
+                    parallelism);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.jenkins.plugins.tacotruck;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import hudson.Extension;
+import hudson.PluginWrapper;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.metrics.api.MetricProvider;
+import jenkins.metrics.api.Metrics;
+import jenkins.model.Jenkins;
+
+/**
+ * Publishes submission latency, uploaded bytes, outcomes and queue depths through the optional metrics plugin, from
+ * where they can be scraped by e.g. the Prometheus plugin. All metrics are named {@code tacotruck.*}.
+ *
+ * <p>Only {@link #record} may be called unconditionally; it checks for the metrics plugin before touching any of its
+ * classes.
+ */
+public class SubmissionMetrics {
+
+    static final String PREFIX = "tacotruck";
+
+    static void record(long totalMillis, long bytes, Map<String, Long> phases, SubmissionTimings.Outcome outcome) {
+        if (isAvailable()) {
+            Registry.record(totalMillis, bytes, phases, outcome);
+        }
+    }
+
+    private static boolean isAvailable() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return false;
+        }
+        PluginWrapper plugin = jenkins.getPluginManager().getPlugin("metrics");
+        return plugin != null && plugin.isActive();
+    }
+
+    /**
+     * Name of the counter of submissions that ended with {@code outcome}; those queued in the outbox are counted
+     * apart from failures, since the outbox may still deliver them.
+     */
+    static String outcomeCounter(SubmissionTimings.Outcome outcome) {
+        switch (outcome) {
+            case SUBMITTED:
+                return PREFIX + ".submission.success";
+            case QUEUED:
+                return PREFIX + ".submission.queued";
+            default:
+                return PREFIX + ".submission.failure";
+        }
+    }
+
+    static String slug(String phase) {
+        return phase.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_");
+    }
+
+    /**
+     * Holds every reference to the metrics API, so the class is only loaded when the plugin is present.
+     */
+    private static final class Registry {
+
+        static void record(
+                long totalMillis, long bytes, Map<String, Long> phases, SubmissionTimings.Outcome outcome) {
+            MetricRegistry registry = Metrics.metricRegistry();
+            registry.timer(MetricRegistry.name(PREFIX, "submission", "duration"))
+                    .update(totalMillis, TimeUnit.MILLISECONDS);
+            for (Map.Entry<String, Long> phase : phases.entrySet()) {
+                registry.timer(MetricRegistry.name(PREFIX, "phase", slug(phase.getKey())))
+                        .update(phase.getValue(), TimeUnit.MILLISECONDS);
+            }
+            if (bytes > 0) {
+                registry.histogram(MetricRegistry.name(PREFIX, "submission", "bytes"))
+                        .update(bytes);
+                registry.counter(MetricRegistry.name(PREFIX, "bytes", "total")).inc(bytes);
+            }
+            registry.counter(outcomeCounter(outcome)).inc();
+        }
+    }
+
+    /**
+     * Queue depths of the background submission machinery.
+     */
+    @Extension(optional = true)
+    public static final class Provider extends MetricProvider {
+
+        private final MetricSet metrics = () -> {
+            Map<String, Metric> gauges = new HashMap<>();
+            gauges.put(
+                    MetricRegistry.name(PREFIX, "outbox", "depth"),
+                    (Gauge<Integer>) SubmissionOutbox::getQueueDepth);
+            gauges.put(
+                    MetricRegistry.name(PREFIX, "coalescer", "queued"),
+                    (Gauge<Integer>) SubmissionCoalescer::getQueuedBatchCount);
+            gauges.put(
+                    MetricRegistry.name(PREFIX, "coalescer", "waiting"),
+                    (Gauge<Integer>) SubmissionCoalescer::getFlushesWaiting);
+            gauges.put(
+                    MetricRegistry.name(PREFIX, "background", "pending"),
+                    (Gauge<Integer>) PendingSubmissions::getPendingCount);
+            gauges.put(
+                    MetricRegistry.name(PREFIX, "daemon", "workers"),
+                    (Gauge<Integer>) CliDaemon::getRunningCount);
+            return gauges;
+        };
+
+        @Override
+        public MetricSet getMetricSet() {
+            return metrics;
+        }
+    }
+}
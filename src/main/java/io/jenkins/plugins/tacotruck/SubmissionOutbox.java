@@ -0,0 +1,403 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.AdministrativeMonitor;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Durable spool of submissions that could not be delivered, under {@code $JENKINS_HOME/tacotruck-outbox}.
+ *
+ * <p>Each entry is a directory holding a copy of the result files and an {@code entry.xml} with the destination. The
+ * API token itself is never written to disk; it is looked up from the credentials ID on every attempt. Entries are
+ * retried by {@link RetryWork} with exponential backoff and jitter, from the controller, using the native engine, which
+ * is why only native submissions can use the outbox. Entries given up on after {@link #MAX_ATTEMPTS} are shown by the
+ * {@link Monitor} and deleted {@link #ABANDONED_RETENTION_DAYS} days after their last attempt.
+ */
+public class SubmissionOutbox {
+
+    private static final Logger LOGGER = Logger.getLogger(SubmissionOutbox.class.getName());
+
+    static final String DIR_NAME = "tacotruck-outbox";
+
+    private static final String ENTRY_FILE = "entry.xml";
+
+    private static final String RESULTS_DIR = "results";
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long INITIAL_BACKOFF_MILLIS = SystemProperties.getLong(
+            SubmissionOutbox.class.getName() + ".initialBackoffMillis", TimeUnit.MINUTES.toMillis(1));
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long MAX_BACKOFF_MILLIS = SystemProperties.getLong(
+            SubmissionOutbox.class.getName() + ".maxBackoffMillis", TimeUnit.HOURS.toMillis(1));
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int MAX_ATTEMPTS = SystemProperties.getInteger(SubmissionOutbox.class.getName() + ".maxAttempts", 48);
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static long ABANDONED_RETENTION_DAYS =
+            SystemProperties.getLong(SubmissionOutbox.class.getName() + ".abandonedRetentionDays", 30L);
+
+    private static volatile int queueDepth = -1;
+
+    /**
+     * Persisted description of one spooled submission.
+     */
+    public static final class Entry {
+        private String id;
+        private String job;
+        private String build;
+        private String provider;
+        private String project;
+        private String credentialsId;
+        private String handle;
+        private String runName;
+        private String apiUrl;
+        private String endpoint;
+        private int batchSize;
+        private int chunkSize;
+        private int uploadParallelism;
+        private int attempts;
+        private long nextAttempt;
+        private String lastError;
+        private String digestKey;
+
+        public String getId() {
+            return id;
+        }
+
+        public String getJob() {
+            return job;
+        }
+
+        public String getBuild() {
+            return build;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public long getNextAttempt() {
+            return nextAttempt;
+        }
+
+        @CheckForNull
+        public String getLastError() {
+            return lastError;
+        }
+
+        public String getRunName() {
+            return runName;
+        }
+
+        boolean isAbandoned() {
+            return attempts >= MAX_ATTEMPTS;
+        }
+    }
+
+    static File getRoot() {
+        return new File(Jenkins.get().getRootDir(), DIR_NAME);
+    }
+
+    /**
+     * Copies the results of a failed submission into the outbox so they can be retried later.
+     */
+    static void enqueue(
+            Run<?, ?> run,
+            FilePath workspace,
+            TacotruckBuilder builder,
+            @CheckForNull String digestKey,
+            String error,
+            TaskListener listener)
+            throws IOException, InterruptedException {
+        SubmissionDestination destination = new SubmissionDestination(
+                builder.getEffectiveApiUrl(), builder.getHandle(), builder.getProject(), builder.getCredentialsId());
+        enqueue(run, workspace, builder, destination, builder.getEndpoint(), digestKey, error, listener);
+    }
+
+    /**
+     * Copies the results of a submission that failed for one of several destinations into the outbox, so that only
+     * this destination is retried. A delivered retry records {@code digestKey}, if any, in {@link SubmissionDigests}.
+     */
+    static void enqueue(
+            Run<?, ?> run,
+            FilePath workspace,
+            TacotruckBuilder builder,
+            SubmissionDestination destination,
+            @CheckForNull String endpoint,
+            @CheckForNull String digestKey,
+            String error,
+            TaskListener listener)
+            throws IOException, InterruptedException {
+        Entry entry = new Entry();
+        entry.id = UUID.randomUUID().toString();
+        entry.job = run.getParent().getFullName();
+        entry.build = run.getExternalizableId();
+        entry.provider = builder.getProvider();
+        entry.project = destination.getProject();
+        entry.credentialsId = destination.getCredentialsId();
+        entry.handle = destination.getHandle();
+        entry.runName = builder.getRunName();
+        entry.apiUrl = destination.getApiUrl();
+        entry.endpoint = endpoint;
+        entry.batchSize = builder.getBatchSize();
+        entry.chunkSize = builder.getChunkSize();
+        entry.uploadParallelism = builder.getUploadParallelism();
+        entry.lastError = error;
+        entry.digestKey = digestKey;
+        entry.nextAttempt = System.currentTimeMillis() + backoff(0);
+
+        File dir = new File(getRoot(), entry.id);
+        int copied = workspace.copyRecursiveTo(
+                ResultFiles.toIncludes(builder.getResultsPath()), new FilePath(new File(dir, RESULTS_DIR)));
+        if (copied == 0) {
+            listener.getLogger().println("✗ No result files to keep for a later retry");
+            return;
+        }
+        entryFile(dir).write(entry);
+        queueDepth = -1;
+
+        listener.getLogger()
+                .println("Queued " + copied + " result file(s) for a background retry of the TacoTruck submission ("
+                        + entry.id + ")");
+    }
+
+    /**
+     * Number of spooled submissions still being retried.
+     */
+    public static int getQueueDepth() {
+        int depth = queueDepth;
+        if (depth < 0) {
+            depth = 0;
+            for (Entry entry : load()) {
+                if (!entry.isAbandoned()) {
+                    depth++;
+                }
+            }
+            queueDepth = depth;
+        }
+        return depth;
+    }
+
+    /**
+     * Spooled submissions that were given up on, oldest first.
+     */
+    static List<Entry> getAbandoned() {
+        List<Entry> abandoned = new ArrayList<>();
+        for (Entry entry : load()) {
+            if (entry.isAbandoned()) {
+                abandoned.add(entry);
+            }
+        }
+        abandoned.sort(Comparator.comparingLong(Entry::getNextAttempt));
+        return abandoned;
+    }
+
+    static List<Entry> load() {
+        List<Entry> entries = new ArrayList<>();
+        File[] dirs = getRoot().listFiles(File::isDirectory);
+        if (dirs == null) {
+            return entries;
+        }
+        for (File dir : dirs) {
+            XmlFile file = entryFile(dir);
+            if (!file.exists()) {
+                continue;
+            }
+            try {
+                entries.add((Entry) file.read());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Skipping unreadable TacoTruck outbox entry " + file, e);
+            }
+        }
+        return entries;
+    }
+
+    static long backoff(int attempts) {
+        long exponential = INITIAL_BACKOFF_MILLIS << Math.min(attempts, 20);
+        long capped = Math.min(MAX_BACKOFF_MILLIS, exponential > 0 ? exponential : MAX_BACKOFF_MILLIS);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private static XmlFile entryFile(File dir) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(dir, ENTRY_FILE));
+    }
+
+    static void retry(Entry entry, TaskListener listener) throws IOException, InterruptedException {
+        File dir = new File(getRoot(), entry.id);
+        Run<?, ?> run = Run.fromExternalizableId(entry.build);
+        String apiToken = run != null ? TacotruckCLIHelper.getApiToken(entry.credentialsId, run) : null;
+
+        CLIResult result;
+        if (run == null) {
+            result = new CLIResult(1, "", false, entry.build + " no longer exists, so its credentials cannot be used");
+        } else if (apiToken == null) {
+            String errorMsg = "Failed to retrieve API token from credentials: " + entry.credentialsId;
+            result = new CLIResult(1, "", false, errorMsg);
+        } else {
+            List<File> files = new ArrayList<>();
+            for (FilePath file : new FilePath(new File(dir, RESULTS_DIR)).list("**/*")) {
+                files.add(new File(file.getRemote()));
+            }
+            SubmissionTarget target = new SubmissionTarget(
+                    entry.provider, entry.project, apiToken, entry.handle, entry.runName, entry.apiUrl);
+            TacotruckEndpoint endpoint = TacotruckGlobalConfiguration.get().getEndpoint(entry.endpoint);
+            try (TacotruckEndpoint.Throttle.Permit ignored =
+                    endpoint != null ? endpoint.acquire(listener) : null) {
+                result = NativeSubmitter.upload(
+                        files, target, entry.batchSize, entry.chunkSize, entry.uploadParallelism);
+            }
+        }
+
+        if (result.isSuccess()) {
+            listener.getLogger().println("✓ Delivered TacoTruck submission " + entry.id + " of " + entry.build);
+            recordDigest(entry, result);
+            Util.deleteRecursive(dir);
+        } else {
+            entry.attempts++;
+            entry.lastError = result.getErrorMessage() != null ? result.getErrorMessage() : result.getOutput();
+            entry.nextAttempt = System.currentTimeMillis() + backoff(entry.attempts);
+            entryFile(dir).write(entry);
+            String message = "✗ Retry " + entry.attempts + " of TacoTruck submission " + entry.id + " failed: "
+                    + entry.lastError;
+            listener.getLogger().println(message);
+            if (entry.isAbandoned()) {
+                LOGGER.warning("Giving up on TacoTruck submission " + entry.id + " of " + entry.build + " after "
+                        + entry.attempts + " attempts; results are kept in " + dir);
+            }
+        }
+        queueDepth = -1;
+    }
+
+    private static void recordDigest(Entry entry, CLIResult result) {
+        if (entry.digestKey == null) {
+            return;
+        }
+        Job<?, ?> job = Jenkins.get().getItemByFullName(entry.job, Job.class);
+        int number;
+        try {
+            number = Integer.parseInt(entry.build.substring(entry.build.lastIndexOf('#') + 1));
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.FINE, "Not recording the digest of " + entry.build, e);
+            return;
+        }
+        if (job != null) {
+            SubmissionDigests.record(job, entry.digestKey, number, entry.runName, result.getOutput());
+        }
+    }
+
+    /**
+     * Deletes abandoned entries whose last attempt is older than {@link #ABANDONED_RETENTION_DAYS}.
+     */
+    static void purge(TaskListener listener) {
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ABANDONED_RETENTION_DAYS);
+        for (Entry entry : getAbandoned()) {
+            File dir = new File(getRoot(), entry.id);
+            if (entryFile(dir).getFile().lastModified() >= cutoff) {
+                continue;
+            }
+            discard(entry);
+            listener.getLogger()
+                    .println("Deleted TacoTruck submission " + entry.id + " of " + entry.build + ", abandoned after "
+                            + entry.attempts + " attempts");
+        }
+    }
+
+    private static void discard(Entry entry) {
+        try {
+            Util.deleteRecursive(new File(getRoot(), entry.id));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete TacoTruck outbox entry " + entry.id, e);
+        }
+        queueDepth = -1;
+    }
+
+    @Extension
+    public static final class RetryWork extends AsyncPeriodicWork {
+
+        public RetryWork() {
+            super("TacoTruck outbox retry");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.MINUTES.toMillis(1);
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            purge(listener);
+            long now = System.currentTimeMillis();
+            for (Entry entry : load()) {
+                if (entry.isAbandoned() || entry.nextAttempt > now) {
+                    continue;
+                }
+                try {
+                    retry(entry, listener);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to retry TacoTruck submission " + entry.id, e);
+                }
+            }
+        }
+    }
+
+    @Extension
+    public static final class Monitor extends AdministrativeMonitor {
+
+        @Override
+        public String getDisplayName() {
+            return "TacoTruck outbox";
+        }
+
+        @Override
+        public boolean isActivated() {
+            return getQueueDepth() > 0 || !getAbandoned().isEmpty();
+        }
+
+        public int getQueueDepth() {
+            return SubmissionOutbox.getQueueDepth();
+        }
+
+        public List<Entry> getAbandoned() {
+            return SubmissionOutbox.getAbandoned();
+        }
+
+        public long getRetentionDays() {
+            return ABANDONED_RETENTION_DAYS;
+        }
+
+        /**
+         * Deletes every abandoned entry right away.
+         */
+        @POST
+        public HttpResponse doDiscard() {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            getAbandoned().forEach(SubmissionOutbox::discard);
+            return HttpResponses.forwardToPreviousPage();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.remoting.VirtualChannel;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import jenkins.MasterToSlaveFileCallable;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Counts, total duration and failing tests of one submission, collected while the results are parsed so that build
+ * and job pages never have to read result files again. Stored in binary form by {@link SubmissionSummaryAction}.
+ */
+public class SubmissionSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Failing tests kept per submission; the counts always cover all of them.
+     */
+    static final int MAX_FAILING_TESTS = 500;
+
+    private static final int MAX_TEST_ID_LENGTH = 1024;
+
+    private final int passed;
+    private final int failed;
+    private final int errors;
+    private final int skipped;
+    private final long durationMillis;
+    private final List<String> failingTests;
+    private String runName;
+    private String link;
+
+    SubmissionSummary(
+            int passed, int failed, int errors, int skipped, long durationMillis, List<String> failingTests) {
+        this.passed = passed;
+        this.failed = failed;
+        this.errors = errors;
+        this.skipped = skipped;
+        this.durationMillis = durationMillis;
+        this.failingTests = failingTests;
+    }
+
+    public int getPassed() {
+        return passed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public int getTotal() {
+        return passed + failed + errors + skipped;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public String getDuration() {
+        return SubmissionTimingsAction.format(durationMillis);
+    }
+
+    /**
+     * {@code className.name} of failed and errored tests, at most {@link #MAX_FAILING_TESTS}.
+     */
+    public List<String> getFailingTests() {
+        return Collections.unmodifiableList(failingTests);
+    }
+
+    public int getOmittedFailingTests() {
+        return failed + errors - failingTests.size();
+    }
+
+    public String getRunName() {
+        return runName;
+    }
+
+    /**
+     * Link to the TacoTruck run, when the API response named one.
+     */
+    @CheckForNull
+    public String getLink() {
+        return link;
+    }
+
+    SubmissionSummary describe(String runName) {
+        this.runName = runName;
+        return this;
+    }
+
+    SubmissionSummary linkedTo(@CheckForNull String link) {
+        this.link = link;
+        return this;
+    }
+
+    /**
+     * The {@code url} of the run in a TacoTruck API response body, if it is a JSON object that has an http(s) one.
+     */
+    @CheckForNull
+    static String linkIn(@CheckForNull String response) {
+        if (response == null || !response.startsWith("{")) {
+            return null;
+        }
+        try {
+            String url = JSONObject.fromObject(response).optString("url", "");
+            return url.startsWith("https://") || url.startsWith("http://") ? url : null;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(runName != null ? runName : "");
+        out.writeUTF(link != null ? link : "");
+        out.writeInt(passed);
+        out.writeInt(failed);
+        out.writeInt(errors);
+        out.writeInt(skipped);
+        out.writeLong(durationMillis);
+        out.writeInt(failingTests.size());
+        for (String test : failingTests) {
+            out.writeUTF(test);
+        }
+    }
+
+    static SubmissionSummary readFrom(DataInput in) throws IOException {
+        String runName = in.readUTF();
+        String link = in.readUTF();
+        int passed = in.readInt();
+        int failed = in.readInt();
+        int errors = in.readInt();
+        int skipped = in.readInt();
+        long durationMillis = in.readLong();
+        int size = in.readInt();
+        List<String> failingTests = new ArrayList<>(Math.min(size, MAX_FAILING_TESTS));
+        for (int i = 0; i < size; i++) {
+            failingTests.add(in.readUTF());
+        }
+        SubmissionSummary summary =
+                new SubmissionSummary(passed, failed, errors, skipped, durationMillis, failingTests);
+        summary.runName = runName;
+        summary.link = link.isEmpty() ? null : link;
+        return summary;
+    }
+
+    /**
+     * Accumulates a summary from test cases as they are parsed. Not thread-safe; feed it from the sink thread.
+     */
+    static final class Collector {
+        private int passed;
+        private int failed;
+        private int errors;
+        private int skipped;
+        private long durationMillis;
+        private final List<String> failingTests = new ArrayList<>();
+
+        void accept(TestCaseRecord record) {
+            durationMillis += record.getDurationMillis();
+            switch (record.getStatus()) {
+                case PASSED:
+                    passed++;
+                    return;
+                case SKIPPED:
+                    skipped++;
+                    return;
+                case FAILED:
+                    failed++;
+                    break;
+                default:
+                    errors++;
+                    break;
+            }
+            if (failingTests.size() < MAX_FAILING_TESTS) {
+                String className = record.getClassName();
+                String id = className != null ? className + "." + record.getName() : record.getName();
+                failingTests.add(id.length() > MAX_TEST_ID_LENGTH ? id.substring(0, MAX_TEST_ID_LENGTH) : id);
+            }
+        }
+
+        SubmissionSummary build() {
+            return new SubmissionSummary(passed, failed, errors, skipped, durationMillis, failingTests);
+        }
+    }
+
+    /**
+     * Summarises the result files of a submission whose engine did not parse them in this JVM, i.e. the CLI. Only
+     * {@code parsers} are applied, so that the summary covers exactly the formats that were submitted.
+     */
+    static final class Compute extends MasterToSlaveFileCallable<SubmissionSummary> {
+        private static final long serialVersionUID = 1L;
+
+        private final String resultsPath;
+        private final int batchSize;
+        private final List<ResultParser> parsers;
+
+        Compute(String resultsPath, int batchSize, List<ResultParser> parsers) {
+            this.resultsPath = resultsPath;
+            this.batchSize = batchSize;
+            this.parsers = new ArrayList<>(parsers);
+        }
+
+        @Override
+        public SubmissionSummary invoke(File workspace, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            Collector collector = new Collector();
+            List<File> files = ResultFiles.resolve(workspace, resultsPath);
+            new ParallelResultReader(batchSize, parsers).read(files, batch -> batch.forEach(collector::accept));
+            return collector.build();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.RunAction2;
+
+/**
+ * Shows on the build page what each TacoTruck submission of the build contained. The summaries live in a small binary
+ * file next to {@code build.xml}, appended to once per submission and read only when the build page is rendered;
+ * each append also adds a record to the job's {@link SubmissionTrendIndex}.
+ */
+public class SubmissionSummaryAction implements RunAction2 {
+
+    private static final Logger LOGGER = Logger.getLogger(SubmissionSummaryAction.class.getName());
+
+    static final String FILE_NAME = "tacotruck-summary.bin";
+
+    private static final int MAGIC = 0x54414331;
+
+    private transient Run<?, ?> run;
+
+    private transient volatile List<SubmissionSummary> summaries;
+
+    static void add(Run<?, ?> run, SubmissionSummary summary) {
+        // parallel branches of one build may finish their submissions at the same time
+        synchronized (SubmissionSummaryAction.class) {
+            File file = new File(run.getRootDir(), FILE_NAME);
+            try {
+                boolean created = !file.exists();
+                try (DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                    if (created) {
+                        out.writeInt(MAGIC);
+                    }
+                    summary.writeTo(out);
+                }
+                SubmissionTrendIndex.append(
+                        SubmissionTrendIndex.file(run.getParent()),
+                        run.getNumber(),
+                        run.getStartTimeInMillis(),
+                        summary);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to save TacoTruck summary of " + run, e);
+                return;
+            }
+
+            SubmissionSummaryAction action = run.getAction(SubmissionSummaryAction.class);
+            if (action == null) {
+                run.addAction(new SubmissionSummaryAction());
+                try {
+                    run.save();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to save " + run, e);
+                }
+            } else {
+                action.summaries = null;
+            }
+        }
+    }
+
+    public List<SubmissionSummary> getSummaries() {
+        List<SubmissionSummary> loaded = summaries;
+        if (loaded == null && run != null) {
+            loaded = load(new File(run.getRootDir(), FILE_NAME));
+            summaries = loaded;
+        }
+        return loaded != null ? loaded : List.of();
+    }
+
+    static List<SubmissionSummary> load(File file) {
+        List<SubmissionSummary> loaded = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file.toPath());
+                DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != MAGIC) {
+                LOGGER.warning("Ignoring unrecognised TacoTruck summary " + file);
+                return List.of();
+            }
+            while (true) {
+                try {
+                    loaded.add(SubmissionSummary.readFrom(data));
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read TacoTruck summary " + file, e);
+        }
+        return Collections.unmodifiableList(loaded);
+    }
+
+    @CheckForNull
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TacoTruck Submission Summary";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    /**
+     * Removes the records of deleted builds from the job's {@link SubmissionTrendIndex}, so the trend never links to a
+     * build that is gone.
+     */
+    @Extension
+    public static final class Prune extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            if (run.getAction(SubmissionSummaryAction.class) == null) {
+                return;
+            }
+            try {
+                SubmissionTrendIndex.remove(SubmissionTrendIndex.file(run.getParent()), run.getNumber());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to remove " + run + " from the TacoTruck trend", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.io.Serializable;
+
+/**
+ * Where a native submission goes and under which run name, together with the resolved API token.
+ */
+public class SubmissionTarget implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String provider;
+    private final String project;
+    private final String apiToken;
+    private final String handle;
+    private final String runName;
+    private final String baseUrl;
+
+    public SubmissionTarget(
+            String provider, String project, String apiToken, String handle, String runName, String baseUrl) {
+        this.provider = provider;
+        this.project = project;
+        this.apiToken = apiToken;
+        this.handle = handle;
+        this.runName = runName;
+        this.baseUrl = baseUrl;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public String getApiToken() {
+        return apiToken;
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    public String getRunName() {
+        return runName;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+}
@@ -0,0 +1,128 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Run;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock time spent in each phase of one submission by {@link TacotruckBuilder}.
+ *
+ * <p>The timings of the submission in progress are bound to the thread running it, so the static helpers in
+ * {@link TacotruckCLIHelper} and {@link NativeSubmitter} can time their phases with {@link #phase(String)} without
+ * threading a collector through every call. Outside of a submission {@link #phase(String)} does nothing.
+ */
+public final class SubmissionTimings {
+
+    static final String DIGEST = "Digest of results";
+    static final String CREDENTIALS = "Credential lookup";
+    static final String THROTTLE = "Endpoint rate limit";
+    static final String INSTALL = "CLI installation";
+    static final String PROBE = "CLI probe";
+    static final String MERGE = "Merge of result files";
+    static final String PROCESS = "CLI process";
+    static final String UPLOAD = "Parse and upload";
+    static final String COALESCED = "Combined upload";
+    static final String OUTBOX = "Outbox spool";
+    static final String SUMMARY = "Result summary";
+    static final String ATTACHMENTS = "Attachment upload";
+
+    /**
+     * How a submission ended.
+     */
+    enum Outcome {
+        SUBMITTED,
+        /** Failed, but queued in the outbox to be retried from the controller. */
+        QUEUED,
+        FAILED
+    }
+
+    private static final ThreadLocal<SubmissionTimings> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long bytes;
+
+    private SubmissionTimings() {}
+
+    /**
+     * Starts timing a submission on the current thread.
+     */
+    static SubmissionTimings begin() {
+        SubmissionTimings timings = new SubmissionTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Times a phase of the submission running on the current thread until the returned handle is closed.
+     */
+    static Phase phase(@NonNull String name) {
+        SubmissionTimings timings = CURRENT.get();
+        return timings != null ? new Phase(timings, name) : Phase.NONE;
+    }
+
+    /**
+     * Adds to the number of result bytes handed to TacoTruck by the submission running on the current thread.
+     */
+    static void addBytes(long count) {
+        SubmissionTimings timings = CURRENT.get();
+        if (timings != null && count > 0) {
+            timings.bytes += count;
+        }
+    }
+
+    /**
+     * Stops timing, attaches the breakdown to {@code run} and publishes it to the metrics plugin when installed.
+     */
+    void end(Run<?, ?> run, String runName, SubmissionEngine engine, Outcome outcome) {
+        SubmissionTimingsAction.add(run, end(runName, engine, outcome));
+    }
+
+    /**
+     * Stops timing and publishes the breakdown to the metrics plugin when installed.
+     *
+     * @return the breakdown, to be attached to the build with {@link SubmissionTimingsAction#add}
+     */
+    SubmissionTimingsAction.Submission end(String runName, SubmissionEngine engine, Outcome outcome) {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        SubmissionMetrics.record(totalMillis, bytes, phases, outcome);
+        return new SubmissionTimingsAction.Submission(runName, engine, outcome, totalMillis, bytes, phases);
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    Map<String, Long> getPhases() {
+        return phases;
+    }
+
+    /**
+     * A running phase; closing it adds the elapsed time to its name, so a phase entered twice is summed.
+     */
+    static final class Phase implements AutoCloseable {
+        static final Phase NONE = new Phase(null, null);
+
+        private final SubmissionTimings timings;
+        private final String name;
+        private final long start = System.nanoTime();
+
+        private Phase(SubmissionTimings timings, String name) {
+            this.timings = timings;
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            if (timings != null) {
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                timings.phases.merge(name, millis, Long::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Util;
+import hudson.model.Run;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.RunAction2;
+
+/**
+ * Shows on the build page how long each TacoTruck submission of the build took, broken down by phase.
+ */
+public class SubmissionTimingsAction implements RunAction2 {
+
+    private static final Logger LOGGER = Logger.getLogger(SubmissionTimingsAction.class.getName());
+
+    private final List<Submission> submissions = new ArrayList<>();
+
+    private transient Run<?, ?> run;
+
+    /**
+     * One submission of the build, e.g. one {@code tacotruck} step.
+     */
+    public static final class Submission {
+        private final String runName;
+        private final SubmissionEngine engine;
+        private final boolean success;
+        /** Whether the failed submission was queued in the outbox. */
+        private final boolean queued;
+
+        private final long totalMillis;
+        private final long bytes;
+        private final LinkedHashMap<String, Long> phases;
+
+        Submission(
+                String runName,
+                SubmissionEngine engine,
+                SubmissionTimings.Outcome outcome,
+                long totalMillis,
+                long bytes,
+                Map<String, Long> phases) {
+            this.runName = runName;
+            this.engine = engine;
+            this.success = outcome == SubmissionTimings.Outcome.SUBMITTED;
+            this.queued = outcome == SubmissionTimings.Outcome.QUEUED;
+            this.totalMillis = totalMillis;
+            this.bytes = bytes;
+            this.phases = new LinkedHashMap<>(phases);
+        }
+
+        public String getRunName() {
+            return runName;
+        }
+
+        public String getEngine() {
+            return engine != null ? engine.getDisplayName() : "";
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public boolean isQueued() {
+            return queued;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public String getTotal() {
+            return format(totalMillis);
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public String getSize() {
+            return bytes > 0 ? Util.getBinaryByteSize(bytes) : "";
+        }
+
+        /**
+         * Phases in the order they were entered, followed by the time not covered by any phase.
+         */
+        public List<Row> getRows() {
+            List<Row> rows = new ArrayList<>();
+            long covered = 0;
+            for (Map.Entry<String, Long> phase : phases.entrySet()) {
+                rows.add(new Row(phase.getKey(), phase.getValue(), totalMillis));
+                covered += phase.getValue();
+            }
+            if (totalMillis > covered) {
+                rows.add(new Row("Other", totalMillis - covered, totalMillis));
+            }
+            return rows;
+        }
+    }
+
+    public static final class Row {
+        private final String phase;
+        private final long millis;
+        private final long totalMillis;
+
+        Row(String phase, long millis, long totalMillis) {
+            this.phase = phase;
+            this.millis = millis;
+            this.totalMillis = totalMillis;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public String getDuration() {
+            return format(millis);
+        }
+
+        public int getPercentage() {
+            return totalMillis > 0 ? (int) Math.round(100.0 * millis / totalMillis) : 0;
+        }
+    }
+
+    static String format(long millis) {
+        return millis < 1000 ? millis + " ms" : String.format("%.2f s", millis / 1000.0);
+    }
+
+    static void add(Run<?, ?> run, Submission submission) {
+        // parallel branches of one build may finish their submissions at the same time
+        synchronized (SubmissionTimingsAction.class) {
+            SubmissionTimingsAction action = run.getAction(SubmissionTimingsAction.class);
+            if (action == null) {
+                action = new SubmissionTimingsAction();
+                run.addAction(action);
+            }
+            action.submissions.add(submission);
+        }
+        try {
+            run.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save TacoTruck timings of " + run, e);
+        }
+    }
+
+    public List<Submission> getSubmissions() {
+        synchronized (SubmissionTimingsAction.class) {
+            return Collections.unmodifiableList(new ArrayList<>(submissions));
+        }
+    }
+
+    @CheckForNull
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TacoTruck Submission Timings";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
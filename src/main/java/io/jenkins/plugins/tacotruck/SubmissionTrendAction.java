@@ -0,0 +1,158 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.TransientActionFactory;
+import jenkins.util.SystemProperties;
+
+/**
+ * Trend of TacoTruck submission results on the job page, drawn from the {@link SubmissionTrendIndex} only.
+ */
+public class SubmissionTrendAction implements Action {
+
+    private static final Logger LOGGER = Logger.getLogger(SubmissionTrendAction.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Tunable from the script console")
+    static int BUILDS = SystemProperties.getInteger(SubmissionTrendAction.class.getName() + ".builds", 30);
+
+    static final int CHART_HEIGHT = 150;
+
+    static final int BAR_WIDTH = 12;
+
+    private final Job<?, ?> job;
+
+    SubmissionTrendAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    /**
+     * One stacked bar per build, scaled to {@link #CHART_HEIGHT}.
+     */
+    public List<Bar> getBars() {
+        List<SubmissionTrendIndex.Point> points;
+        try {
+            points = SubmissionTrendIndex.read(SubmissionTrendIndex.file(job), BUILDS);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read TacoTruck trend of " + job, e);
+            return List.of();
+        }
+        int max = 1;
+        for (SubmissionTrendIndex.Point point : points) {
+            max = Math.max(max, point.getTotal());
+        }
+        List<Bar> bars = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            bars.add(new Bar(points.get(i), i * (BAR_WIDTH + 2), max));
+        }
+        return bars;
+    }
+
+    public int getWidth() {
+        return BUILDS * (BAR_WIDTH + 2);
+    }
+
+    public int getHeight() {
+        return CHART_HEIGHT;
+    }
+
+    public int getBarWidth() {
+        return BAR_WIDTH;
+    }
+
+    public static final class Bar {
+        private final SubmissionTrendIndex.Point point;
+        private final int x;
+        private final int passedHeight;
+        private final int skippedHeight;
+        private final int failedHeight;
+
+        Bar(SubmissionTrendIndex.Point point, int x, int max) {
+            this.point = point;
+            this.x = x;
+            this.passedHeight = scale(point.getPassed(), max);
+            this.skippedHeight = scale(point.getSkipped(), max);
+            this.failedHeight = scale(point.getFailed() + point.getErrors(), max);
+        }
+
+        private static int scale(int count, int max) {
+            return count > 0 ? Math.max(1, (int) Math.round((double) count * CHART_HEIGHT / max)) : 0;
+        }
+
+        public SubmissionTrendIndex.Point getPoint() {
+            return point;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getPassedY() {
+            return CHART_HEIGHT - passedHeight;
+        }
+
+        public int getPassedHeight() {
+            return passedHeight;
+        }
+
+        public int getSkippedY() {
+            return getPassedY() - skippedHeight;
+        }
+
+        public int getSkippedHeight() {
+            return skippedHeight;
+        }
+
+        public int getFailedY() {
+            return getSkippedY() - failedHeight;
+        }
+
+        public int getFailedHeight() {
+            return failedHeight;
+        }
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TacoTruck Trend";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    @Extension
+    public static final class Factory extends TransientActionFactory<Job> {
+
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @NonNull
+        @Override
+        public Collection<? extends Action> createFor(@NonNull Job target) {
+            File index = SubmissionTrendIndex.file(target);
+            return index.isFile() ? List.of(new SubmissionTrendAction(target)) : List.of();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.jenkins.plugins.tacotruck;
+
+import hudson.model.Job;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file of fixed-size records in the job directory, one per submission, from which the job page trend is
+ * drawn. Reading the trend only touches the last few records, so it costs the same whatever the length of the build
+ * history, and no build has to be loaded for it.
+ *
+ * <p>A record is the build number, build start time, the four counts and the total test duration, all big-endian. A
+ * partial record left by a crash during an append is ignored and overwritten by the next append. The records of a
+ * deleted build are removed by {@link SubmissionSummaryAction.Prune}.
+ */
+final class SubmissionTrendIndex {
+
+    static final String FILE_NAME = "tacotruck-trend.idx";
+
+    static final int RECORD_SIZE = Integer.BYTES + Long.BYTES + 4 * Integer.BYTES + Long.BYTES;
+
+    /**
+     * Records read for a trend of {@code n} builds, allowing for builds with several submissions.
+     */
+    private static final int RECORDS_PER_BUILD = 4;
+
+    private SubmissionTrendIndex() {}
+
+    static File file(Job<?, ?> job) {
+        return new File(job.getRootDir(), FILE_NAME);
+    }
+
+    static void append(File file, int build, long timestamp, SubmissionSummary summary) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putInt(build)
+                .putLong(timestamp)
+                .putInt(summary.getPassed())
+                .putInt(summary.getFailed())
+                .putInt(summary.getErrors())
+                .putInt(summary.getSkipped())
+                .putLong(summary.getDurationMillis())
+                .flip();
+        synchronized (SubmissionTrendIndex.class) {
+            try (FileChannel channel =
+                    FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long position = channel.size() - channel.size() % RECORD_SIZE;
+                while (record.hasRemaining()) {
+                    position += channel.write(record, position);
+                }
+                channel.truncate(position);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the index without the records of {@code build}. The new index replaces the old one atomically, so a
+     * crash leaves either of them.
+     */
+    static void remove(File file, int build) throws IOException {
+        synchronized (SubmissionTrendIndex.class) {
+            if (!file.isFile()) {
+                return;
+            }
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            ByteBuffer kept = ByteBuffer.allocate(records.capacity());
+            boolean removed = false;
+            while (records.remaining() >= RECORD_SIZE) {
+                ByteBuffer record = records.slice().limit(RECORD_SIZE);
+                records.position(records.position() + RECORD_SIZE);
+                if (record.getInt(0) == build) {
+                    removed = true;
+                } else {
+                    kept.put(record);
+                }
+            }
+            if (!removed) {
+                return;
+            }
+            Path temp = Files.createTempFile(file.getParentFile().toPath(), FILE_NAME, ".tmp");
+            try {
+                Files.write(temp, Arrays.copyOf(kept.array(), kept.position()));
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * The last {@code builds} builds with submissions, oldest first, with the submissions of each build added up.
+     */
+    static List<Point> read(File file, int builds) throws IOException {
+        if (!file.isFile()) {
+            return List.of();
+        }
+        ByteBuffer records;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = channel.size() - channel.size() % RECORD_SIZE;
+            long start = Math.max(0, end - (long) builds * RECORDS_PER_BUILD * RECORD_SIZE);
+            records = ByteBuffer.allocate((int) (end - start));
+            while (records.hasRemaining()) {
+                if (channel.read(records, start + records.position()) < 0) {
+                    break;
+                }
+            }
+            records.flip();
+        }
+
+        Map<Integer, Point> byBuild = new LinkedHashMap<>();
+        while (records.remaining() >= RECORD_SIZE) {
+            int build = records.getInt();
+            long timestamp = records.getLong();
+            Point point = byBuild.computeIfAbsent(build, b -> new Point(b, timestamp));
+            point.passed += records.getInt();
+            point.failed += records.getInt();
+            point.errors += records.getInt();
+            point.skipped += records.getInt();
+            point.durationMillis += records.getLong();
+        }
+        List<Point> points = new ArrayList<>(byBuild.values());
+        points.sort((a, b) -> Integer.compare(a.build, b.build));
+        return Collections.unmodifiableList(points.subList(Math.max(0, points.size() - builds), points.size()));
+    }
+
+    /**
+     * Totals of one build.
+     */
+    public static final class Point {
+        private final int build;
+        private final long timestamp;
+        private int passed;
+        private int failed;
+        private int errors;
+        private int skipped;
+        private long durationMillis;
+
+        Point(int build, long timestamp) {
+            this.build = build;
+            this.timestamp = timestamp;
+        }
+
+        public int getBuild() {
+            return build;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public int getPassed() {
+            return passed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getTotal() {
+            return passed + failed + errors + skipped;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.io.Serializable;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Joins an upload started with {@code tacotruckSubmit(wait: false, ...)}: copies its log into the build log, records
+ * what it submitted on the build and fails if it failed. Does not need a node, so it can be called after the agent has
+ * been released.
+ */
+public class TacotruckAwaitStep extends Step implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String handle;
+
+    @DataBoundConstructor
+    public TacotruckAwaitStep(String handle) {
+        this.handle = handle;
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(handle, context);
+    }
+
+    static final class Execution extends StepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final String handle;
+
+        Execution(String handle, StepContext context) {
+            super(context);
+            this.handle = handle;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            StepContext context = getContext();
+            PendingSubmissions.Submission submission = PendingSubmissions.claim(context.get(Run.class), handle);
+            if (submission == null) {
+                throw new AbortException("Unknown or already awaited TacoTruck submission: " + handle);
+            }
+
+            TaskListener listener = context.get(TaskListener.class);
+            listener.getLogger().println("Waiting for TacoTruck submission " + handle);
+            submission.join(context.get(Run.class), listener).whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    context.onFailure(
+                            failure instanceof CompletionException && failure.getCause() != null
+                                    ? failure.getCause()
+                                    : failure);
+                } else {
+                    context.onSuccess(null);
+                }
+            });
+            return false;
+        }
+
+        @Override
+        public void onResume() {
+            getContext().onFailure(new AbortException("TacoTruck submission was interrupted by a Jenkins restart"));
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class, TaskListener.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "tacotruckAwait";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Wait for a background TacoTruck submission";
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package io.jenkins.plugins.tacotruck;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.model.AbstractProject;
+import hudson.model.Computer;
 import hudson.model.Item;
+import hudson.model.Node;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.tasks.BuildStepDescriptor;
@@ -15,10 +19,15 @@ import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import jakarta.servlet.ServletException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 import jenkins.tasks.SimpleBuildStep;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.verb.POST;
 
@@ -31,6 +40,18 @@ public class TacotruckBuilder extends Builder implements SimpleBuildStep {
     private final String credentialsId;
     private final String provider;
     private final String resultsPath;
+    private SubmissionEngine engine = SubmissionEngine.CLI;
+    private int batchSize = ResultParser.DEFAULT_BATCH_SIZE;
+    private int chunkSize;
+    private int uploadParallelism = ChunkedUploader.DEFAULT_PARALLELISM;
+    private boolean coalesce;
+    private boolean outbox;
+    private boolean skipUnchanged;
+    private boolean recordedResults;
+    private boolean attachments;
+    private String tacotruckInstallation;
+    private String endpoint;
+    private List<SubmissionDestination> destinations = new ArrayList<>();
 
     @DataBoundConstructor
     public TacotruckBuilder(
@@ -78,37 +99,582 @@ public class TacotruckBuilder extends Builder implements SimpleBuildStep {
         return resultsPath;
     }
 
+    public SubmissionEngine getEngine() {
+        return engine != null ? engine : SubmissionEngine.CLI;
+    }
+
+    @DataBoundSetter
+    public void setEngine(SubmissionEngine engine) {
+        this.engine = engine;
+    }
+
+    public int getBatchSize() {
+        return batchSize > 0 ? batchSize : ResultParser.DEFAULT_BATCH_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Number of test cases per chunk when the native engine uploads in chunks; {@code 0} sends a single request.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @DataBoundSetter
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(0, chunkSize);
+    }
+
+    public int getUploadParallelism() {
+        return uploadParallelism > 0 ? uploadParallelism : ChunkedUploader.DEFAULT_PARALLELISM;
+    }
+
+    @DataBoundSetter
+    public void setUploadParallelism(int uploadParallelism) {
+        this.uploadParallelism = uploadParallelism;
+    }
+
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    @DataBoundSetter
+    public void setCoalesce(boolean coalesce) {
+        this.coalesce = coalesce;
+    }
+
+    public boolean isOutbox() {
+        return outbox;
+    }
+
+    @DataBoundSetter
+    public void setOutbox(boolean outbox) {
+        this.outbox = outbox;
+    }
+
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    @DataBoundSetter
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /**
+     * Whether to submit the test results the {@code junit} step recorded for the build instead of parsing the files
+     * under {@link #getResultsPath()}, which are then only used by {@link #isSkipUnchanged()} and {@link #isOutbox()}.
+     */
+    public boolean isRecordedResults() {
+        return recordedResults;
+    }
+
+    @DataBoundSetter
+    public void setRecordedResults(boolean recordedResults) {
+        this.recordedResults = recordedResults;
+    }
+
+    public boolean isAttachments() {
+        return attachments;
+    }
+
+    @DataBoundSetter
+    public void setAttachments(boolean attachments) {
+        this.attachments = attachments;
+    }
+
+    /**
+     * Name of the {@link TacotruckInstallation} to run instead of {@code npx @testfiesta/tacotruck}, if any.
+     */
+    public String getTacotruckInstallation() {
+        return tacotruckInstallation;
+    }
+
+    @DataBoundSetter
+    public void setTacotruckInstallation(String tacotruckInstallation) {
+        this.tacotruckInstallation = Util.fixEmptyAndTrim(tacotruckInstallation);
+    }
+
+    /**
+     * Name of the {@link TacotruckEndpoint} to submit to instead of {@link #getApiUrl()}, if any.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @DataBoundSetter
+    public void setEndpoint(String endpoint) {
+        this.endpoint = Util.fixEmptyAndTrim(endpoint);
+    }
+
+    /**
+     * Further destinations that receive the same results, parsed once for all of them.
+     */
+    public List<SubmissionDestination> getDestinations() {
+        return destinations != null ? Collections.unmodifiableList(destinations) : List.of();
+    }
+
+    @DataBoundSetter
+    public void setDestinations(List<SubmissionDestination> destinations) {
+        this.destinations = destinations != null ? new ArrayList<>(destinations) : new ArrayList<>();
+    }
+
+    /**
+     * The configured {@link TacotruckEndpoint}, or {@code null} when submitting to {@link #getApiUrl()}.
+     */
+    @CheckForNull
+    TacotruckEndpoint resolveEndpoint() throws AbortException {
+        if (getEndpoint() == null) {
+            return null;
+        }
+        TacotruckEndpoint resolved = TacotruckGlobalConfiguration.get().getEndpoint(getEndpoint());
+        if (resolved == null) {
+            throw new AbortException("No TacoTruck endpoint named '" + getEndpoint() + "' is configured");
+        }
+        return resolved;
+    }
+
+    /**
+     * Whether the plugin uploads the results itself rather than through the CLI, as it does for the native engine,
+     * recorded results and several destinations.
+     */
+    boolean isNativeUpload() {
+        return getEngine() == SubmissionEngine.NATIVE || isRecordedResults() || !getDestinations().isEmpty();
+    }
+
+    /**
+     * The API URL submissions go to: that of the configured endpoint, otherwise {@link #getApiUrl()}.
+     */
+    String getEffectiveApiUrl() throws AbortException {
+        TacotruckEndpoint resolved = resolveEndpoint();
+        return resolved != null ? resolved.getUrl() : getApiUrl();
+    }
+
+    /**
+     * A change a submission makes to its build, such as attaching its summary.
+     */
+    @FunctionalInterface
+    interface BuildUpdate {
+        void applyTo(Run<?, ?> run);
+    }
+
     @Override
     public void perform(Run<?, ?> run, FilePath workspace, EnvVars env, Launcher launcher, TaskListener listener)
             throws InterruptedException, IOException {
+        perform(run, workspace, env, launcher, listener, update -> update.applyTo(run));
+    }
 
+    /**
+     * Submits like {@link #perform(Run, FilePath, EnvVars, Launcher, TaskListener)}, but hands the changes to the build
+     * to {@code updates} instead of making them, for an upload that may outlive the step that started it.
+     */
+    void perform(
+            Run<?, ?> run,
+            FilePath workspace,
+            EnvVars env,
+            Launcher launcher,
+            TaskListener listener,
+            Consumer<BuildUpdate> updates)
+            throws InterruptedException, IOException {
+        SubmissionTimings timings = SubmissionTimings.begin();
+        SubmissionTimings.Outcome outcome = SubmissionTimings.Outcome.FAILED;
         try {
-            String version = TacotruckCLIHelper.getTacotruckCliVersion(launcher, listener, workspace, env);
-            listener.getLogger().println("Using TacoTruck CLI version: " + version);
-        } catch (Exception e) {
-            throw new AbortException("TacoTruck CLI is not available and could not be installed automatically. "
-                    + "Please ensure Node.js is available and npm has proper permissions for global installations.");
+            outcome = submitTimed(run, workspace, env, launcher, listener, updates)
+                    ? SubmissionTimings.Outcome.SUBMITTED
+                    : SubmissionTimings.Outcome.QUEUED;
+        } finally {
+            SubmissionTimingsAction.Submission timed = timings.end(this.getRunName(), getEngine(), outcome);
+            updates.accept(build -> SubmissionTimingsAction.add(build, timed));
         }
-        try {
-            CLIResult result = TacotruckCLIHelper.submitResultsWithCredentials(
+    }
+
+    /**
+     * @return {@code false} if the submission failed but was queued in the outbox
+     */
+    private boolean submitTimed(
+            Run<?, ?> run,
+            FilePath workspace,
+            EnvVars env,
+            Launcher launcher,
+            TaskListener listener,
+            Consumer<BuildUpdate> updates)
+            throws InterruptedException, IOException {
+
+        if (isOutbox() && !isNativeUpload()) {
+            throw new AbortException("outbox: true retries from the controller with the native engine, so it needs"
+                    + " engine: 'NATIVE' or recordedResults: true");
+        }
+        TacotruckEndpoint resolved = resolveEndpoint();
+        String apiUrl = resolved != null ? resolved.getUrl() : this.getApiUrl();
+
+        String digestKey = null;
+        if (isSkipUnchanged()) {
+            String digest;
+            try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.DIGEST)) {
+                digest = workspace.act(new SubmissionDigests.Compute(this.getResultsPath()));
+            }
+            if (digest != null) {
+                digestKey = SubmissionDigests.key(
+                        digest, apiUrl, this.getHandle(), this.getProject(), this.getRunName());
+                SubmissionDigests.Submitted previous = SubmissionDigests.find(run.getParent(), digestKey);
+                if (previous != null) {
+                    listener.getLogger()
+                            .println("✓ Identical results were already submitted to TacoTruck by build "
+                                    + SubmissionDigests.link(run.getParent(), previous) + "; skipping upload");
+                    return true;
+                }
+            }
+        }
+
+        List<SubmissionDestination> all = new ArrayList<>();
+        all.add(new SubmissionDestination(apiUrl, this.getHandle(), this.getProject(), this.getCredentialsId()));
+        all.addAll(getDestinations());
+
+        List<CLIResult> results;
+        // a coalesced submission waits for the endpoint's limits only when its combined upload is sent
+        boolean coalesced = all.size() == 1 && isCoalesce() && !isRecordedResults();
+        try (TacotruckEndpoint.Throttle.Permit ignored = coalesced ? null : acquire(resolved, listener)) {
+            results = all.size() == 1
+                    ? List.of(submit(run, workspace, env, launcher, listener, apiUrl, resolved))
+                    : submitFanOut(run, workspace, listener, all);
+        } catch (AbortException e) {
+            throw e;
+        } catch (IOException e) {
+            if (!isOutbox()) {
+                throw e;
+            }
+            if (all.size() > 1) {
+                // the fan-out reports its failures per destination; this one leaves unknown which of them succeeded
+                throw new IOException(
+                        "The upload to " + all.size() + " TacoTruck destinations failed without telling which of"
+                                + " them received the results; not queueing them in the outbox",
+                        e);
+            }
+            listener.getLogger().println("✗ " + e.getMessage());
+            results = List.of(new CLIResult(1, "", false, e.getMessage()));
+        }
+
+        int failed = 0;
+        for (int i = 0; i < results.size(); i++) {
+            CLIResult failure = results.get(i);
+            if (failure.isSuccess()) {
+                continue;
+            }
+            failed++;
+            if (isOutbox()) {
+                try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.OUTBOX)) {
+                    if (i == 0) {
+                        SubmissionOutbox.enqueue(run, workspace, this, digestKey, failure.getErrorMessage(), listener);
+                    } else {
+                        SubmissionOutbox.enqueue(
+                                run, workspace, this, all.get(i), null, null, failure.getErrorMessage(), listener);
+                    }
+                }
+            }
+        }
+        if (failed > 0) {
+            if (isOutbox()) {
+                return false;
+            }
+            throw new AbortException(
+                    all.size() == 1
+                            ? "Failed to submit test results"
+                            : "Failed to submit test results to " + failed + " of " + all.size() + " destinations");
+        }
+
+        CLIResult result = results.get(0);
+        if (isAttachments()) {
+            uploadAttachments(run, workspace, listener, apiUrl, result.getRunId());
+        }
+        if (digestKey != null) {
+            SubmissionDigests.record(
+                    run.getParent(), digestKey, run.getNumber(), this.getRunName(), result.getOutput());
+        }
+        summarize(result, updates);
+        return true;
+    }
+
+    /**
+     * Records what was submitted for the build page and the job trend, when the engine summarised it.
+     */
+    private void summarize(CLIResult result, Consumer<BuildUpdate> updates) {
+        SubmissionSummary summary = result.getSummary();
+        if (summary != null) {
+            SubmissionSummary described = summary.describe(this.getRunName());
+            updates.accept(build -> SubmissionSummaryAction.add(build, described));
+        }
+    }
+
+    /**
+     * Waits for the rate limit and concurrency cap of {@code resolved}, if any.
+     */
+    @CheckForNull
+    private static TacotruckEndpoint.Throttle.Permit acquire(
+            @CheckForNull TacotruckEndpoint resolved, TaskListener listener) throws InterruptedException {
+        if (resolved == null) {
+            return null;
+        }
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.THROTTLE)) {
+            return resolved.acquire(listener);
+        }
+    }
+
+    private CLIResult submit(
+            Run<?, ?> run,
+            FilePath workspace,
+            EnvVars env,
+            Launcher launcher,
+            TaskListener listener,
+            String apiUrl,
+            @CheckForNull TacotruckEndpoint resolved)
+            throws InterruptedException, IOException {
+
+        if (isRecordedResults()) {
+            return submitRecorded(run, listener, apiUrl);
+        }
+
+        if (isCoalesce()) {
+            if (getEngine() != SubmissionEngine.NATIVE) {
+                throw new AbortException("coalesce: true sends the combined upload with the native engine, so it needs"
+                        + " engine: 'NATIVE'");
+            }
+            String apiToken = apiToken(run, listener);
+            SubmissionTarget target = new SubmissionTarget(
+                    this.getProvider(),
+                    this.getProject(),
+                    apiToken,
+                    this.getHandle(),
+                    this.getRunName(),
+                    apiUrl);
+            try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.COALESCED)) {
+                return SubmissionCoalescer.submit(
+                        run,
+                        workspace,
+                        this.getResultsPath(),
+                        target,
+                        this.getCredentialsId(),
+                        resolved,
+                        this.getBatchSize(),
+                        this.getChunkSize(),
+                        this.getUploadParallelism(),
+                        listener);
+            }
+        }
+
+        if (getEngine() == SubmissionEngine.NATIVE) {
+            return NativeSubmitter.submitResultsWithCredentials(
                     this.getProvider(),
                     this.getResultsPath(),
                     this.getProject(),
                     this.getCredentialsId(),
                     this.getHandle(),
                     this.getRunName(),
-                    this.getApiUrl(),
-                    launcher,
+                    apiUrl,
+                    this.getBatchSize(),
+                    this.getChunkSize(),
+                    this.getUploadParallelism(),
                     listener,
                     workspace,
-                    env);
+                    run);
+        }
 
-            if (!result.isSuccess()) {
-                throw new AbortException("Failed to submit test results");
+        String executable = null;
+        if (getTacotruckInstallation() != null) {
+            executable = installedCli(workspace, env, launcher, listener);
+        } else {
+            try {
+                String version = TacotruckCLIHelper.getTacotruckCliVersion(launcher, listener, workspace, env);
+                listener.getLogger().println("Using TacoTruck CLI version: " + version);
+            } catch (AbortException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new AbortException("TacoTruck CLI is not available and could not be installed automatically. "
+                        + "Please ensure Node.js is available and npm has proper permissions for global "
+                        + "installations.");
             }
-        } catch (Exception e) {
-            throw e;
         }
+        return TacotruckCLIHelper.submitResultsWithCredentials(
+                this.getProvider(),
+                this.getResultsPath(),
+                this.getProject(),
+                this.getCredentialsId(),
+                this.getHandle(),
+                this.getRunName(),
+                apiUrl,
+                launcher,
+                listener,
+                workspace,
+                env,
+                run,
+                getEngine() == SubmissionEngine.DAEMON,
+                executable);
+    }
+
+    /**
+     * Uploads the attachments of the submitted test cases to the primary destination. Attachments are supplementary,
+     * so a failed upload is reported in the log without failing the build.
+     */
+    private void uploadAttachments(
+            Run<?, ?> run, FilePath workspace, TaskListener listener, String apiUrl, @CheckForNull String runId)
+            throws InterruptedException, IOException {
+        SubmissionTarget target = new SubmissionTarget(
+                this.getProvider(),
+                this.getProject(),
+                apiToken(run, listener),
+                this.getHandle(),
+                this.getRunName(),
+                apiUrl);
+        TacotruckCLIHelper.uploadAttachments(
+                target, runId, this.getResultsPath(), this.getUploadParallelism(), listener, workspace);
+    }
+
+    private String apiToken(Run<?, ?> run, TaskListener listener) throws AbortException {
+        return apiToken(this.getCredentialsId(), run, listener);
+    }
+
+    private static String apiToken(String credentialsId, Run<?, ?> run, TaskListener listener)
+            throws AbortException {
+        String apiToken = TacotruckCLIHelper.getApiToken(credentialsId, run);
+        if (apiToken == null) {
+            String errorMsg = "✗ Failed to retrieve API token from credentials: " + credentialsId;
+            listener.getLogger().println(errorMsg);
+            throw new AbortException(errorMsg);
+        }
+        return apiToken;
+    }
+
+    private TestCaseSource recordedSource(Run<?, ?> run) throws AbortException {
+        TestCaseSource source = JUnitTestResults.forRun(run, this.getBatchSize());
+        if (source == null) {
+            throw new AbortException("No test results were recorded by the junit step for this build; run junit "
+                    + "before submitting its results to TacoTruck");
+        }
+        return source;
+    }
+
+    /**
+     * Parses the results once and uploads them to every destination concurrently with the native engine, whatever
+     * engine is configured, as the CLI would parse them again for each destination.
+     *
+     * @return one result per destination, in order
+     */
+    private List<CLIResult> submitFanOut(
+            Run<?, ?> run, FilePath workspace, TaskListener listener, List<SubmissionDestination> all)
+            throws InterruptedException, IOException {
+        List<SubmissionTarget> targets = new ArrayList<>(all.size());
+        for (SubmissionDestination destination : all) {
+            targets.add(new SubmissionTarget(
+                    this.getProvider(),
+                    destination.getProject(),
+                    apiToken(destination.getCredentialsId(), run, listener),
+                    destination.getHandle(),
+                    this.getRunName(),
+                    destination.getApiUrl()));
+        }
+        listener.getLogger().println("Submitting test results to " + all.size() + " TacoTruck destinations...");
+
+        List<CLIResult> results;
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.UPLOAD)) {
+            if (isRecordedResults()) {
+                results = SubmissionFanOut.upload(
+                        recordedSource(run),
+                        "the junit results",
+                        targets,
+                        this.getBatchSize(),
+                        this.getChunkSize(),
+                        this.getUploadParallelism());
+            } else {
+                results = workspace.act(new SubmissionFanOut.Callable(
+                        this.getResultsPath(),
+                        targets,
+                        this.getBatchSize(),
+                        this.getChunkSize(),
+                        this.getUploadParallelism()));
+            }
+        }
+
+        for (int i = 0; i < all.size(); i++) {
+            CLIResult result = results.get(i);
+            SubmissionTimings.addBytes(result.getBytesSent());
+            listener.getLogger()
+                    .println((result.isSuccess() ? "✓ " : "✗ ") + all.get(i) + ": "
+                            + (result.isSuccess() || result.getErrorMessage() == null
+                                    ? result.getOutput()
+                                    : result.getErrorMessage()));
+        }
+        return results;
+    }
+
+    /**
+     * Uploads the results the {@code junit} step recorded for the build straight from the controller, where they
+     * already are, with the native engine whatever engine is configured.
+     */
+    private CLIResult submitRecorded(Run<?, ?> run, TaskListener listener, String apiUrl)
+            throws InterruptedException, IOException {
+        TestCaseSource source = recordedSource(run);
+        listener.getLogger().println("Submitting the test results recorded by the junit step to TacoTruck...");
+
+        SubmissionTarget target = new SubmissionTarget(
+                this.getProvider(),
+                this.getProject(),
+                apiToken(run, listener),
+                this.getHandle(),
+                this.getRunName(),
+                apiUrl);
+        CLIResult result;
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.UPLOAD)) {
+            result = NativeSubmitter.upload(
+                    source, "the junit results", target, this.getChunkSize(), this.getUploadParallelism());
+        }
+        SubmissionTimings.addBytes(result.getBytesSent());
+
+        if (result.getErrorMessage() != null) {
+            listener.getLogger().println("✗ " + result.getErrorMessage());
+        }
+        listener.getLogger().println(result.getOutput());
+        return result;
+    }
+
+    /**
+     * Installs the configured {@link TacotruckInstallation} on the agent if needed and returns its binary.
+     */
+    private String installedCli(FilePath workspace, EnvVars env, Launcher launcher, TaskListener listener)
+            throws IOException, InterruptedException {
+        TacotruckInstallation installation = TacotruckInstallation.get(getTacotruckInstallation());
+        if (installation == null) {
+            throw new AbortException("No TacoTruck CLI installation named '" + getTacotruckInstallation() + "'");
+        }
+        Computer computer = workspace.toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        if (node == null) {
+            throw new AbortException("Cannot install TacoTruck CLI: the agent is offline");
+        }
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.INSTALL)) {
+            installation = installation.forBuild(node, env, listener);
+        }
+        String executable = installation.getExecutable(launcher);
+        if (executable == null) {
+            throw new AbortException("TacoTruck CLI installation '" + installation.getName() + "' has no home "
+                    + "directory and no installer for this agent");
+        }
+
+        CLIResult version;
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.PROBE)) {
+            version = TacotruckCLIHelper.executeCLI(
+                    new String[] {executable, "--version"}, launcher, listener, workspace, env);
+        }
+        if (!version.isSuccess()) {
+            throw new AbortException("TacoTruck CLI installation '" + installation.getName() + "' is not usable: "
+                    + (version.getErrorMessage() != null ? version.getErrorMessage() : "exit code "
+                            + version.getExitCode()));
+        }
+        listener.getLogger()
+                .println("Using TacoTruck CLI version: " + version.getOutput() + " (" + installation.getName() + ")");
+        return executable;
     }
 
     @Symbol("tacotruck")
@@ -131,12 +697,16 @@ public class TacotruckBuilder extends Builder implements SimpleBuildStep {
         }
 
         @POST
-        public FormValidation doCheckApiUrl(@AncestorInPath Item item, @QueryParameter String value)
+        public FormValidation doCheckApiUrl(
+                @AncestorInPath Item item, @QueryParameter String value, @QueryParameter String endpoint)
                 throws IOException, ServletException {
             if (item == null || !item.hasPermission(Item.CONFIGURE)) {
                 return FormValidation.ok();
             }
             if (value == null || value.isBlank()) {
+                if (endpoint != null && !endpoint.isBlank()) {
+                    return FormValidation.ok();
+                }
                 return FormValidation.error("API URL is required");
             }
             if (!value.startsWith("http://") && !value.startsWith("https://")) {
@@ -200,6 +770,40 @@ public class TacotruckBuilder extends Builder implements SimpleBuildStep {
             return FormValidation.ok();
         }
 
+        @POST
+        public FormValidation doCheckBatchSize(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        @POST
+        public FormValidation doCheckChunkSize(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        @POST
+        public FormValidation doCheckUploadParallelism(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        public ListBoxModel doFillTacotruckInstallationItems() {
+            return TacotruckInstallation.fillInstallationItems();
+        }
+
+        @POST
+        public ListBoxModel doFillEndpointItems(
+                @AncestorInPath final Item item, @QueryParameter final String endpoint) {
+            return TacotruckGlobalConfiguration.fillEndpointItems(item, endpoint);
+        }
+
         @POST
         public ListBoxModel doFillCredentialsIdItems(
                 @AncestorInPath final Item item, @QueryParameter final String credentialsId) {
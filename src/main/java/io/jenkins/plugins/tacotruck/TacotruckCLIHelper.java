@@ -1,17 +1,22 @@
 package io.jenkins.plugins.tacotruck;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.Launcher.ProcStarter;
+import hudson.model.Computer;
+import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.slaves.WorkspaceList;
 import hudson.util.ArgumentListBuilder;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 
@@ -19,6 +24,11 @@ public class TacotruckCLIHelper {
 
     private static final Logger LOGGER = Logger.getLogger(TacotruckCLIHelper.class.getName());
 
+    static final String CLI_PACKAGE = "@testfiesta/tacotruck";
+
+    private static final String NPX_NOT_FOUND =
+            "npx not found on PATH; install Node.js on the agent or select a TacoTruck CLI installation";
+
     protected static CLIResult executeCLI(
             String[] command, Launcher launcher, TaskListener listener, FilePath workspace)
             throws IOException, InterruptedException {
@@ -28,24 +38,53 @@ public class TacotruckCLIHelper {
     protected static CLIResult executeCLI(
             String[] command, Launcher launcher, TaskListener listener, FilePath workspace, EnvVars envVars)
             throws IOException, InterruptedException {
+        return executeCLI(command, launcher, listener, workspace, envVars, false);
+    }
+
+    /**
+     * Runs {@code command} on the agent. Output is processed line by line as it arrives: secrets passed with
+     * {@code --token} are masked, lines are echoed to the build log when {@code echo} is set (stderr always is), and
+     * only a bounded tail is kept for the returned {@link CLIResult}.
+     */
+    protected static CLIResult executeCLI(
+            String[] command,
+            Launcher launcher,
+            TaskListener listener,
+            FilePath workspace,
+            EnvVars envVars,
+            boolean echo)
+            throws IOException, InterruptedException {
         try {
             ArgumentListBuilder args = new ArgumentListBuilder();
-            for (String arg : command) {
-                args.add(arg);
+            for (int i = 0; i < command.length; i++) {
+                args.add(command[i], i > 0 && "--token".equals(command[i - 1]));
             }
+            List<String> secrets = secrets(command);
+
+            CLIOutputStream.Tail stdoutTail = new CLIOutputStream.Tail();
+            CLIOutputStream.Tail stderrTail = new CLIOutputStream.Tail();
+            PrintStream logger = listener.getLogger();
+
+            int exitCode;
+            try (CLIOutputStream stdout = new CLIOutputStream(echo ? logger : null, "", secrets, stdoutTail);
+                    CLIOutputStream stderr = new CLIOutputStream(logger, "[stderr] ", secrets, stderrTail)) {
+                ProcStarter ps = launcher.launch()
+                        .pwd(workspace)
+                        .cmds(args)
+                        .quiet(true)
+                        .stdout(stdout)
+                        .stderr(stderr);
+
+                if (envVars != null) {
+                    ps = ps.envs(envVars);
+                }
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-            ProcStarter ps = launcher.launch().pwd(workspace).cmds(args).stdout(outputStream);
-
-            if (envVars != null) {
-                ps = ps.envs(envVars);
+                exitCode = ps.join();
             }
 
-            int exitCode = ps.join();
-            String output = outputStream.toString(StandardCharsets.UTF_8).trim();
-
-            return new CLIResult(exitCode, output, exitCode == 0, null);
+            String errorOutput = stderrTail.toString();
+            String errorMessage = exitCode != 0 && !errorOutput.isEmpty() ? errorOutput : null;
+            return new CLIResult(exitCode, stdoutTail.toString(), exitCode == 0, errorMessage);
 
         } catch (InterruptedException e) {
             String errorMsg = "✗ Failed to execute CLI command: " + e.getMessage();
@@ -58,6 +97,19 @@ public class TacotruckCLIHelper {
         }
     }
 
+    /**
+     * Values passed with {@code --token}, which must never show up in logs.
+     */
+    static List<String> secrets(String[] command) {
+        List<String> secrets = new ArrayList<>();
+        for (int i = 1; i < command.length; i++) {
+            if ("--token".equals(command[i - 1])) {
+                secrets.add(command[i]);
+            }
+        }
+        return secrets;
+    }
+
     protected static boolean isTacotruckCliAvailable(
             Launcher launcher, TaskListener listener, FilePath workspace, EnvVars envVars)
             throws IOException, InterruptedException {
@@ -94,20 +146,62 @@ public class TacotruckCLIHelper {
         return isTacotruckCliAvailable(launcher, listener, workspace, null);
     }
 
+    /**
+     * @throws AbortException if {@code npx} is not on the agent's {@code PATH}
+     */
     protected static String findNpxPath(Launcher launcher, TaskListener listener, FilePath workspace, EnvVars envVars)
             throws IOException, InterruptedException {
-        CLIResult result = executeCLI(new String[] {"which", "npx"}, launcher, listener, workspace, envVars);
-        return result.isSuccess() ? result.getOutput() : null;
+        String npxPath = resolveCli(launcher, listener, workspace, envVars).getNpxPath();
+        if (npxPath == null) {
+            throw new AbortException(NPX_NOT_FOUND);
+        }
+        return npxPath;
     }
 
+    /**
+     * @throws AbortException if {@code npx} is not on the agent's {@code PATH} or the CLI does not report a version
+     */
     protected static String getTacotruckCliVersion(
             Launcher launcher, TaskListener listener, FilePath workspace, EnvVars envVars)
             throws IOException, InterruptedException {
-        String npxPath = findNpxPath(launcher, listener, workspace, envVars);
+        CliResolutionCache.Resolution resolution = resolveCli(launcher, listener, workspace, envVars);
+        if (resolution.getNpxPath() == null) {
+            throw new AbortException(NPX_NOT_FOUND);
+        }
+        if (resolution.getVersion() == null) {
+            throw new AbortException(
+                    "TacoTruck CLI did not report its version through " + resolution.getNpxPath() + " " + CLI_PACKAGE);
+        }
+        return resolution.getVersion();
+    }
+
+    private static CliResolutionCache.Resolution resolveCli(
+            Launcher launcher, TaskListener listener, FilePath workspace, EnvVars envVars)
+            throws IOException, InterruptedException {
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.PROBE)) {
+            return CliResolutionCache.resolve(
+                    nodeName(workspace), envVars, () -> probeCli(launcher, listener, workspace, envVars));
+        }
+    }
+
+    private static CliResolutionCache.Resolution probeCli(
+            Launcher launcher, TaskListener listener, FilePath workspace, EnvVars envVars)
+            throws IOException, InterruptedException {
+        CLIResult npx = executeCLI(new String[] {"which", "npx"}, launcher, listener, workspace, envVars);
+        if (!npx.isSuccess() || npx.getOutput().isEmpty()) {
+            // a failed probe is not cached, so the next build looks again
+            throw new AbortException(NPX_NOT_FOUND);
+        }
+
+        String npxPath = npx.getOutput();
         CLIResult result = executeCLI(
-                new String[] {npxPath, "@testfiesta/tacotruck", "--version"}, launcher, listener, workspace, envVars);
+                new String[] {npxPath, CLI_PACKAGE, "--version"}, launcher, listener, workspace, envVars);
+        return new CliResolutionCache.Resolution(npxPath, result.isSuccess() ? result.getOutput() : null);
+    }
 
-        return result.isSuccess() ? result.getOutput() : null;
+    static String nodeName(FilePath workspace) {
+        Computer computer = workspace.toComputer();
+        return computer != null ? computer.getName() : "";
     }
 
     protected static String getTacotruckCliVersion(Launcher launcher, TaskListener listener, FilePath workspace)
@@ -124,10 +218,33 @@ public class TacotruckCLIHelper {
             String runName,
             String baseUrl,
             String npxPath) {
-        List<String> cmd = new ArrayList<>();
+        return buildSubmitCommand(
+                provider,
+                resultsPath,
+                project,
+                apiToken,
+                handle,
+                runName,
+                baseUrl,
+                // null-tolerant like the command always was; the launcher reports a missing executable
+                Arrays.asList(npxPath, CLI_PACKAGE));
+    }
+
+    /**
+     * @param cliPrefix how to invoke the CLI, e.g. {@code [npx, @testfiesta/tacotruck]} or the path of an installed
+     *     {@code tacotruck} binary
+     */
+    protected static String[] buildSubmitCommand(
+            String provider,
+            String resultsPath,
+            String project,
+            String apiToken,
+            String handle,
+            String runName,
+            String baseUrl,
+            List<String> cliPrefix) {
+        List<String> cmd = new ArrayList<>(cliPrefix);
 
-        cmd.add(npxPath);
-        cmd.add("@testfiesta/tacotruck");
         cmd.add(provider);
         cmd.add("run:submit");
 
@@ -160,13 +277,182 @@ public class TacotruckCLIHelper {
             FilePath workspace,
             EnvVars envVars)
             throws IOException, InterruptedException {
+        return submitResults(
+                provider,
+                resultsPath,
+                project,
+                apiToken,
+                handle,
+                runName,
+                baseUrl,
+                launcher,
+                listener,
+                workspace,
+                envVars,
+                false,
+                null);
+    }
+
+    /**
+     * @param daemon run the CLI on the long-lived per-agent worker of {@link CliDaemon} when it is available
+     * @param executable installed {@code tacotruck} binary to run instead of {@code npx @testfiesta/tacotruck}
+     */
+    protected static CLIResult submitResults(
+            String provider,
+            String resultsPath,
+            String project,
+            String apiToken,
+            String handle,
+            String runName,
+            String baseUrl,
+            Launcher launcher,
+            TaskListener listener,
+            FilePath workspace,
+            EnvVars envVars,
+            boolean daemon,
+            @CheckForNull String executable)
+            throws IOException, InterruptedException {
 
         listener.getLogger().println("Submitting test results to TacoTruck...");
 
-        String npxPath = findNpxPath(launcher, listener, workspace, envVars);
+        FilePath merged = null;
+        String dataPath = resultsPath;
+        if (ResultFiles.isPattern(resultsPath)) {
+            Map<String, Long> matches = workspace.act(new ResultFiles.Find(resultsPath));
+            if (matches.isEmpty()) {
+                String errorMsg = "No result files found matching: " + resultsPath;
+                listener.getLogger().println("✗ " + errorMsg);
+                return new CLIResult(1, "", false, errorMsg);
+            }
+            listener.getLogger()
+                    .println("Found " + matches.size() + " result file(s): " + ResultFiles.describe(matches.keySet()));
+            // the sizes come with the listing; a single file passed as is is not looked up just to count its bytes
+            SubmissionTimings.addBytes(matches.values().stream().mapToLong(Long::longValue).sum());
+            if (matches.size() == 1) {
+                dataPath = matches.keySet().iterator().next();
+            } else {
+                FilePath tempDir = WorkspaceList.tempDir(workspace);
+                if (tempDir == null) {
+                    // a workspace at the file system root has no sibling temporary directory
+                    tempDir = workspace;
+                }
+                tempDir.mkdirs();
+                merged = tempDir.createTempFile("tacotruck-results", ".xml");
+                try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.MERGE)) {
+                    merged.act(new ResultFiles.Merge(new ArrayList<>(matches.keySet())));
+                }
+                dataPath = merged.getRemote();
+            }
+        }
+
+        try {
+            CLIResult result = submitFile(
+                    provider,
+                    dataPath,
+                    project,
+                    apiToken,
+                    handle,
+                    runName,
+                    baseUrl,
+                    launcher,
+                    listener,
+                    workspace,
+                    envVars,
+                    daemon,
+                    executable);
+            return result.isSuccess() ? summarize(result, dataPath, listener, workspace) : result;
+        } finally {
+            if (merged != null) {
+                merged.delete();
+            }
+        }
+    }
+
+    /**
+     * Attaches a summary of the file the CLI submitted, parsed on the agent in a separate, streaming pass. The CLI
+     * submits JUnit XML only, so nothing else is counted, and the merged file is summarised before it is deleted.
+     */
+    private static CLIResult summarize(CLIResult result, String dataPath, TaskListener listener, FilePath workspace)
+            throws InterruptedException {
+        SubmissionSummary summary;
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.SUMMARY)) {
+            summary = workspace.act(new SubmissionSummary.Compute(
+                    dataPath, ResultParser.DEFAULT_BATCH_SIZE, List.of(new JUnitResultParser())));
+        } catch (IOException e) {
+            listener.getLogger().println("✗ Could not summarise the submitted results: " + e.getMessage());
+            return result;
+        }
+        return new CLIResult(
+                result.getExitCode(),
+                result.getOutput(),
+                true,
+                result.getErrorMessage(),
+                result.getBytesSent(),
+                summary);
+    }
+
+    private static CLIResult submitFile(
+            String provider,
+            String resultsPath,
+            String project,
+            String apiToken,
+            String handle,
+            String runName,
+            String baseUrl,
+            Launcher launcher,
+            TaskListener listener,
+            FilePath workspace,
+            EnvVars envVars,
+            boolean daemon,
+            @CheckForNull String executable)
+            throws IOException, InterruptedException {
+        List<String> cliPrefix = executable != null
+                ? List.of(executable)
+                : List.of(findNpxPath(launcher, listener, workspace, envVars), CLI_PACKAGE);
         String[] command =
-                buildSubmitCommand(provider, resultsPath, project, apiToken, handle, runName, baseUrl, npxPath);
+                buildSubmitCommand(provider, resultsPath, project, apiToken, handle, runName, baseUrl, cliPrefix);
+
+        listener.getLogger().println("Executing: " + maskCommand(command));
+
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.PROCESS)) {
+            if (daemon) {
+                CLIResult result = CliDaemon.execute(command, cliPrefix.size(), listener, workspace, envVars, true);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return executeCLI(command, launcher, listener, workspace, envVars, true);
+        }
+    }
 
+    /**
+     * Uploads the files that the results at {@code resultsPath} attach to their test cases, such as screenshots and
+     * logs, straight from the agent the workspace lives on; see {@link AttachmentUploader}. The files never pass
+     * through the controller.
+     *
+     * @param runId id of the run the results were submitted as, when the submission returned one
+     */
+    protected static CLIResult uploadAttachments(
+            SubmissionTarget target,
+            @CheckForNull String runId,
+            String resultsPath,
+            int parallelism,
+            TaskListener listener,
+            FilePath workspace)
+            throws IOException, InterruptedException {
+        listener.getLogger().println("Uploading test attachments to TacoTruck...");
+        CLIResult result;
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.ATTACHMENTS)) {
+            result = workspace.act(new AttachmentUploader.Callable(target, runId, resultsPath, parallelism));
+        }
+        if (result.getErrorMessage() != null) {
+            listener.getLogger().println("✗ " + result.getErrorMessage());
+        }
+        listener.getLogger().println((result.isSuccess() ? "✓ " : "✗ ") + result.getOutput());
+        return result;
+    }
+
+    static String maskCommand(String[] command) {
         StringBuilder logCmd = new StringBuilder();
         for (int i = 0; i < command.length; i++) {
             if (i > 0) logCmd.append(" ");
@@ -178,21 +464,22 @@ public class TacotruckCLIHelper {
                 logCmd.append(command[i]);
             }
         }
-        listener.getLogger().println("Executing: " + logCmd.toString());
-
-        CLIResult result = executeCLI(command, launcher, listener, workspace, envVars);
-
-        listener.getLogger().println(result.getOutput());
-
-        return result;
+        return logCmd.toString();
     }
 
     protected static String getApiToken(String credentialsId) {
+        return getApiToken(credentialsId, null);
+    }
+
+    protected static String getApiToken(String credentialsId, @CheckForNull Run<?, ?> run) {
         if (credentialsId == null || credentialsId.isBlank()) {
             return null;
         }
 
-        StringCredentials credentials = CredentialsHelper.lookupApiTokenCredentials(credentialsId);
+        StringCredentials credentials;
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.CREDENTIALS)) {
+            credentials = CredentialsHelper.lookupApiTokenCredentials(credentialsId, run);
+        }
         if (credentials != null) {
             return credentials.getSecret().getPlainText();
         }
@@ -213,8 +500,70 @@ public class TacotruckCLIHelper {
             FilePath workspace,
             EnvVars envVars)
             throws IOException, InterruptedException {
+        return submitResultsWithCredentials(
+                provider,
+                resultsPath,
+                project,
+                credentialsId,
+                handle,
+                runName,
+                baseUrl,
+                launcher,
+                listener,
+                workspace,
+                envVars,
+                null);
+    }
+
+    protected static CLIResult submitResultsWithCredentials(
+            String provider,
+            String resultsPath,
+            String project,
+            String credentialsId,
+            String handle,
+            String runName,
+            String baseUrl,
+            Launcher launcher,
+            TaskListener listener,
+            FilePath workspace,
+            EnvVars envVars,
+            @CheckForNull Run<?, ?> run)
+            throws IOException, InterruptedException {
+        return submitResultsWithCredentials(
+                provider,
+                resultsPath,
+                project,
+                credentialsId,
+                handle,
+                runName,
+                baseUrl,
+                launcher,
+                listener,
+                workspace,
+                envVars,
+                run,
+                false,
+                null);
+    }
+
+    protected static CLIResult submitResultsWithCredentials(
+            String provider,
+            String resultsPath,
+            String project,
+            String credentialsId,
+            String handle,
+            String runName,
+            String baseUrl,
+            Launcher launcher,
+            TaskListener listener,
+            FilePath workspace,
+            EnvVars envVars,
+            @CheckForNull Run<?, ?> run,
+            boolean daemon,
+            @CheckForNull String executable)
+            throws IOException, InterruptedException {
 
-        String apiToken = getApiToken(credentialsId);
+        String apiToken = getApiToken(credentialsId, run);
         if (apiToken == null) {
             String errorMsg = "✗ Failed to retrieve API token from credentials: " + credentialsId;
             listener.getLogger().println(errorMsg);
@@ -232,6 +581,8 @@ public class TacotruckCLIHelper {
                 launcher,
                 listener,
                 workspace,
-                envVars);
+                envVars,
+                daemon,
+                executable);
     }
 }
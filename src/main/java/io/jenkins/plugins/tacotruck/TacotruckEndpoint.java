@@ -0,0 +1,232 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * A named TacoTruck API endpoint from {@link TacotruckGlobalConfiguration}. Submissions to it from all builds on the
+ * controller share one token bucket ({@link #getRequestsPerSecond()}, {@link #getBurst()}) and one concurrency cap
+ * ({@link #getMaxConcurrentSubmissions()}); {@code 0} disables either limit.
+ *
+ * <p>Both are enforced on the controller, once per submission: the HTTP requests of a submission are mostly sent
+ * from the agent, and the chunks, attachments or CLI requests of one submission are not counted one by one.
+ */
+public class TacotruckEndpoint extends AbstractDescribableImpl<TacotruckEndpoint> {
+
+    /**
+     * Limits by endpoint name. Replaced when the settings of an endpoint change; submissions holding a permit of
+     * the old limiter finish against it.
+     */
+    private static final ConcurrentMap<String, Throttle> THROTTLES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String url;
+    private double requestsPerSecond;
+    private int burst = 1;
+    private int maxConcurrentSubmissions;
+
+    @DataBoundConstructor
+    public TacotruckEndpoint(String name, String url) {
+        this.name = Util.fixEmptyAndTrim(name);
+        this.url = Util.fixEmptyAndTrim(url);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    @DataBoundSetter
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = Math.max(0, requestsPerSecond);
+    }
+
+    public int getBurst() {
+        return Math.max(1, burst);
+    }
+
+    @DataBoundSetter
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public int getMaxConcurrentSubmissions() {
+        return maxConcurrentSubmissions;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentSubmissions(int maxConcurrentSubmissions) {
+        this.maxConcurrentSubmissions = Math.max(0, maxConcurrentSubmissions);
+    }
+
+    /**
+     * Waits until this endpoint accepts another submission: first for a token of the rate limit, then for a free
+     * slot of the concurrency cap. Close the returned permit when the submission is done.
+     */
+    Throttle.Permit acquire(TaskListener listener) throws InterruptedException {
+        Throttle throttle = THROTTLES.compute(
+                name, (k, existing) -> existing != null && existing.matches(this) ? existing : new Throttle(this));
+        return throttle.acquire(listener);
+    }
+
+    /**
+     * Token bucket plus semaphore guarding one endpoint.
+     */
+    static final class Throttle {
+        private final double requestsPerSecond;
+        private final int burst;
+        private final int maxConcurrent;
+        private final String name;
+        private final Semaphore slots;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        Throttle(TacotruckEndpoint endpoint) {
+            this.name = endpoint.getName();
+            this.requestsPerSecond = endpoint.getRequestsPerSecond();
+            this.burst = endpoint.getBurst();
+            this.maxConcurrent = endpoint.getMaxConcurrentSubmissions();
+            this.slots = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+            this.tokens = burst;
+        }
+
+        boolean matches(TacotruckEndpoint endpoint) {
+            return requestsPerSecond == endpoint.getRequestsPerSecond()
+                    && burst == endpoint.getBurst()
+                    && maxConcurrent == endpoint.getMaxConcurrentSubmissions();
+        }
+
+        /**
+         * Takes a token, going into debt if none is left, and returns how long the caller has to wait for it.
+         */
+        synchronized long reserve(long now) {
+            if (requestsPerSecond <= 0) {
+                return 0;
+            }
+            tokens = Math.min(burst, tokens + (now - refilledAt) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens / requestsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        Permit acquire(TaskListener listener) throws InterruptedException {
+            long wait = reserve(System.nanoTime());
+            if (wait > 0) {
+                listener.getLogger()
+                        .println("Rate limit of TacoTruck endpoint '" + name + "': waiting "
+                                + TimeUnit.NANOSECONDS.toMillis(wait) + " ms");
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            if (slots != null && !slots.tryAcquire()) {
+                listener.getLogger()
+                        .println("TacoTruck endpoint '" + name + "' already has " + maxConcurrent
+                                + " submission(s) in progress; waiting for a free slot");
+                slots.acquire();
+            }
+            return new Permit(slots);
+        }
+
+        static final class Permit implements AutoCloseable {
+            private final Semaphore slots;
+            private boolean released;
+
+            Permit(Semaphore slots) {
+                this.slots = slots;
+            }
+
+            @Override
+            public void close() {
+                if (slots != null && !released) {
+                    released = true;
+                    slots.release();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TacotruckEndpoint)) {
+            return false;
+        }
+        TacotruckEndpoint other = (TacotruckEndpoint) o;
+        return Objects.equals(name, other.name)
+                && Objects.equals(url, other.url)
+                && requestsPerSecond == other.requestsPerSecond
+                && burst == other.burst
+                && maxConcurrentSubmissions == other.maxConcurrentSubmissions;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, url, requestsPerSecond, burst, maxConcurrentSubmissions);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends Descriptor<TacotruckEndpoint> {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "TacoTruck endpoint";
+        }
+
+        @POST
+        public FormValidation doCheckName(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            if (value == null || value.isBlank()) {
+                return FormValidation.error("Name is required");
+            }
+            return FormValidation.ok();
+        }
+
+        @POST
+        public FormValidation doCheckUrl(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            if (value == null || value.isBlank()) {
+                return FormValidation.error("API URL is required");
+            }
+            if (!value.startsWith("http://") && !value.startsWith("https://")) {
+                return FormValidation.error("API URL must start with http:// or https://");
+            }
+            return FormValidation.ok();
+        }
+
+        @POST
+        public FormValidation doCheckBurst(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        @POST
+        public FormValidation doCheckMaxConcurrentSubmissions(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+    }
+}
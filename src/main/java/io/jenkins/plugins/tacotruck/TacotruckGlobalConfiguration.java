@@ -0,0 +1,76 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.util.ListBoxModel;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Named TacoTruck endpoints that builds can submit to instead of configuring a raw API URL each.
+ */
+@Symbol("tacotruck")
+@Extension
+public class TacotruckGlobalConfiguration extends GlobalConfiguration {
+
+    private List<TacotruckEndpoint> endpoints = new ArrayList<>();
+
+    public TacotruckGlobalConfiguration() {
+        load();
+    }
+
+    @NonNull
+    public static TacotruckGlobalConfiguration get() {
+        return GlobalConfiguration.all().getInstance(TacotruckGlobalConfiguration.class);
+    }
+
+    @NonNull
+    public List<TacotruckEndpoint> getEndpoints() {
+        return endpoints != null ? endpoints : List.of();
+    }
+
+    @DataBoundSetter
+    public void setEndpoints(List<TacotruckEndpoint> endpoints) {
+        this.endpoints = endpoints != null ? new ArrayList<>(endpoints) : new ArrayList<>();
+        save();
+    }
+
+    @CheckForNull
+    public TacotruckEndpoint getEndpoint(@CheckForNull String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        for (TacotruckEndpoint endpoint : getEndpoints()) {
+            if (name.equals(endpoint.getName())) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Items for the {@code endpoint} drop-downs of the build steps when configuring {@code item}; the empty entry uses
+     * the step's API URL. Users who may not configure it only get the current value back, so the names and URLs of
+     * the endpoints are not disclosed to them.
+     */
+    static ListBoxModel fillEndpointItems(@CheckForNull Item item, @CheckForNull String endpoint) {
+        ListBoxModel items = new ListBoxModel();
+        items.add("(API URL below)", "");
+        if (item == null ? !Jenkins.get().hasPermission(Jenkins.ADMINISTER) : !item.hasPermission(Item.CONFIGURE)) {
+            if (endpoint != null && !endpoint.isEmpty()) {
+                items.add(endpoint);
+            }
+            return items;
+        }
+        for (TacotruckEndpoint endpoint : get().getEndpoints()) {
+            items.add(endpoint.getName() + " (" + endpoint.getUrl() + ")", endpoint.getName());
+        }
+        return items;
+    }
+}
@@ -0,0 +1,163 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What the uploads of the native engine have in common: building API URIs, sending a request and classifying its
+ * outcome, and retrying with backoff. The callers keep their own retry limits and decide what to resend.
+ */
+final class TacotruckHttp {
+
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+
+    private TacotruckHttp() {}
+
+    /**
+     * {@code baseUrl} followed by {@code path}, which is formatted with the handle and the project as URL-encoded
+     * path segments.
+     */
+    static URI apiUri(String baseUrl, String path, String handle, String project) {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        return URI.create(base + String.format(path, encodeSegment(handle), encodeSegment(project)));
+    }
+
+    static String encodeSegment(String segment) {
+        return URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * Resolves the {@code Location} a response to {@code request} named, if it is on the same origin: the requests
+     * sent there carry the API token.
+     */
+    @CheckForNull
+    static URI sameOrigin(URI request, String location) {
+        URI resolved = request.resolve(location);
+        return origin(resolved).equals(origin(request)) ? resolved : null;
+    }
+
+    private static String origin(URI uri) {
+        String scheme = Objects.toString(uri.getScheme(), "").toLowerCase(Locale.ROOT);
+        int port = uri.getPort() >= 0 ? uri.getPort() : "https".equals(scheme) ? 443 : 80;
+        return scheme + "://" + Objects.toString(uri.getHost(), "").toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    /**
+     * Describes a request that got no response.
+     */
+    static String unreachable(IOException e) {
+        if (e instanceof HttpTimeoutException && !(e instanceof HttpConnectTimeoutException)) {
+            return "TacoTruck API did not respond within " + NativeSubmitter.requestTimeout().toSeconds() + " s";
+        }
+        return "Failed to reach TacoTruck API: " + e.getMessage();
+    }
+
+    /**
+     * Sends {@code request}, whose body must be replayable if it is to be retried.
+     */
+    static Response send(HttpRequest request) throws InterruptedException {
+        HttpResponse<String> response;
+        try {
+            response = SharedHttpClients.forUri(request.uri())
+                    .send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            return new Response(0, "", NO_HEADERS, unreachable(e), true, true);
+        } catch (IOException e) {
+            // including HttpTimeoutException: the request may or may not have reached the API
+            return new Response(0, "", NO_HEADERS, unreachable(e), true, false);
+        }
+        int status = response.statusCode();
+        String body = response.body().trim();
+        if (status >= 200 && status < 300) {
+            return new Response(status, body, response.headers(), null, false, false);
+        }
+        return new Response(
+                status,
+                body,
+                response.headers(),
+                "TacoTruck API responded with HTTP " + status,
+                status == 429 || status >= 500,
+                status == 429);
+    }
+
+    /**
+     * Makes up to {@code maxAttempts} attempts, with jittered exponential backoff from {@code backoffMillis} between
+     * them. An {@code idempotent} request is retried after network failures, timeouts, {@code 429} and {@code 5xx}
+     * responses; any other only when the API certainly did not act on it: the connection could not be made, or the
+     * response was {@code 429}.
+     */
+    static Response withRetry(boolean idempotent, int maxAttempts, long backoffMillis, Attempt attempt)
+            throws InterruptedException {
+        Response response = null;
+        for (int i = 0; i < Math.max(1, maxAttempts); i++) {
+            if (i > 0) {
+                backoff(backoffMillis, i);
+            }
+            response = attempt.send(i);
+            if (!(idempotent ? response.retryable : response.unprocessed)) {
+                return response;
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Sleeps before retry number {@code retry}, counted from 1.
+     */
+    static void backoff(long backoffMillis, int retry) throws InterruptedException {
+        long backoff = backoffMillis << Math.min(retry - 1, 10);
+        Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+    }
+
+    @FunctionalInterface
+    interface Attempt {
+        /**
+         * @param retry 0 for the first attempt, then the number of the retry
+         */
+        Response send(int retry) throws InterruptedException;
+    }
+
+    static final class Response {
+        /** 0 if no response arrived. */
+        final int status;
+
+        final String body;
+        final HttpHeaders headers;
+
+        @CheckForNull
+        final String error;
+
+        final boolean retryable;
+
+        /** Whether the API certainly did not act on the request, so that even a non-idempotent one can be resent. */
+        final boolean unprocessed;
+
+        Response(
+                int status,
+                String body,
+                HttpHeaders headers,
+                @CheckForNull String error,
+                boolean retryable,
+                boolean unprocessed) {
+            this.status = status;
+            this.body = body;
+            this.headers = headers;
+            this.error = error;
+            this.retryable = retryable;
+            this.unprocessed = unprocessed;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.EnvironmentSpecific;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.NodeSpecific;
+import hudson.tools.ToolDescriptor;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolProperty;
+import hudson.util.ListBoxModel;
+import java.io.IOException;
+import java.util.List;
+import jenkins.model.Jenkins;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * A TacoTruck CLI installed on the agents, usually through {@link TacotruckInstaller}. The home directory is an npm
+ * prefix: the CLI is expected at {@code node_modules/.bin/tacotruck} below it.
+ */
+public class TacotruckInstallation extends ToolInstallation
+        implements NodeSpecific<TacotruckInstallation>, EnvironmentSpecific<TacotruckInstallation> {
+    private static final long serialVersionUID = 1L;
+
+    @DataBoundConstructor
+    public TacotruckInstallation(String name, String home, List<? extends ToolProperty<?>> properties) {
+        super(Util.fixEmptyAndTrim(name), Util.fixEmptyAndTrim(home), properties);
+    }
+
+    /**
+     * Path of the CLI on the agent {@code launcher} runs on, or {@code null} if no home directory is configured.
+     */
+    @CheckForNull
+    public String getExecutable(@NonNull Launcher launcher) {
+        String home = getHome();
+        if (home == null) {
+            return null;
+        }
+        String separator = launcher.isUnix() ? "/" : "\\";
+        String bin = home + separator + "node_modules" + separator + ".bin" + separator + "tacotruck";
+        return launcher.isUnix() ? bin : bin + ".cmd";
+    }
+
+    /**
+     * Like {@link #forNode} followed by {@link #forEnvironment}, but a {@link TacotruckInstaller} that has to install
+     * the CLI first runs npm with {@code env}, the environment of the build, rather than the agent's.
+     */
+    public TacotruckInstallation forBuild(@NonNull Node node, @NonNull EnvVars env, TaskListener log)
+            throws IOException, InterruptedException {
+        TacotruckInstaller.BUILD_ENVIRONMENT.set(env);
+        try {
+            return forNode(node, log).forEnvironment(env);
+        } finally {
+            TacotruckInstaller.BUILD_ENVIRONMENT.remove();
+        }
+    }
+
+    @Override
+    public TacotruckInstallation forNode(@NonNull Node node, TaskListener log)
+            throws IOException, InterruptedException {
+        return new TacotruckInstallation(getName(), translateFor(node, log), getProperties().toList());
+    }
+
+    @Override
+    public TacotruckInstallation forEnvironment(EnvVars environment) {
+        return new TacotruckInstallation(getName(), environment.expand(getHome()), getProperties().toList());
+    }
+
+    @CheckForNull
+    public static TacotruckInstallation get(@CheckForNull String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        for (TacotruckInstallation installation : all()) {
+            if (name.equals(installation.getName())) {
+                return installation;
+            }
+        }
+        return null;
+    }
+
+    public static TacotruckInstallation[] all() {
+        DescriptorImpl descriptor = Jenkins.get().getDescriptorByType(DescriptorImpl.class);
+        return descriptor != null ? descriptor.getInstallations() : new TacotruckInstallation[0];
+    }
+
+    /**
+     * Items for the {@code tacotruckInstallation} drop-downs of the build steps; the empty entry keeps using npx.
+     */
+    static ListBoxModel fillInstallationItems() {
+        ListBoxModel items = new ListBoxModel();
+        items.add("(npx @testfiesta/tacotruck)", "");
+        for (TacotruckInstallation installation : all()) {
+            items.add(installation.getName());
+        }
+        return items;
+    }
+
+    @Symbol("tacotruckCli")
+    @Extension
+    public static final class DescriptorImpl extends ToolDescriptor<TacotruckInstallation> {
+
+        public DescriptorImpl() {
+            load();
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "TacoTruck CLI";
+        }
+
+        @Override
+        public void setInstallations(TacotruckInstallation... installations) {
+            super.setInstallations(installations);
+            save();
+        }
+    }
+}
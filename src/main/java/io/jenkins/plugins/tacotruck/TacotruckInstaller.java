@@ -0,0 +1,370 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolInstallerDescriptor;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.FormValidation;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Installs a pinned version of {@code @testfiesta/tacotruck} into the tool cache of an agent with {@code npm}.
+ *
+ * <p>The package tarball comes from the npm registry (or the configured mirror), from a URL, or from a file already
+ * present on the agent. When a SHA-256 checksum is configured the tarball is verified before it is installed. Pinning
+ * the package alone would leave its dependencies to be resolved from the registry at install time, so the tarball has
+ * to bundle them ({@code bundleDependencies}) or ship an {@code npm-shrinkwrap.json}, the lockfile npm honours in a
+ * published package; otherwise the installation fails. A marker file records what was installed, so later builds on
+ * the same agent reuse the installation without touching the network.
+ *
+ * <p>{@code npm} runs with the environment of the build that needs the CLI when it goes through
+ * {@link TacotruckInstallation#forBuild}, so a Node.js that only the build puts on the {@code PATH} is used.
+ */
+public class TacotruckInstaller extends ToolInstaller {
+
+    private static final String MARKER = ".tacotruck-installed";
+
+    private static final String SHRINKWRAP = "npm-shrinkwrap.json";
+
+    /**
+     * Environment of the build an installation is performed for, set by {@link TacotruckInstallation#forBuild}.
+     */
+    static final ThreadLocal<EnvVars> BUILD_ENVIRONMENT = new ThreadLocal<>();
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Serializes installations into the same directory by concurrent builds on one agent.
+     */
+    private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final String version;
+    private String source;
+    private String sha256;
+    private String registry;
+
+    @DataBoundConstructor
+    public TacotruckInstaller(String label, String version) {
+        super(label);
+        this.version = Util.fixEmptyAndTrim(version);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * URL of the package tarball, or a path to it on the agent; empty to fetch {@link #getVersion()} from the
+     * registry.
+     */
+    @CheckForNull
+    public String getSource() {
+        return source;
+    }
+
+    @DataBoundSetter
+    public void setSource(String source) {
+        this.source = Util.fixEmptyAndTrim(source);
+    }
+
+    @CheckForNull
+    public String getSha256() {
+        return sha256;
+    }
+
+    @DataBoundSetter
+    public void setSha256(String sha256) {
+        String value = Util.fixEmptyAndTrim(sha256);
+        this.sha256 = value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * npm registry (or mirror) used for the package and its dependencies; empty for npm's default.
+     */
+    @CheckForNull
+    public String getRegistry() {
+        return registry;
+    }
+
+    @DataBoundSetter
+    public void setRegistry(String registry) {
+        this.registry = Util.fixEmptyAndTrim(registry);
+    }
+
+    /**
+     * Identifies what ends up in the installation directory; a different value forces a reinstall.
+     */
+    String fingerprint() {
+        return "version=" + version + "\nsource=" + Util.fixNull(source) + "\nsha256=" + Util.fixNull(sha256)
+                + "\nregistry=" + Util.fixNull(registry) + "\n";
+    }
+
+    @Override
+    public FilePath performInstallation(ToolInstallation tool, Node node, TaskListener log)
+            throws IOException, InterruptedException {
+        if (version == null) {
+            throw new AbortException("No TacoTruck CLI version configured for " + tool.getName());
+        }
+
+        FilePath home = preferredLocation(tool, node);
+        synchronized (LOCKS.computeIfAbsent(node.getNodeName() + "\u0000" + home.getRemote(), k -> new Object())) {
+            FilePath marker = home.child(MARKER);
+            if (marker.exists() && marker.readToString().equals(fingerprint())) {
+                return home;
+            }
+
+            log.getLogger()
+                    .println("Installing TacoTruck CLI " + version + " to " + home + " on " + node.getDisplayName());
+            home.deleteRecursive();
+            FilePath downloads = home.child(".download");
+            downloads.mkdirs();
+
+            Launcher launcher = node.createLauncher(log).decorateByEnv(environment(node, log));
+            String npm = npmPath(launcher, downloads);
+            FilePath tarball = fetch(node, launcher, npm, downloads, log);
+
+            String actual = tarball.act(new Sha256());
+            if (sha256 == null) {
+                log.getLogger().println("No checksum configured; " + tarball.getName() + " has SHA-256 " + actual);
+            } else if (!sha256.equals(actual)) {
+                throw new AbortException("Checksum mismatch for " + tarball.getName() + ": expected " + sha256
+                        + " but got " + actual);
+            } else {
+                log.getLogger().println("✓ Verified SHA-256 of " + tarball.getName());
+            }
+
+            FilePath unpacked = downloads.child("unpacked");
+            tarball.untar(unpacked, FilePath.TarCompression.GZIP);
+            List<String> unpinned = unpinnedDependencies(unpacked.child("package"));
+            if (!unpinned.isEmpty()) {
+                throw new AbortException("TacoTruck CLI " + version + " does not pin its dependencies " + unpinned
+                        + ", so npm would resolve them from the registry on every agent. Install a tarball that "
+                        + "bundles them (bundleDependencies) or ships an " + SHRINKWRAP + ".");
+            }
+
+            ArgumentListBuilder install = npm(npm, "install")
+                    .add("--prefix", home.getRemote())
+                    .add("--no-save", "--no-audit", "--no-fund", "--omit=dev");
+            run(launcher, home, install.add(tarball.getRemote()), log);
+
+            downloads.deleteRecursive();
+            marker.write(fingerprint(), StandardCharsets.UTF_8.name());
+            return home;
+        }
+    }
+
+    /**
+     * The build's environment when installing for a build, the agent's otherwise.
+     */
+    private static EnvVars environment(Node node, TaskListener log) throws IOException, InterruptedException {
+        EnvVars env = BUILD_ENVIRONMENT.get();
+        if (env != null) {
+            return env;
+        }
+        Computer computer = node.toComputer();
+        return computer != null ? computer.buildEnvironment(log) : new EnvVars();
+    }
+
+    /**
+     * Dependencies of the unpacked package in {@code dir} that npm would resolve from the registry when installing it:
+     * those it neither bundles nor pins in an {@code npm-shrinkwrap.json}.
+     */
+    static List<String> unpinnedDependencies(FilePath dir) throws IOException, InterruptedException {
+        FilePath manifest = dir.child("package.json");
+        if (!manifest.exists()) {
+            throw new AbortException("The TacoTruck CLI tarball is not an npm package: it has no package/package.json");
+        }
+        if (dir.child(SHRINKWRAP).exists()) {
+            return List.of();
+        }
+        JSONObject json = JSONObject.fromObject(manifest.readToString());
+        JSONObject dependencies = json.optJSONObject("dependencies");
+        Object bundled =
+                json.has("bundleDependencies") ? json.get("bundleDependencies") : json.opt("bundledDependencies");
+        if (dependencies == null || dependencies.isNullObject() || Boolean.TRUE.equals(bundled)) {
+            return List.of();
+        }
+        Set<String> unpinned = new TreeSet<>();
+        for (Object name : dependencies.keySet()) {
+            unpinned.add(name.toString());
+        }
+        if (bundled instanceof JSONArray) {
+            for (Object name : (JSONArray) bundled) {
+                unpinned.remove(name.toString());
+            }
+        }
+        return new ArrayList<>(unpinned);
+    }
+
+    /**
+     * Looks {@code npm} up on the {@code PATH} of the environment {@code launcher} runs processes with; the agent
+     * itself would resolve a bare command name against its own {@code PATH}.
+     */
+    private static String npmPath(Launcher launcher, FilePath pwd) throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArgumentListBuilder which = launcher.isUnix()
+                ? new ArgumentListBuilder("which", "npm")
+                : new ArgumentListBuilder("where", "npm.cmd");
+        int exitCode = launcher.launch()
+                .cmds(which)
+                .pwd(pwd)
+                .stdout(out)
+                .quiet(true)
+                .join();
+        String path = out.toString(StandardCharsets.UTF_8).strip();
+        if (exitCode != 0 || path.isEmpty()) {
+            throw new AbortException("Cannot install TacoTruck CLI: npm is not on the PATH");
+        }
+        return path.lines().findFirst().orElse(path).strip();
+    }
+
+    private FilePath fetch(Node node, Launcher launcher, String npm, FilePath downloads, TaskListener log)
+            throws IOException, InterruptedException {
+        if (source == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ArgumentListBuilder pack =
+                    npm(npm, "pack").add(TacotruckCLIHelper.CLI_PACKAGE + "@" + version).add("--pack-destination", ".");
+            int exitCode = launcher.launch()
+                    .cmds(pack)
+                    .pwd(downloads)
+                    .stdout(out)
+                    .stderr(log.getLogger())
+                    .quiet(true)
+                    .join();
+            if (exitCode != 0) {
+                throw new AbortException("npm pack " + TacotruckCLIHelper.CLI_PACKAGE + "@" + version
+                        + " failed with exit code " + exitCode);
+            }
+            String name = out.toString(StandardCharsets.UTF_8).strip();
+            return downloads.child(name.substring(name.lastIndexOf('\n') + 1).strip());
+        }
+
+        FilePath tarball = downloads.child("tacotruck.tgz");
+        if (source.startsWith("http://") || source.startsWith("https://")) {
+            log.getLogger().println("Downloading " + source);
+            tarball.copyFrom(URI.create(source).toURL());
+        } else {
+            FilePath local = node.createPath(source);
+            if (local == null || !local.exists()) {
+                throw new AbortException("TacoTruck CLI tarball not found on " + node.getDisplayName() + ": " + source);
+            }
+            local.copyTo(tarball);
+        }
+        return tarball;
+    }
+
+    private ArgumentListBuilder npm(String npm, String command) {
+        ArgumentListBuilder args = new ArgumentListBuilder(npm, command);
+        if (registry != null) {
+            args.add("--registry", registry);
+        }
+        return args;
+    }
+
+    private static void run(Launcher launcher, FilePath pwd, ArgumentListBuilder args, TaskListener log)
+            throws IOException, InterruptedException {
+        int exitCode = launcher.launch().cmds(args).pwd(pwd).stdout(log).join();
+        if (exitCode != 0) {
+            throw new AbortException("Failed to install TacoTruck CLI: " + args + " exited with " + exitCode);
+        }
+    }
+
+    static final class Sha256 extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String invoke(File file, VirtualChannel channel) throws IOException {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return Util.toHexString(digest.digest());
+        }
+    }
+
+    @Symbol("tacotruckNpm")
+    @Extension
+    public static final class DescriptorImpl extends ToolInstallerDescriptor<TacotruckInstaller> {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Install " + TacotruckCLIHelper.CLI_PACKAGE + " with npm";
+        }
+
+        @Override
+        public boolean isApplicable(Class<? extends ToolInstallation> toolType) {
+            return toolType == TacotruckInstallation.class;
+        }
+
+        @POST
+        public FormValidation doCheckVersion(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            if (value == null || value.isBlank()) {
+                return FormValidation.error("A pinned version is required, e.g. 1.2.3");
+            }
+            if (value.contains("^") || value.contains("~") || value.contains("*") || "latest".equals(value.trim())) {
+                return FormValidation.warning(
+                        "Ranges and tags are not pinned; every agent may install another version");
+            }
+            return FormValidation.ok();
+        }
+
+        @POST
+        public FormValidation doCheckSha256(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            if (value == null || value.isBlank()) {
+                return FormValidation.warning("Without a checksum the downloaded package is not verified");
+            }
+            if (!value.trim().matches("(?i)[0-9a-f]{64}")) {
+                return FormValidation.error("Expected 64 hexadecimal characters");
+            }
+            return FormValidation.ok();
+        }
+    }
+}
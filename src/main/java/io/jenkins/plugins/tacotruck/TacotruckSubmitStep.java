@@ -0,0 +1,423 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import hudson.util.StreamTaskListener;
+import java.io.File;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Pipeline-native variant of {@link TacotruckBuilder} that uploads on a background thread. With {@code wait: false}
+ * the step copies the results to the controller and returns a handle while the copy is uploaded; join it later with
+ * {@link TacotruckAwaitStep}, which shows the log of the upload and records its outcome on the build.
+ */
+public class TacotruckSubmitStep extends Step implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String runName;
+    private final String apiUrl;
+    private final String provider;
+    private final String handle;
+    private final String project;
+    private final String credentialsId;
+    private final String resultsPath;
+    private SubmissionEngine engine = SubmissionEngine.CLI;
+    private int batchSize = ResultParser.DEFAULT_BATCH_SIZE;
+    private int chunkSize;
+    private int uploadParallelism = ChunkedUploader.DEFAULT_PARALLELISM;
+    private boolean coalesce;
+    private boolean outbox;
+    private boolean skipUnchanged;
+    private boolean recordedResults;
+    private boolean attachments;
+    private String tacotruckInstallation;
+    private String endpoint;
+    private List<SubmissionDestination> destinations = new ArrayList<>();
+    private boolean wait = true;
+
+    @DataBoundConstructor
+    public TacotruckSubmitStep(
+            String runName,
+            String apiUrl,
+            String provider,
+            String handle,
+            String project,
+            String credentialsId,
+            String resultsPath) {
+        this.runName = runName;
+        this.apiUrl = apiUrl;
+        this.provider = provider;
+        this.handle = handle;
+        this.project = project;
+        this.credentialsId = credentialsId;
+        this.resultsPath = resultsPath;
+    }
+
+    public String getRunName() {
+        return runName;
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    public String getResultsPath() {
+        return resultsPath;
+    }
+
+    public SubmissionEngine getEngine() {
+        return engine != null ? engine : SubmissionEngine.CLI;
+    }
+
+    @DataBoundSetter
+    public void setEngine(SubmissionEngine engine) {
+        this.engine = engine;
+    }
+
+    public int getBatchSize() {
+        return batchSize > 0 ? batchSize : ResultParser.DEFAULT_BATCH_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @DataBoundSetter
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(0, chunkSize);
+    }
+
+    public int getUploadParallelism() {
+        return uploadParallelism > 0 ? uploadParallelism : ChunkedUploader.DEFAULT_PARALLELISM;
+    }
+
+    @DataBoundSetter
+    public void setUploadParallelism(int uploadParallelism) {
+        this.uploadParallelism = uploadParallelism;
+    }
+
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    @DataBoundSetter
+    public void setCoalesce(boolean coalesce) {
+        this.coalesce = coalesce;
+    }
+
+    public boolean isOutbox() {
+        return outbox;
+    }
+
+    @DataBoundSetter
+    public void setOutbox(boolean outbox) {
+        this.outbox = outbox;
+    }
+
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    @DataBoundSetter
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    public boolean isRecordedResults() {
+        return recordedResults;
+    }
+
+    @DataBoundSetter
+    public void setRecordedResults(boolean recordedResults) {
+        this.recordedResults = recordedResults;
+    }
+
+    public boolean isAttachments() {
+        return attachments;
+    }
+
+    @DataBoundSetter
+    public void setAttachments(boolean attachments) {
+        this.attachments = attachments;
+    }
+
+    public String getTacotruckInstallation() {
+        return tacotruckInstallation;
+    }
+
+    @DataBoundSetter
+    public void setTacotruckInstallation(String tacotruckInstallation) {
+        this.tacotruckInstallation = Util.fixEmptyAndTrim(tacotruckInstallation);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @DataBoundSetter
+    public void setEndpoint(String endpoint) {
+        this.endpoint = Util.fixEmptyAndTrim(endpoint);
+    }
+
+    public List<SubmissionDestination> getDestinations() {
+        return destinations != null ? Collections.unmodifiableList(destinations) : List.of();
+    }
+
+    @DataBoundSetter
+    public void setDestinations(List<SubmissionDestination> destinations) {
+        this.destinations = destinations != null ? new ArrayList<>(destinations) : new ArrayList<>();
+    }
+
+    public boolean isWait() {
+        return wait;
+    }
+
+    @DataBoundSetter
+    public void setWait(boolean wait) {
+        this.wait = wait;
+    }
+
+    TacotruckBuilder toBuilder() {
+        return toBuilder(resultsPath);
+    }
+
+    /**
+     * The builder this step runs, reading its results from {@code resultsPath} instead of the configured path.
+     */
+    TacotruckBuilder toBuilder(String resultsPath) {
+        TacotruckBuilder builder =
+                new TacotruckBuilder(runName, apiUrl, provider, handle, project, credentialsId, resultsPath);
+        builder.setEngine(getEngine());
+        builder.setBatchSize(getBatchSize());
+        builder.setChunkSize(getChunkSize());
+        builder.setUploadParallelism(getUploadParallelism());
+        builder.setCoalesce(isCoalesce());
+        builder.setOutbox(isOutbox());
+        builder.setSkipUnchanged(isSkipUnchanged());
+        builder.setRecordedResults(isRecordedResults());
+        builder.setAttachments(isAttachments());
+        builder.setTacotruckInstallation(getTacotruckInstallation());
+        builder.setEndpoint(getEndpoint());
+        builder.setDestinations(getDestinations());
+        return builder;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(this, context);
+    }
+
+    static final class Execution extends StepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final TacotruckSubmitStep step;
+        private transient PendingSubmissions.Submission upload;
+
+        Execution(TacotruckSubmitStep step, StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            StepContext context = getContext();
+            Run<?, ?> run = context.get(Run.class);
+            FilePath workspace = context.get(FilePath.class);
+            EnvVars env = context.get(EnvVars.class);
+            Launcher launcher = context.get(Launcher.class);
+            TaskListener listener = context.get(TaskListener.class);
+
+            if (!step.isWait()) {
+                if (step.getEngine() != SubmissionEngine.NATIVE) {
+                    throw new AbortException("tacotruckSubmit with wait: false uploads from the controller after the"
+                            + " workspace has been released, which needs engine: 'NATIVE'");
+                }
+                PendingSubmissions.Submission submission = new PendingSubmissions.Submission(run);
+                upload = submission.start(() -> detach(submission, run, workspace, env, listener));
+                return false;
+            }
+
+            TacotruckBuilder builder = step.toBuilder();
+            upload = new PendingSubmissions.Submission(run)
+                    .start(() -> builder.perform(run, workspace, env, launcher, listener));
+            upload.getFuture().whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    context.onFailure(failure);
+                } else {
+                    context.onSuccess(null);
+                }
+            });
+            return false;
+        }
+
+        /**
+         * Copies the results into the build directory, returns the handle so the step, and the {@code node} block
+         * around it, can complete, and then uploads the copy from the controller. The step has finished by then, so
+         * the upload logs to a file of its own and leaves its changes to the build to {@link TacotruckAwaitStep}.
+         */
+        private void detach(
+                PendingSubmissions.Submission submission,
+                Run<?, ?> run,
+                FilePath workspace,
+                EnvVars env,
+                TaskListener listener)
+                throws Exception {
+            StepContext context = getContext();
+            FilePath staging = PendingSubmissions.stagingDir(run);
+            try {
+                String stagedPath;
+                try {
+                    stagedPath =
+                            PendingSubmissions.stage(workspace, step.getResultsPath(), step.isAttachments(), staging);
+                } catch (Exception e) {
+                    context.onFailure(e);
+                    throw e;
+                }
+                String handle = PendingSubmissions.register(submission);
+                File log = PendingSubmissions.logFile(run, handle);
+                submission.logTo(log);
+                listener.getLogger()
+                        .println("TacoTruck submission continues in the background: " + handle
+                                + "; tacotruckAwait shows its log");
+                context.onSuccess(handle);
+                try (StreamTaskListener uploadListener = new StreamTaskListener(log, StandardCharsets.UTF_8)) {
+                    step.toBuilder(stagedPath)
+                            .perform(
+                                    run,
+                                    staging,
+                                    env,
+                                    new Launcher.LocalLauncher(uploadListener),
+                                    uploadListener,
+                                    submission::defer);
+                }
+            } finally {
+                staging.deleteRecursive();
+            }
+        }
+
+        @Override
+        public void stop(@NonNull Throwable cause) throws Exception {
+            if (upload != null) {
+                upload.cancel();
+            }
+            getContext().onFailure(cause);
+        }
+
+        @Override
+        public void onResume() {
+            getContext().onFailure(new AbortException("TacoTruck submission was interrupted by a Jenkins restart"));
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class, FilePath.class, EnvVars.class, Launcher.class, TaskListener.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "tacotruckSubmit";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Submit test results to TacoTruck";
+        }
+
+        public ListBoxModel doFillProviderItems() {
+            ListBoxModel items = new ListBoxModel();
+            items.add("Testfiesta", "testfiesta");
+            items.add("Testrail", "testrail");
+            return items;
+        }
+
+        @POST
+        public FormValidation doCheckBatchSize(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        @POST
+        public FormValidation doCheckChunkSize(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        @POST
+        public FormValidation doCheckUploadParallelism(@AncestorInPath Item item, @QueryParameter String value) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return FormValidation.ok();
+            }
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        public ListBoxModel doFillTacotruckInstallationItems() {
+            return TacotruckInstallation.fillInstallationItems();
+        }
+
+        @POST
+        public ListBoxModel doFillEndpointItems(
+                @AncestorInPath final Item item, @QueryParameter final String endpoint) {
+            return TacotruckGlobalConfiguration.fillEndpointItems(item, endpoint);
+        }
+
+        @POST
+        public ListBoxModel doFillCredentialsIdItems(
+                @AncestorInPath final Item item, @QueryParameter final String credentialsId) {
+            return CredentialsHelper.doFillCredentialsIdItems(item, credentialsId);
+        }
+    }
+}
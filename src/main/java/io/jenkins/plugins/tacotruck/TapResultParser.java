@@ -0,0 +1,151 @@
+package io.jenkins.plugins.tacotruck;
+
+import hudson.Extension;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams Test Anything Protocol output line by line. Every top-level {@code ok} or {@code not ok} line is a test case
+ * of a suite named after the file; {@code # SKIP} and failing {@code # TODO} tests count as skipped. The
+ * {@code message} and {@code duration_ms} of a YAML diagnostic block are used when present. Indented subtests are
+ * covered by the test line that closes them.
+ */
+@Extension
+public class TapResultParser extends ResultParser {
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern TEST = Pattern.compile(
+            "^(not )?ok\\b\\s*(\\d+)?\\s*(?:-\\s*)?(.*?)\\s*(?:#\\s*(SKIP|TODO)\\S*\\s*(.*))?$",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern PLAN = Pattern.compile("^1\\.\\.\\d+.*");
+
+    private static final Pattern YAML_FIELD = Pattern.compile("^\\s+(message|duration_ms):\\s*(.*)$");
+
+    @Override
+    public String getFormat() {
+        return "TAP";
+    }
+
+    @Override
+    public boolean accepts(String head) {
+        for (String line : head.split("\\R", 16)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            return line.startsWith("TAP version")
+                    || PLAN.matcher(line).matches()
+                    || TEST.matcher(line).matches()
+                    || line.startsWith("Bail out!");
+        }
+        return false;
+    }
+
+    @Override
+    public long parse(InputStream in, String fileName, int batchSize, TestCaseSink sink)
+            throws IOException, InterruptedException {
+        Batcher batch = new Batcher(batchSize, sink);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Test pending = null;
+        boolean inYaml = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (inYaml) {
+                if (line.trim().equals("...")) {
+                    inYaml = false;
+                } else {
+                    Matcher field = YAML_FIELD.matcher(line);
+                    if (field.matches()) {
+                        pending.diagnostic(field.group(1), field.group(2));
+                    }
+                }
+                continue;
+            }
+            if (pending != null && line.trim().equals("---") && Character.isWhitespace(line.charAt(0))) {
+                inYaml = true;
+                continue;
+            }
+            if (line.isEmpty() || Character.isWhitespace(line.charAt(0))) {
+                continue;
+            }
+            Matcher test = TEST.matcher(line);
+            if (test.matches()) {
+                if (pending != null) {
+                    batch.add(pending.build(fileName));
+                }
+                pending = new Test(test);
+            } else if (line.startsWith("Bail out!")) {
+                if (pending != null) {
+                    batch.add(pending.build(fileName));
+                    pending = null;
+                }
+                String reason = line.substring("Bail out!".length()).trim();
+                batch.add(new TestCaseRecord(
+                        fileName, null, "Bail out!", 0, TestCaseRecord.Status.ERROR, reason.isEmpty() ? null : reason));
+                break;
+            }
+        }
+        if (pending != null) {
+            batch.add(pending.build(fileName));
+        }
+        return batch.finish();
+    }
+
+    private static final class Test {
+        private final String name;
+        private final TestCaseRecord.Status status;
+        private String message;
+        private long durationMillis;
+
+        Test(Matcher test) {
+            boolean ok = test.group(1) == null;
+            String description = test.group(3);
+            String directive = test.group(4);
+            String number = test.group(2);
+            this.name = !description.isEmpty() ? description : number != null ? "test " + number : "test";
+            if ("SKIP".equalsIgnoreCase(directive) || (!ok && "TODO".equalsIgnoreCase(directive))) {
+                this.status = TestCaseRecord.Status.SKIPPED;
+                String reason = test.group(5).trim();
+                this.message = reason.isEmpty() ? null : reason;
+            } else {
+                this.status = ok ? TestCaseRecord.Status.PASSED : TestCaseRecord.Status.FAILED;
+            }
+        }
+
+        void diagnostic(String field, String value) {
+            String text = unquote(value.trim());
+            if ("duration_ms".equals(field)) {
+                try {
+                    durationMillis = Math.round(Double.parseDouble(text));
+                } catch (NumberFormatException e) {
+                    // leave the duration out
+                }
+            } else if (status == TestCaseRecord.Status.FAILED
+                    && !text.isEmpty()
+                    && !text.startsWith("|")
+                    && !text.startsWith(">")) {
+                message = text;
+            }
+        }
+
+        TestCaseRecord build(String fileName) {
+            return new TestCaseRecord(fileName, null, name, durationMillis, status, message);
+        }
+
+        private static String unquote(String value) {
+            if (value.length() < 2) {
+                return value;
+            }
+            char first = value.charAt(0);
+            if ((first == '\'' || first == '"') && value.charAt(value.length() - 1) == first) {
+                return value.substring(1, value.length() - 1);
+            }
+            return value;
+        }
+    }
+}
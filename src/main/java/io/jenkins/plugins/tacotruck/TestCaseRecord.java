@@ -0,0 +1,86 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * A single test case as uploaded to TacoTruck.
+ */
+public class TestCaseRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        PASSED,
+        FAILED,
+        ERROR,
+        SKIPPED;
+
+        public String getValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String suite;
+    private final String className;
+    private final String name;
+    private final long durationMillis;
+    private final Status status;
+    private final String message;
+
+    public TestCaseRecord(
+            @CheckForNull String suite,
+            @CheckForNull String className,
+            String name,
+            long durationMillis,
+            Status status,
+            @CheckForNull String message) {
+        this.suite = suite;
+        this.className = className;
+        this.name = name;
+        this.durationMillis = durationMillis;
+        this.status = status;
+        this.message = message;
+    }
+
+    @CheckForNull
+    public String getSuite() {
+        return suite;
+    }
+
+    @CheckForNull
+    public String getClassName() {
+        return className;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    @CheckForNull
+    public String getMessage() {
+        return message;
+    }
+
+    void writeTo(JsonWriter json) throws IOException {
+        json.beginObject()
+                .field("suite", suite)
+                .field("className", className)
+                .field("name", name)
+                .field("status", status.getValue())
+                .field("duration", durationMillis);
+        if (message != null) {
+            json.field("message", message);
+        }
+        json.endObject();
+    }
+}
@@ -0,0 +1,12 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives parsed test cases batch by batch. Batches are not reused by the producer once handed over.
+ */
+@FunctionalInterface
+public interface TestCaseSink {
+    void accept(List<TestCaseRecord> batch) throws IOException, InterruptedException;
+}
@@ -0,0 +1,30 @@
+package io.jenkins.plugins.tacotruck;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Produces the test cases of a submission batch by batch, from result files or from results Jenkins already holds.
+ */
+@FunctionalInterface
+interface TestCaseSource {
+
+    /**
+     * Feeds every test case to {@code sink}, calling it from the current thread only.
+     *
+     * @return the number of test cases read
+     */
+    long read(TestCaseSink sink) throws IOException, InterruptedException;
+
+    static TestCaseSource of(List<File> files, int batchSize) {
+        return of(files, batchSize, ResultParser.all());
+    }
+
+    /**
+     * Reads result files with {@code parsers}, which agents cannot look up themselves; see {@link ResultParser#all}.
+     */
+    static TestCaseSource of(List<File> files, int batchSize, List<ResultParser> parsers) {
+        return sink -> new ParallelResultReader(batchSize, parsers).read(files, sink);
+    }
+}
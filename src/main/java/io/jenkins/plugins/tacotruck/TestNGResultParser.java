@@ -0,0 +1,89 @@
+package io.jenkins.plugins.tacotruck;
+
+import hudson.Extension;
+import java.io.IOException;
+import java.util.Set;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams TestNG reports ({@code <testng-results>}/{@code <suite>}/{@code <test>}/{@code <class>}/{@code
+ * <test-method>}). Configuration methods such as {@code @BeforeClass} are not test cases and are left out.
+ */
+@Extension
+public class TestNGResultParser extends XmlResultParser {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String getFormat() {
+        return "TestNG XML";
+    }
+
+    @Override
+    protected Set<String> getRootElements() {
+        return Set.of("testng-results");
+    }
+
+    @Override
+    protected void read(XMLStreamReader reader, String fileName, Batcher batch)
+            throws XMLStreamException, IOException, InterruptedException {
+        String suite = null;
+        String className = null;
+        String name = null;
+        long durationMillis = 0;
+        TestCaseRecord.Status status = null;
+        String exception = null;
+        String message = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("suite".equals(element)) {
+                    suite = attribute(reader, "name", "");
+                } else if ("class".equals(element)) {
+                    className = attribute(reader, "name", null);
+                } else if ("test-method".equals(element)
+                        && !"true".equals(attribute(reader, "is-config", "false"))) {
+                    name = attribute(reader, "name", "");
+                    durationMillis = parseMillis(attribute(reader, "duration-ms", null));
+                    status = status(attribute(reader, "status", ""));
+                    exception = null;
+                    message = null;
+                } else if (name != null && "exception".equals(element)) {
+                    exception = attribute(reader, "class", null);
+                } else if (name != null && exception != null && "message".equals(element)) {
+                    message = reader.getElementText().trim();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "test-method".equals(reader.getLocalName())) {
+                if (name != null) {
+                    String detail = message != null && !message.isEmpty() ? message : exception;
+                    batch.add(new TestCaseRecord(suite, className, name, durationMillis, status, detail));
+                }
+                name = null;
+            }
+        }
+    }
+
+    private static TestCaseRecord.Status status(String status) {
+        switch (status) {
+            case "PASS":
+                return TestCaseRecord.Status.PASSED;
+            case "SKIP":
+                return TestCaseRecord.Status.SKIPPED;
+            default:
+                return TestCaseRecord.Status.FAILED;
+        }
+    }
+
+    private static long parseMillis(String millis) {
+        if (millis == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(millis.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
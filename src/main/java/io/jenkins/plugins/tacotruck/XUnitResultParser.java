@@ -0,0 +1,111 @@
+package io.jenkins.plugins.tacotruck;
+
+import hudson.Extension;
+import java.io.IOException;
+import java.util.Set;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams xUnit.net reports: version 2 ({@code <assemblies>}/{@code <assembly>}/{@code <collection>}/{@code <test>})
+ * and version 1 ({@code <assembly>}/{@code <class>}/{@code <test>}). Tests are grouped by collection or class.
+ */
+@Extension
+public class XUnitResultParser extends XmlResultParser {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String getFormat() {
+        return "xUnit.net XML";
+    }
+
+    @Override
+    protected Set<String> getRootElements() {
+        return Set.of("assemblies", "assembly");
+    }
+
+    @Override
+    protected void read(XMLStreamReader reader, String fileName, Batcher batch)
+            throws XMLStreamException, IOException, InterruptedException {
+        String assembly = null;
+        String group = null;
+        TestBuilder current = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("assembly".equals(element)) {
+                    assembly = attribute(reader, "name", fileName);
+                } else if ("collection".equals(element) || "class".equals(element)) {
+                    group = attribute(reader, "name", null);
+                } else if ("test".equals(element)) {
+                    current = new TestBuilder(
+                            group != null ? group : assembly,
+                            attribute(reader, "type", null),
+                            attribute(reader, "name", ""),
+                            secondsToMillis(attribute(reader, "time", null)),
+                            attribute(reader, "result", ""));
+                } else if (current != null && "reason".equals(element)) {
+                    current.reason = new StringBuilder();
+                } else if (current != null && current.reason == null && "message".equals(element)) {
+                    current.message = reader.getElementText().trim();
+                }
+            } else if (current != null
+                    && current.reason != null
+                    && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                current.reason.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("collection".equals(element) || "class".equals(element)) {
+                    group = null;
+                } else if (current != null && "reason".equals(element)) {
+                    current.message = current.reason.toString().trim();
+                    current.reason = null;
+                } else if (current != null && "test".equals(element)) {
+                    batch.add(current.build());
+                    current = null;
+                }
+            }
+        }
+    }
+
+    private static final class TestBuilder {
+        private final String suite;
+        private final String className;
+        private final String name;
+        private final long durationMillis;
+        private final String result;
+        private StringBuilder reason;
+        private String message;
+
+        TestBuilder(String suite, String className, String name, long durationMillis, String result) {
+            this.suite = suite;
+            this.className = className;
+            this.name = className != null && name.startsWith(className + ".")
+                    ? name.substring(className.length() + 1)
+                    : name;
+            this.durationMillis = durationMillis;
+            this.result = result;
+        }
+
+        TestCaseRecord build() {
+            TestCaseRecord.Status status;
+            switch (result) {
+                case "Pass":
+                    status = TestCaseRecord.Status.PASSED;
+                    break;
+                case "Fail":
+                    status = TestCaseRecord.Status.FAILED;
+                    break;
+                default:
+                    status = TestCaseRecord.Status.SKIPPED;
+                    break;
+            }
+            String detail = status == TestCaseRecord.Status.PASSED || message == null || message.isEmpty()
+                    ? null
+                    : message;
+            return new TestCaseRecord(suite, className, name, durationMillis, status, detail);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.jenkins.plugins.tacotruck;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Base for XML report formats: recognises a file by the name of its root element and streams it with StAX, with
+ * DTDs and external entities disabled.
+ */
+public abstract class XmlResultParser extends ResultParser {
+    private static final long serialVersionUID = 1L;
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Local names of the root elements of this format.
+     */
+    protected abstract Set<String> getRootElements();
+
+    /**
+     * Reads the test cases from {@code reader}, which is positioned at the start of the document.
+     */
+    protected abstract void read(XMLStreamReader reader, String fileName, Batcher batch)
+            throws XMLStreamException, IOException, InterruptedException;
+
+    @Override
+    public boolean accepts(String head) {
+        String root = rootElement(head);
+        return root != null && getRootElements().contains(root);
+    }
+
+    @Override
+    public long parse(InputStream in, String fileName, int batchSize, TestCaseSink sink)
+            throws IOException, InterruptedException {
+        Batcher batch = new Batcher(batchSize, sink);
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            read(reader, fileName, batch);
+            return batch.finish();
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed " + getFormat() + ": " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // ignore, the underlying stream is closed by the caller
+                }
+            }
+        }
+    }
+
+    protected static String attribute(XMLStreamReader reader, String name, String defaultValue) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * The local name of the first element in {@code head}, skipping the XML declaration, processing instructions,
+     * comments and the document type; {@code null} if {@code head} does not start like an XML document.
+     */
+    @CheckForNull
+    static String rootElement(String head) {
+        int i = 0;
+        while (true) {
+            while (i < head.length() && Character.isWhitespace(head.charAt(i))) {
+                i++;
+            }
+            if (i >= head.length() || head.charAt(i) != '<') {
+                return null;
+            }
+            if (head.startsWith("<?", i)) {
+                i = head.indexOf("?>", i);
+            } else if (head.startsWith("<!--", i)) {
+                i = head.indexOf("-->", i);
+            } else if (head.startsWith("<!", i)) {
+                int subset = head.indexOf('[', i);
+                i = head.indexOf('>', i);
+                if (subset >= 0 && i > subset) {
+                    i = head.indexOf("]>", subset);
+                }
+            } else {
+                break;
+            }
+            if (i < 0) {
+                return null;
+            }
+            i = head.indexOf('>', i) + 1;
+        }
+        int start = i + 1;
+        int end = start;
+        while (end < head.length() && !Character.isWhitespace(head.charAt(end)) && "/>".indexOf(head.charAt(end)) < 0) {
+            end++;
+        }
+        if (end == start || end == head.length()) {
+            return null;
+        }
+        String name = head.substring(start, end);
+        return name.substring(name.indexOf(':') + 1);
+    }
+}
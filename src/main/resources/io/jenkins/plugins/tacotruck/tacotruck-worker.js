@@ -0,0 +1,271 @@
+// Long-lived TacoTruck CLI worker started by the Jenkins plugin in daemon mode.
+//
+// Started through `npx -p @testfiesta/tacotruck -c "node tacotruck-worker.js"` so the CLI is on the PATH. Reads one
+// JSON request per line on stdin and answers with JSON frames, one per line, on stdout:
+//
+//   {"id": 1, "type": "ping"}                        -> {"id": 1, "ok": true, "rss": 12345, "generations": 0}
+//   {"id": 2, "type": "run", "argv": [...], "cwd": "...", "env": {...}}
+//                                                    -> {"id": 2, "type": "output", "stream": "stdout", "data": "..."}
+//                                                       (any number of them, as the CLI writes)
+//                                                    -> {"id": 2, "exitCode": 0, "rss": 12345, "generations": 0}
+//
+// The worker itself runs with the agent's environment; each run sees exactly the environment of the build that sent
+// it, which is restored afterwards.
+//
+// Each run re-evaluates only the CLI entry point; its dependencies stay in the module cache, which is what saves the
+// Node.js boot and module loading on every submission. A CommonJS entry point is dropped from the require cache
+// before it is evaluated again. An ES module entry point cannot be unloaded, so each run leaves one more copy of it in
+// the module map; "generations" counts them, and the plugin recycles the worker once there are too many.
+//
+// A run is over once the entry point has been evaluated and every handle and request it created, directly or
+// through the callbacks it scheduled, has been closed or unreferenced: the same condition under which a standalone
+// CLI process would exit.
+'use strict';
+
+const asyncHooks = require('async_hooks');
+const fs = require('fs');
+const path = require('path');
+const readline = require('readline');
+const { pathToFileURL } = require('url');
+
+const protocolOut = process.stdout.write.bind(process.stdout);
+const exitWorker = process.exit.bind(process, 0);
+
+function findEntry() {
+  const dirs = (process.env.PATH || '').split(path.delimiter);
+  for (const dir of dirs) {
+    for (const name of ['tacotruck', 'tacotruck.cmd']) {
+      const candidate = path.join(dir, name);
+      if (fs.existsSync(candidate)) {
+        return fs.realpathSync(candidate);
+      }
+    }
+  }
+  throw new Error('tacotruck executable not found on PATH');
+}
+
+const entry = findEntry();
+let generations = 0;
+
+class ExitSignal {
+  constructor(code) {
+    this.code = code;
+  }
+}
+
+function send(message) {
+  protocolOut(JSON.stringify(message) + '\n');
+}
+
+function respond(message) {
+  send(Object.assign(message, { rss: process.memoryUsage().rss, generations: generations }));
+}
+
+// Resource types that never keep a process alive on their own. An open FileHandle does not either, only the requests
+// made on it do, and it is reported destroyed only when it is garbage collected.
+const UNTRACKED = new Set(['PROMISE', 'TickObject', 'Microtask', 'FILEHANDLE']);
+
+// Handles and requests created while a run is in progress, by asyncId.
+const pending = new Map();
+let check = null;
+let rechecking = false;
+let internal = false;
+
+// Node.js delivers destroy events in batches on a later turn of the event loop, so after every callback the run makes,
+// the worker looks again on the next turn, once the resources that callback finished with have been reported.
+function recheck() {
+  if (rechecking) return;
+  rechecking = true;
+  internal = true;
+  try {
+    setImmediate(() => {
+      rechecking = false;
+      if (check) check();
+    });
+  } finally {
+    internal = false;
+  }
+}
+
+const tracker = asyncHooks.createHook({
+  init(asyncId, type, triggerAsyncId, resource) {
+    if (!internal && !UNTRACKED.has(type)) {
+      pending.set(asyncId, resource);
+    }
+  },
+  after(asyncId) {
+    if (pending.has(asyncId)) recheck();
+  },
+  destroy(asyncId) {
+    if (pending.delete(asyncId) && check) check();
+  },
+});
+
+function settled() {
+  for (const resource of pending.values()) {
+    if (!(resource && typeof resource.hasRef === 'function' && !resource.hasRef())) {
+      return false;
+    }
+  }
+  return true;
+}
+
+function whenSettled() {
+  return new Promise((resolve) => {
+    check = () => {
+      if (settled()) {
+        check = null;
+        resolve();
+      }
+    };
+    check();
+  });
+}
+
+function isModule(file) {
+  const extension = path.extname(file);
+  if (extension === '.mjs' || extension === '.cjs') {
+    return extension === '.mjs';
+  }
+  for (let dir = path.dirname(file); ; dir = path.dirname(dir)) {
+    const manifest = path.join(dir, 'package.json');
+    if (fs.existsSync(manifest)) {
+      return JSON.parse(fs.readFileSync(manifest, 'utf8')).type === 'module';
+    }
+    if (path.dirname(dir) === dir) {
+      return false;
+    }
+  }
+}
+
+const esm = isModule(entry);
+
+function load() {
+  if (esm) {
+    generations++;
+    return import(pathToFileURL(entry).href + '?run=' + generations);
+  }
+  try {
+    delete require.cache[entry];
+    require(entry);
+    return Promise.resolve();
+  } catch (error) {
+    return Promise.reject(error);
+  }
+}
+
+function capture(id, stream) {
+  return (chunk, encoding, callback) => {
+    const data = typeof chunk === 'string' ? chunk : Buffer.from(chunk).toString('utf8');
+    send({ id: id, type: 'output', stream: stream, data: data });
+    if (typeof encoding === 'function') encoding();
+    if (typeof callback === 'function') callback();
+    return true;
+  };
+}
+
+function replaceEnv(env) {
+  for (const name of Object.keys(process.env)) {
+    delete process.env[name];
+  }
+  Object.assign(process.env, env);
+}
+
+async function run(request) {
+  const originalExit = process.exit;
+  const originalStdout = process.stdout.write;
+  const originalStderr = process.stderr.write;
+  const originalArgv = process.argv;
+  const originalCwd = process.cwd();
+  const originalEnv = Object.assign({}, process.env);
+  const stderr = capture(request.id, 'stderr');
+
+  let exited;
+  const exitPromise = new Promise((resolve) => {
+    exited = resolve;
+  });
+  const fail = (reason) => {
+    if (!(reason instanceof ExitSignal)) {
+      stderr(String(reason && reason.stack ? reason.stack : reason) + '\n');
+      exited(1);
+    }
+  };
+
+  process.exitCode = undefined;
+  process.exit = (code) => {
+    exited(code === undefined ? process.exitCode || 0 : code);
+    throw new ExitSignal(code);
+  };
+  process.stdout.write = capture(request.id, 'stdout');
+  process.stderr.write = stderr;
+  process.argv = [process.argv[0], entry].concat(request.argv || []);
+  if (request.env) {
+    replaceEnv(request.env);
+  }
+  if (request.cwd) {
+    process.chdir(request.cwd);
+  }
+  process.on('unhandledRejection', fail);
+  process.on('uncaughtException', fail);
+
+  let exitCode;
+  try {
+    pending.clear();
+    tracker.enable();
+    const evaluation = load().then(
+      () => whenSettled().then(() => process.exitCode || 0),
+      (error) => {
+        fail(error);
+        return exitPromise;
+      });
+    exitCode = await Promise.race([exitPromise, evaluation]);
+  } finally {
+    tracker.disable();
+    check = null;
+    pending.clear();
+    process.removeListener('unhandledRejection', fail);
+    process.removeListener('uncaughtException', fail);
+    process.exit = originalExit;
+    process.stdout.write = originalStdout;
+    process.stderr.write = originalStderr;
+    process.argv = originalArgv;
+    replaceEnv(originalEnv);
+    process.chdir(originalCwd);
+    process.exitCode = undefined;
+  }
+  return { exitCode: Number(exitCode) || 0 };
+}
+
+const queue = [];
+let busy = false;
+
+async function drain() {
+  if (busy) return;
+  busy = true;
+  while (queue.length > 0) {
+    const request = queue.shift();
+    try {
+      if (request.type === 'ping') {
+        respond({ id: request.id, ok: true });
+      } else if (request.type === 'run') {
+        respond(Object.assign({ id: request.id }, await run(request)));
+      } else {
+        respond({ id: request.id, exitCode: 1, stderr: 'Unknown request type: ' + request.type });
+      }
+    } catch (error) {
+      respond({ id: request.id, exitCode: 1, stderr: String(error && error.stack ? error.stack : error) });
+    }
+  }
+  busy = false;
+}
+
+readline.createInterface({ input: process.stdin }).on('line', (line) => {
+  if (!line.trim()) return;
+  try {
+    queue.push(JSON.parse(line));
+  } catch (error) {
+    respond({ id: null, exitCode: 1, stderr: 'Malformed request: ' + error.message });
+    return;
+  }
+  drain();
+}).on('close', () => exitWorker());
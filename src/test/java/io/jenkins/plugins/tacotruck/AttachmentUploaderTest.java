@@ -0,0 +1,274 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AttachmentUploaderTest {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final AtomicInteger ids = new AtomicInteger();
+    private final Map<String, String> metadata = new ConcurrentHashMap<>();
+    private final Map<String, ByteArrayOutputStream> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger interrupted = new AtomicInteger();
+    private final AtomicInteger stalled = new AtomicInteger();
+    private volatile long stallMillis;
+    private volatile String location;
+    private long requestBytes;
+    private long retryBackoff;
+    private long requestTimeout;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        requestBytes = AttachmentUploader.REQUEST_BYTES;
+        retryBackoff = AttachmentUploader.RETRY_BACKOFF_MILLIS;
+        requestTimeout = NativeSubmitter.REQUEST_TIMEOUT_SECONDS;
+        AttachmentUploader.REQUEST_BYTES = 100_000;
+        AttachmentUploader.RETRY_BACKOFF_MILLIS = 1;
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        executor.shutdownNow();
+        AttachmentUploader.REQUEST_BYTES = requestBytes;
+        AttachmentUploader.RETRY_BACKOFF_MILLIS = retryBackoff;
+        NativeSubmitter.REQUEST_TIMEOUT_SECONDS = requestTimeout;
+    }
+
+    /**
+     * A tus server that keeps only half of the second request of {@code video.bin} and then fails, like a connection
+     * dropped mid-request. With {@link #stallMillis} set, it first leaves that request unanswered for as long.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            int status;
+            if (method.equals("POST") && path.equals("/v1/org/projects/proj/attachments")) {
+                String id = Integer.toString(ids.incrementAndGet());
+                metadata.put(id, exchange.getRequestHeaders().getFirst("Upload-Metadata"));
+                uploads.put(id, new ByteArrayOutputStream());
+                exchange.getResponseHeaders().add("Location", location != null ? location : "attachments/" + id);
+                status = 201;
+            } else if (path.startsWith("/v1/org/projects/proj/attachments/")
+                    && method.equals("PATCH")
+                    && body.length == 100_000
+                    && "100000".equals(exchange.getRequestHeaders().getFirst("Upload-Offset"))
+                    && stallMillis > 0
+                    && stalled.getAndIncrement() == 0) {
+                sleep(stallMillis);
+                status = 500;
+            } else if (path.startsWith("/v1/org/projects/proj/attachments/")) {
+                ByteArrayOutputStream upload = uploads.get(path.substring(path.lastIndexOf('/') + 1));
+                synchronized (upload) {
+                    if (method.equals("HEAD")) {
+                        status = 200;
+                    } else if (Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Offset"))
+                            != upload.size()) {
+                        status = 409;
+                    } else if (body.length == 100_000
+                            && upload.size() == 100_000
+                            && interrupted.getAndIncrement() == 0) {
+                        upload.write(body, 0, body.length / 2);
+                        status = 500;
+                    } else {
+                        upload.write(body);
+                        status = 204;
+                    }
+                    exchange.getResponseHeaders().add("Upload-Offset", Integer.toString(upload.size()));
+                }
+            } else {
+                status = 404;
+            }
+            exchange.sendResponseHeaders(status, -1);
+        }
+    }
+
+    private SubmissionTarget target() {
+        return new SubmissionTarget(
+                "testfiesta",
+                "proj",
+                "token",
+                "org",
+                "Attachments",
+                "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    private Path workspace() throws IOException {
+        Path workspace = dir.resolve("ws");
+        Files.createDirectories(workspace.resolve("reports"));
+        Files.createDirectories(workspace.resolve("logs"));
+        Files.writeString(dir.resolve("outside.txt"), "secret");
+        Files.writeString(workspace.resolve("logs/app.log"), "log line\n");
+        Files.writeString(
+                workspace.resolve("reports/TEST-cart.xml"),
+                "<testsuite name=\"Cart\">\n"
+                        + "  <testcase classname=\"shop.CartTest\" name=\"adds\">\n"
+                        + "    <properties><property name=\"attachment\" value=\"logs/app.log\"/></properties>\n"
+                        + "  </testcase>\n"
+                        + "  <testcase classname=\"shop.CartTest\" name=\"removes\">\n"
+                        + "    <failure message=\"boom\"/>\n"
+                        + "    <system-out>before\n[[ATTACHMENT|video.bin]]\n"
+                        + "[[ATTACHMENT|../../outside.txt]]\nafter</system-out>\n"
+                        + "    <system-err>[[ATTACHMENT|" + workspace.resolve("logs/app.log") + "]]</system-err>\n"
+                        + "  </testcase>\n"
+                        + "</testsuite>\n");
+        return workspace;
+    }
+
+    @Test
+    void findsAttachmentsInsideTheWorkspace() throws Exception {
+        Path workspace = workspace();
+        Files.write(workspace.resolve("reports/video.bin"), new byte[10]);
+
+        List<ResultAttachments.Attachment> found = ResultAttachments.find(
+                workspace.toFile(), List.of(workspace.resolve("reports/TEST-cart.xml").toFile()));
+
+        assertEquals(2, found.size());
+        assertEquals("shop.CartTest.adds", found.get(0).getTest());
+        assertEquals("app.log", found.get(0).getFile().getName());
+        assertEquals("shop.CartTest.removes", found.get(1).getTest());
+        assertEquals("video.bin", found.get(1).getFile().getName());
+    }
+
+    @Test
+    void streamsAttachmentsAndResumesAtTheAcknowledgedOffset() throws Exception {
+        Path workspace = workspace();
+        byte[] video = new byte[350_000];
+        new Random(42).nextBytes(video);
+        Files.write(workspace.resolve("reports/video.bin"), video);
+
+        CLIResult result =
+                new AttachmentUploader.Callable(target(), "run-1", "reports/*.xml", 2).invoke(workspace.toFile(), null);
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("Uploaded 2 of 2 attachment(s), 350009 bytes (1 resumed).", result.getOutput());
+        assertEquals(350_009, result.getBytesSent());
+        assertEquals(2, uploads.size());
+        String videoId = null;
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            if (entry.getValue().contains("filename " + base64("video.bin"))) {
+                videoId = entry.getKey();
+                assertTrue(entry.getValue().contains("test " + base64("shop.CartTest.removes")), entry.getValue());
+                assertTrue(entry.getValue().contains("run " + base64("Attachments")), entry.getValue());
+                assertTrue(entry.getValue().contains("runId " + base64("run-1")), entry.getValue());
+            }
+        }
+        assertArrayEquals(video, uploads.get(videoId).toByteArray());
+        assertEquals(1, interrupted.get());
+    }
+
+    @Test
+    void reportsAttachmentsThatCannotBeUploaded() throws Exception {
+        int maxAttempts = AttachmentUploader.MAX_ATTEMPTS;
+        AttachmentUploader.MAX_ATTEMPTS = 1;
+        try {
+            Path workspace = workspace();
+            Files.write(workspace.resolve("reports/video.bin"), new byte[250_000]);
+
+            CLIResult result = new AttachmentUploader.Callable(target(), null, "reports/*.xml", 2)
+                    .invoke(workspace.toFile(), null);
+
+            assertFalse(result.isSuccess());
+            assertEquals(
+                    "Failed to upload video.bin at byte 100000: TacoTruck API responded with HTTP 500",
+                    result.getErrorMessage());
+            assertTrue(result.getOutput().startsWith("Uploaded 1 of 2 attachment(s)"), result.getOutput());
+        } finally {
+            AttachmentUploader.MAX_ATTEMPTS = maxAttempts;
+        }
+    }
+
+    @Test
+    void keepsTheTokenOnTheOriginOfTheApi() throws Exception {
+        location = "http://uploads.example.com/attachments/1";
+        Path workspace = workspace();
+        Files.write(workspace.resolve("reports/video.bin"), new byte[10]);
+
+        CLIResult result =
+                new AttachmentUploader.Callable(target(), null, "reports/*.xml", 1).invoke(workspace.toFile(), null);
+
+        assertFalse(result.isSuccess());
+        assertTrue(
+                result.getErrorMessage()
+                        .startsWith("TacoTruck API returned an upload location for app.log on another origin"),
+                result.getErrorMessage());
+        for (ByteArrayOutputStream upload : uploads.values()) {
+            assertEquals(0, upload.size());
+        }
+    }
+
+    @Test
+    void resumesAfterARequestTimesOut() throws Exception {
+        NativeSubmitter.REQUEST_TIMEOUT_SECONDS = 1;
+        stallMillis = TimeUnit.SECONDS.toMillis(30);
+        interrupted.set(1);
+        Path workspace = workspace();
+        byte[] video = new byte[250_000];
+        new Random(7).nextBytes(video);
+        Files.write(workspace.resolve("reports/video.bin"), video);
+
+        long start = System.nanoTime();
+        CLIResult result =
+                new AttachmentUploader.Callable(target(), null, "reports/*.xml", 2).invoke(workspace.toFile(), null);
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("Uploaded 2 of 2 attachment(s), 250009 bytes (1 resumed).", result.getOutput());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(15), "the stalled request should time out");
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            if (entry.getValue().contains("filename " + base64("video.bin"))) {
+                assertArrayEquals(video, uploads.get(entry.getKey()).toByteArray());
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,67 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CLIOutputStreamTest {
+
+    @Test
+    void masksSecretsInEchoedLinesAndTail() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        CLIOutputStream.Tail tail = new CLIOutputStream.Tail();
+        try (PrintStream logger = new PrintStream(log, true, StandardCharsets.UTF_8);
+                CLIOutputStream out = new CLIOutputStream(logger, "", List.of("s3cr3t"), tail)) {
+            out.write("uploading with token s3cr3t\nno newline at end".getBytes(StandardCharsets.UTF_8));
+        }
+
+        String echoed = log.toString(StandardCharsets.UTF_8);
+        assertFalse(echoed.contains("s3cr3t"));
+        assertTrue(echoed.contains("uploading with token ***"));
+        assertTrue(echoed.contains("no newline at end"));
+        assertEquals("uploading with token ***\nno newline at end", tail.toString());
+    }
+
+    @Test
+    void keepsOnlyBoundedTail() {
+        CLIOutputStream.Tail tail = new CLIOutputStream.Tail(3, 1024);
+        for (int i = 0; i < 10; i++) {
+            tail.add("line " + i);
+        }
+        assertEquals("line 7\nline 8\nline 9", tail.toString());
+        assertTrue(tail.isTruncated());
+
+        CLIOutputStream.Tail byChars = new CLIOutputStream.Tail(100, 10);
+        byChars.add("aaaaaa");
+        byChars.add("bbbbbb");
+        assertEquals("bbbbbb", byChars.toString());
+    }
+
+    @Test
+    void cutsLinesLongerThanTheTail() {
+        CLIOutputStream.Tail tail = new CLIOutputStream.Tail(100, 10);
+        tail.add("0123456789abcdefghij".repeat(1000));
+
+        assertEquals("0123456789 [19990 more characters]", tail.toString());
+        assertTrue(tail.isTruncated());
+
+        tail.add("next");
+        assertEquals("next", tail.toString());
+    }
+
+    @Test
+    void masksTokenInLoggedCommand() {
+        String[] command = {
+            "npx", "@testfiesta/tacotruck", "testfiesta", "run:submit", "--token", "abc", "--data", "x"
+        };
+        assertEquals(
+                "npx @testfiesta/tacotruck testfiesta run:submit --token *** --data x",
+                TacotruckCLIHelper.maskCommand(command));
+    }
+}
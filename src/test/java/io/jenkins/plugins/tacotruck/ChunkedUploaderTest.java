@@ -0,0 +1,231 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChunkedUploaderTest {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final Map<String, String> chunks = new ConcurrentHashMap<>();
+    private final AtomicInteger chunkOneAttempts = new AtomicInteger();
+    private final AtomicReference<String> commit = new AtomicReference<>();
+    private final AtomicInteger commitAttempts = new AtomicInteger();
+    private final AtomicInteger deletes = new AtomicInteger();
+    private volatile int commitStatus = 200;
+    private volatile long chunkOneDelayMillis;
+    private long retryBackoff;
+    private long requestTimeout;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        retryBackoff = ChunkedUploader.RETRY_BACKOFF_MILLIS;
+        requestTimeout = NativeSubmitter.REQUEST_TIMEOUT_SECONDS;
+        ChunkedUploader.RETRY_BACKOFF_MILLIS = 1;
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        executor.shutdownNow();
+        ChunkedUploader.RETRY_BACKOFF_MILLIS = retryBackoff;
+        NativeSubmitter.REQUEST_TIMEOUT_SECONDS = requestTimeout;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            String path = exchange.getRequestURI().getPath();
+            int status = 200;
+            String response = "{}";
+            if (path.equals("/v1/org/projects/proj/runs")) {
+                status = 201;
+                response = "{\"id\":\"run-1\"}";
+            } else if (path.startsWith("/v1/org/projects/proj/runs/run-1/chunks/")) {
+                String index = path.substring(path.lastIndexOf('/') + 1);
+                if (index.equals("1") && chunkOneAttempts.getAndIncrement() == 0) {
+                    if (chunkOneDelayMillis > 0) {
+                        sleep(chunkOneDelayMillis);
+                    } else {
+                        status = 503;
+                    }
+                } else {
+                    chunks.put(index, body);
+                }
+            } else if (path.equals("/v1/org/projects/proj/runs/run-1/commit")) {
+                commitAttempts.incrementAndGet();
+                status = commitStatus;
+                if (status == 200) {
+                    commit.set(body);
+                    response = "{\"url\":\"https://app.example.com/runs/run-1\"}";
+                }
+            } else if (path.equals("/v1/org/projects/proj/runs/run-1")
+                    && exchange.getRequestMethod().equals("DELETE")) {
+                deletes.incrementAndGet();
+                status = 204;
+            } else {
+                status = 404;
+            }
+            byte[] bytes = status == 204 ? new byte[0] : response.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, status == 204 ? -1 : bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private File report(String name, int testCases) throws IOException {
+        StringBuilder xml = new StringBuilder("<testsuite name=\"" + name + "\">");
+        for (int i = 0; i < testCases; i++) {
+            xml.append("<testcase classname=\"").append(name).append("\" name=\"t").append(i).append("\"/>");
+        }
+        Path file = dir.resolve(name + ".xml");
+        Files.writeString(file, xml.append("</testsuite>").toString());
+        return file.toFile();
+    }
+
+    private SubmissionTarget target() {
+        return new SubmissionTarget(
+                "testfiesta", "proj", "token", "org", "Chunked", "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @Test
+    void uploadsChunksConcurrentlyRetriesFailedChunkAndCommits() throws Exception {
+        List<File> files = List.of(report("A", 25), report("B", 20));
+
+        CLIResult result = new ChunkedUploader(target(), 10, 3).upload(TestCaseSource.of(files, 7), "2 file(s)");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(5, chunks.size());
+        assertEquals(2, chunkOneAttempts.get());
+        int testCases = 0;
+        for (String chunk : chunks.values()) {
+            testCases += chunk.split("\"status\"").length - 1;
+        }
+        assertEquals(45, testCases);
+        assertEquals("{\"chunks\":5,\"testCases\":45}", commit.get());
+        assertTrue(result.getOutput().contains("in 5 chunk(s) (1 retried)"), result.getOutput());
+        assertTrue(result.getBytesSent() > 0);
+    }
+
+    @Test
+    void doesNotCommitWhenChunkKeepsFailing() throws Exception {
+        int maxAttempts = ChunkedUploader.MAX_ATTEMPTS;
+        ChunkedUploader.MAX_ATTEMPTS = 1;
+        try {
+            TestCaseSource source = TestCaseSource.of(List.of(report("A", 30)), 5);
+            CLIResult result = new ChunkedUploader(target(), 10, 2).upload(source, "1 file(s)");
+
+            assertFalse(result.isSuccess());
+            assertEquals(
+                    "Failed to upload chunk 1: TacoTruck API responded with HTTP 503; deleted the incomplete run run-1",
+                    result.getErrorMessage());
+            assertNull(commit.get());
+            assertEquals(1, deletes.get());
+        } finally {
+            ChunkedUploader.MAX_ATTEMPTS = maxAttempts;
+        }
+    }
+
+    @Test
+    void retriesChunksThatTimeOut() throws Exception {
+        NativeSubmitter.REQUEST_TIMEOUT_SECONDS = 1;
+        chunkOneDelayMillis = 3000;
+
+        CLIResult result = new ChunkedUploader(target(), 10, 2)
+                .upload(TestCaseSource.of(List.of(report("A", 30)), 5), "1 file(s)");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(2, chunkOneAttempts.get());
+        assertEquals(3, chunks.size());
+        assertTrue(result.getOutput().contains("in 3 chunk(s) (1 retried)"), result.getOutput());
+    }
+
+    @Test
+    void doesNotResendTheCommit() throws Exception {
+        commitStatus = 503;
+
+        CLIResult result = new ChunkedUploader(target(), 10, 2)
+                .upload(TestCaseSource.of(List.of(report("A", 30)), 5), "1 file(s)");
+
+        assertFalse(result.isSuccess());
+        assertEquals(
+                "Failed to commit TacoTruck run run-1: TacoTruck API responded with HTTP 503",
+                result.getErrorMessage());
+        assertEquals(1, commitAttempts.get());
+        assertEquals(0, deletes.get());
+    }
+
+    @Test
+    void deletesTheRunWhenTheParserFails() throws Exception {
+        TestCaseSource source = sink -> {
+            throw new IllegalStateException("parser bug");
+        };
+
+        ChunkedUploader uploader = new ChunkedUploader(target(), 10, 2);
+        assertThrows(IllegalStateException.class, () -> uploader.upload(source, "1 file(s)"));
+
+        assertEquals(1, deletes.get());
+        assertNull(commit.get());
+    }
+
+    @Test
+    void deletesTheRunWhenInterrupted() throws Exception {
+        TestCaseSource source = sink -> {
+            Thread.currentThread().interrupt();
+            throw new InterruptedException();
+        };
+
+        ChunkedUploader uploader = new ChunkedUploader(target(), 10, 2);
+        assertThrows(InterruptedException.class, () -> uploader.upload(source, "1 file(s)"));
+
+        assertTrue(Thread.interrupted());
+        assertEquals(1, deletes.get());
+        assertNull(commit.get());
+    }
+}
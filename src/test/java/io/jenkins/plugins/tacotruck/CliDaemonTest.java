@@ -0,0 +1,134 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class CliDaemonTest {
+
+    /**
+     * Stands in for the CLI: prints the token of the build's environment, then finishes from a timer, or once the
+     * test creates {@code release} in the workspace.
+     */
+    private static final String CLI = "const fs = require('fs');\n"
+            + "const args = process.argv.slice(2);\n"
+            + "if (args[0] === 'fail') { console.error('bad token'); process.exit(3); }\n"
+            + "console.log('token ' + process.env.TACOTRUCK_TEST_TOKEN);\n"
+            + "if (args[0] === 'wait') {\n"
+            + "  const poll = setInterval(() => {\n"
+            + "    if (fs.existsSync('release')) { clearInterval(poll); console.log('released'); }\n"
+            + "  }, 20);\n"
+            + "} else {\n"
+            + "  setTimeout(() => console.log('done ' + args.join(' ')), 100);\n"
+            + "}\n";
+
+    @TempDir
+    Path dir;
+
+    private File cli;
+    private FilePath workspace;
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void createCli() throws IOException {
+        assumeTrue(onPath("node"), "Node.js is not installed");
+        cli = Files.writeString(Files.createDirectories(dir.resolve("bin")).resolve("tacotruck"), CLI)
+                .toFile();
+        workspace = new FilePath(Files.createDirectories(dir.resolve("ws")).toFile());
+    }
+
+    @AfterEach
+    void stopWorkers() {
+        CliDaemon.stopAll();
+        executor.shutdownNow();
+    }
+
+    private static boolean onPath(String executable) {
+        for (String entry : System.getenv("PATH").split(File.pathSeparator)) {
+            if (new File(entry, executable).canExecute()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CLIResult execute(String token, String... argv) throws Exception {
+        String[] command = new String[argv.length + 1];
+        command[0] = cli.getAbsolutePath();
+        System.arraycopy(argv, 0, command, 1, argv.length);
+        EnvVars env = new EnvVars("PATH", System.getenv("PATH"), "TACOTRUCK_TEST_TOKEN", token);
+        return CliDaemon.execute(
+                command, 1, new StreamTaskListener(log, StandardCharsets.UTF_8), workspace, env, true);
+    }
+
+    private String log() {
+        return log.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void runsEachRequestWithTheEnvironmentOfItsBuild(JenkinsRule jenkins) throws Exception {
+        CLIResult first = execute("first", "submit", "--token", "secret-token");
+        CLIResult second = execute("second", "submit");
+
+        assertNotNull(first);
+        assertTrue(first.isSuccess(), first.getErrorMessage());
+        assertEquals("token first\ndone submit --token ***", first.getOutput());
+        assertNotNull(second);
+        assertTrue(second.isSuccess(), second.getErrorMessage());
+        assertEquals("token second\ndone submit", second.getOutput());
+        assertEquals(1, CliDaemon.getRunningCount());
+        assertFalse(log().contains("secret-token"), log());
+    }
+
+    @Test
+    void streamsOutputWhileTheCliRuns(JenkinsRule jenkins) throws Exception {
+        Future<CLIResult> running = executor.submit(() -> execute("first", "wait"));
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (!log().contains("token first") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(log().contains("token first"), log());
+        assertFalse(running.isDone());
+
+        workspace.child("release").write("", "UTF-8");
+        CLIResult result = running.get(30, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("token first\nreleased", result.getOutput());
+    }
+
+    @Test
+    void reportsTheExitCodeAndErrorOutput(JenkinsRule jenkins) throws Exception {
+        CLIResult result = execute("first", "fail");
+
+        assertNotNull(result);
+        assertFalse(result.isSuccess());
+        assertEquals(3, result.getExitCode());
+        assertEquals("bad token", result.getErrorMessage());
+        assertTrue(log().contains("[stderr] bad token"), log());
+    }
+}
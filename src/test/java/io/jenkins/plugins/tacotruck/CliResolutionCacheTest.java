@@ -0,0 +1,118 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import hudson.AbortException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CliResolutionCacheTest {
+
+    @AfterEach
+    void clear() {
+        CliResolutionCache.invalidateAll();
+    }
+
+    @Test
+    void cachesCompleteResolutionPerNodeAndPath() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        CliResolutionCache.Probe probe = () -> {
+            probes.incrementAndGet();
+            return new CliResolutionCache.Resolution("/usr/bin/npx", "1.0.0");
+        };
+
+        CliResolutionCache.resolve("agent-1", Map.of("PATH", "/usr/bin"), probe);
+        CliResolutionCache.resolve("agent-1", Map.of("PATH", "/usr/bin", "HOME", "/tmp"), probe);
+        assertEquals(1, probes.get());
+
+        CliResolutionCache.resolve("agent-1", Map.of("PATH", "/opt/node/bin"), probe);
+        CliResolutionCache.resolve("agent-2", Map.of("PATH", "/usr/bin"), probe);
+        assertEquals(3, probes.get());
+
+        CliResolutionCache.invalidate("agent-1");
+        CliResolutionCache.resolve("agent-1", Map.of("PATH", "/usr/bin"), probe);
+        assertEquals(4, probes.get());
+    }
+
+    @Test
+    void doesNotKeepIncompleteResolutions() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        CliResolutionCache.Probe probe = () -> {
+            probes.incrementAndGet();
+            return new CliResolutionCache.Resolution(null, null);
+        };
+
+        assertNull(CliResolutionCache.resolve("agent", null, probe).getNpxPath());
+        assertNull(CliResolutionCache.resolve("agent", null, probe).getNpxPath());
+        assertEquals(2, probes.get());
+        assertEquals(0, CliResolutionCache.size());
+    }
+
+    @Test
+    void doesNotKeepFailedProbes() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        CliResolutionCache.Probe probe = () -> {
+            probes.incrementAndGet();
+            throw new AbortException("npx not found on PATH");
+        };
+
+        assertThrows(AbortException.class, () -> CliResolutionCache.resolve("agent", null, probe));
+        assertThrows(AbortException.class, () -> CliResolutionCache.resolve("agent", null, probe));
+        assertEquals(2, probes.get());
+        assertEquals(0, CliResolutionCache.size());
+    }
+
+    @Test
+    void expiresAfterTtl() throws Exception {
+        long ttl = CliResolutionCache.TTL_MILLIS;
+        CliResolutionCache.TTL_MILLIS = -1;
+        try {
+            AtomicInteger probes = new AtomicInteger();
+            CliResolutionCache.Probe probe = () -> {
+                probes.incrementAndGet();
+                return new CliResolutionCache.Resolution("npx", "1.0.0");
+            };
+            CliResolutionCache.resolve("agent", null, probe);
+            CliResolutionCache.resolve("agent", null, probe);
+            assertEquals(2, probes.get());
+        } finally {
+            CliResolutionCache.TTL_MILLIS = ttl;
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneProbe() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CliResolutionCache.Probe probe = () -> {
+            probes.incrementAndGet();
+            release.await();
+            return new CliResolutionCache.Resolution("npx", "1.0.0");
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = pool.submit(() -> CliResolutionCache.resolve("agent", null, probe));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, probes.get());
+    }
+}
@@ -0,0 +1,72 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.User;
+import hudson.util.Secret;
+import jenkins.model.Jenkins;
+import jenkins.security.QueueItemAuthenticatorConfiguration;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.MockQueueItemAuthenticator;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class CredentialsHelperTest {
+
+    @Test
+    void resolvesTokensForTheBuild(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+        SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+
+        store.getCredentials().add(token("tacotruck-token", "first"));
+        store.save();
+        assertEquals("first", TacotruckCLIHelper.getApiToken("tacotruck-token"));
+        assertEquals("first", TacotruckCLIHelper.getApiToken("tacotruck-token", build));
+
+        store.getCredentials().clear();
+        store.getCredentials().add(token("tacotruck-token", "second"));
+        store.save();
+        assertEquals("second", TacotruckCLIHelper.getApiToken("tacotruck-token"));
+        assertEquals("second", TacotruckCLIHelper.getApiToken("tacotruck-token", build));
+
+        assertNull(TacotruckCLIHelper.getApiToken("missing", build));
+    }
+
+    @Test
+    void resolvesTokensAsTheBuildRunsAs(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+        SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials().add(token("tacotruck-token", "first"));
+        store.save();
+        assertEquals("first", TacotruckCLIHelper.getApiToken("tacotruck-token", build));
+
+        jenkins.jenkins.setSecurityRealm(jenkins.createDummySecurityRealm());
+        MockAuthorizationStrategy authorization =
+                new MockAuthorizationStrategy().grant(Jenkins.READ, Item.READ).everywhere().to("bob");
+        jenkins.jenkins.setAuthorizationStrategy(authorization);
+        QueueItemAuthenticatorConfiguration.get()
+                .getAuthenticators()
+                .add(new MockQueueItemAuthenticator()
+                        .authenticate(project.getFullName(), User.getById("bob", true).impersonate2()));
+        assertNull(TacotruckCLIHelper.getApiToken("tacotruck-token", build));
+
+        authorization.grant(CredentialsProvider.USE_ITEM).everywhere().to("bob");
+        assertEquals("first", TacotruckCLIHelper.getApiToken("tacotruck-token", build));
+    }
+
+    private static StringCredentialsImpl token(String id, String secret) {
+        return new StringCredentialsImpl(CredentialsScope.GLOBAL, id, "TacoTruck API token", Secret.fromString(secret));
+    }
+}
@@ -0,0 +1,87 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JUnitResultParserTest {
+
+    private static final String REPORT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<testsuites>\n"
+            + "  <testsuite name=\"CalculatorTest\" tests=\"4\">\n"
+            + "    <testcase classname=\"com.example.CalculatorTest\" name=\"adds\" time=\"0.012\"/>\n"
+            + "    <testcase classname=\"com.example.CalculatorTest\" name=\"divides\" time=\"1,250.5\">\n"
+            + "      <failure message=\"expected 2\">stack</failure>\n"
+            + "    </testcase>\n"
+            + "    <testcase classname=\"com.example.CalculatorTest\" name=\"overflows\">\n"
+            + "      <error message=\"boom\"/>\n"
+            + "    </testcase>\n"
+            + "    <testcase classname=\"com.example.CalculatorTest\" name=\"later\"><skipped/></testcase>\n"
+            + "  </testsuite>\n"
+            + "</testsuites>\n";
+
+    @Test
+    void parsesTestCasesInBatches() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        List<TestCaseRecord> records = new ArrayList<>();
+
+        long count = new JUnitResultParser().parse(stream(REPORT), 3, batch -> {
+            batchSizes.add(batch.size());
+            records.addAll(batch);
+        });
+
+        assertEquals(4, count);
+        assertEquals(List.of(3, 1), batchSizes);
+
+        assertEquals("CalculatorTest", records.get(0).getSuite());
+        assertEquals("com.example.CalculatorTest", records.get(0).getClassName());
+        assertEquals(12, records.get(0).getDurationMillis());
+        assertEquals(TestCaseRecord.Status.PASSED, records.get(0).getStatus());
+        assertNull(records.get(0).getMessage());
+
+        assertEquals(1250500, records.get(1).getDurationMillis());
+        assertEquals(TestCaseRecord.Status.FAILED, records.get(1).getStatus());
+        assertEquals("expected 2", records.get(1).getMessage());
+
+        assertEquals(TestCaseRecord.Status.ERROR, records.get(2).getStatus());
+        assertEquals(TestCaseRecord.Status.SKIPPED, records.get(3).getStatus());
+    }
+
+    @Test
+    void attributesTestCasesToTheirInnermostSuite() throws Exception {
+        String xml = "<testsuites><testsuite name=\"outer\">"
+                + "<testsuite name=\"inner\"><testcase name=\"a\" time=\"\"/></testsuite>"
+                + "<testcase name=\"b\"><skipped message=\"later\"/><failure message=\"ignored\"/></testcase>"
+                + "</testsuite></testsuites>";
+        List<TestCaseRecord> records = new ArrayList<>();
+
+        new JUnitResultParser().parse(stream(xml), 10, records::addAll);
+
+        assertEquals(2, records.size());
+        assertEquals("inner", records.get(0).getSuite());
+        assertNull(records.get(0).getClassName());
+        assertEquals(0, records.get(0).getDurationMillis());
+        assertEquals("outer", records.get(1).getSuite());
+        assertEquals(TestCaseRecord.Status.SKIPPED, records.get(1).getStatus());
+        assertEquals("later", records.get(1).getMessage());
+    }
+
+    @Test
+    void rejectsExternalEntities() {
+        String xml = "<?xml version=\"1.0\"?><!DOCTYPE x [<!ENTITY e SYSTEM \"file:///etc/passwd\">]>"
+                + "<testsuite><testcase name=\"&e;\"/></testsuite>";
+        assertThrows(IOException.class, () -> new JUnitResultParser().parse(stream(xml), 10, batch -> {}));
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,146 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import hudson.PluginWrapper;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class JUnitTestResultsTest {
+
+    private static final String REPORT = "<testsuite name=\"Cart\">"
+            + "<testcase classname=\"shop.CartTest\" name=\"adds\" time=\"0.25\"/>"
+            + "<testcase classname=\"shop.CartTest\" name=\"removes\" time=\"1.5\">"
+            + "<failure message=\"expected 1 but was 2\">at shop.CartTest.removes</failure></testcase>"
+            + "<testcase classname=\"shop.CartTest\" name=\"totals\" time=\"0.01\">"
+            + "<error message=\"NullPointerException\">at shop.Cart.total</error></testcase>"
+            + "<testcase classname=\"shop.CartTest\" name=\"discounts\"><skipped message=\"not yet\"/></testcase>"
+            + "</testsuite>";
+
+    private static WorkflowRun recorded(JenkinsRule jenkins) throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition(
+                "node {\n"
+                        + "  writeFile file: 'reports/TEST-cart.xml', text: '" + REPORT + "'\n"
+                        + "  junit 'reports/*.xml'\n"
+                        + "}\n",
+                true));
+        return jenkins.buildAndAssertStatus(Result.UNSTABLE, job);
+    }
+
+    @Test
+    void mapsRecordedCasesInBatches(JenkinsRule jenkins) throws Exception {
+        WorkflowRun run = recorded(jenkins);
+
+        TestCaseSource source = JUnitTestResults.forRun(run, 3);
+        assertNotNull(source);
+        List<Integer> batches = new ArrayList<>();
+        List<TestCaseRecord> records = new ArrayList<>();
+        long count = source.read(batch -> {
+            batches.add(batch.size());
+            records.addAll(batch);
+        });
+
+        assertEquals(4, count);
+        assertEquals(List.of(3, 1), batches);
+
+        TestCaseRecord passed = records.get(0);
+        assertEquals("Cart", passed.getSuite());
+        assertEquals("shop.CartTest", passed.getClassName());
+        assertEquals("adds", passed.getName());
+        assertEquals(TestCaseRecord.Status.PASSED, passed.getStatus());
+        assertEquals(250, passed.getDurationMillis());
+        assertNull(passed.getMessage());
+
+        TestCaseRecord failed = records.get(1);
+        assertEquals(TestCaseRecord.Status.FAILED, failed.getStatus());
+        assertEquals(1500, failed.getDurationMillis());
+        assertEquals("expected 1 but was 2", failed.getMessage());
+
+        // the junit plugin does not tell errors from failures
+        TestCaseRecord errored = records.get(2);
+        assertEquals(TestCaseRecord.Status.FAILED, errored.getStatus());
+        assertEquals(10, errored.getDurationMillis());
+        assertEquals("NullPointerException", errored.getMessage());
+
+        TestCaseRecord skipped = records.get(3);
+        assertEquals(TestCaseRecord.Status.SKIPPED, skipped.getStatus());
+        assertEquals(0, skipped.getDurationMillis());
+        assertEquals("not yet", skipped.getMessage());
+    }
+
+    @Test
+    void recordedResultsAbortWithoutTheJunitStep(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        TacotruckBuilder builder = new TacotruckBuilder(
+                "Nightly", "http://127.0.0.1:1", "testfiesta", "org", "proj", "tacotruck-token", "reports/*.xml");
+        builder.setRecordedResults(true);
+        project.getBuildersList().add(builder);
+
+        FreeStyleBuild build = jenkins.buildAndAssertStatus(Result.FAILURE, project);
+
+        assertNull(JUnitTestResults.forRun(build, 10));
+        jenkins.assertLogContains("No test results were recorded by the junit step for this build", build);
+    }
+
+    @Test
+    void doesNotLoadTheJunitPluginUnlessItIsActive(JenkinsRule jenkins) throws Exception {
+        WorkflowRun run = recorded(jenkins);
+        PluginWrapper junit = jenkins.jenkins.getPluginManager().getPlugin("junit");
+        assertNotNull(JUnitTestResults.forRun(run, 10, junit));
+
+        try (WithoutJunitPlugin loader = new WithoutJunitPlugin()) {
+            assertThrows(
+                    ClassNotFoundException.class,
+                    () -> Class.forName("hudson.tasks.junit.TestResultAction", false, loader));
+            Method forRun = Class.forName(JUnitTestResults.class.getName(), true, loader)
+                    .getDeclaredMethod("forRun", Run.class, int.class, PluginWrapper.class);
+            forRun.setAccessible(true);
+
+            assertNull(forRun.invoke(null, run, 10, null));
+        }
+    }
+
+    /**
+     * Loads the plugin's classes afresh, as if the optional junit plugin were not installed.
+     */
+    private static final class WithoutJunitPlugin extends URLClassLoader {
+
+        WithoutJunitPlugin() {
+            super(
+                    new URL[] {JUnitTestResults.class.getProtectionDomain().getCodeSource().getLocation()},
+                    JUnitTestResultsTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.startsWith("hudson.tasks.junit.")) {
+                throw new ClassNotFoundException(name);
+            }
+            if (!name.startsWith(JUnitTestResults.class.getPackageName() + ".")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                return loaded != null ? loaded : findClass(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NativeSubmitterTest {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile int status = 201;
+    private volatile String request;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            request = exchange.getRequestMethod() + " " + exchange.getRequestURI().getRawPath() + "\n"
+                    + exchange.getRequestHeaders().getFirst("Authorization") + "\n"
+                    + exchange.getRequestHeaders().getFirst("Content-Type") + "\n"
+                    + body;
+            String response = status < 300 ? "{\"id\":\"run-1\"}" : "{\"error\":\"invalid\"}";
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private SubmissionTarget target(String handle) {
+        return new SubmissionTarget(
+                "testfiesta", "proj", "token", handle, "Nightly", "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    private File report() throws IOException {
+        Path file = dir.resolve("TEST-calc.xml");
+        Files.writeString(
+                file,
+                "<testsuite name=\"Calc\">"
+                        + "<testcase classname=\"c.CalcTest\" name=\"adds\" time=\"0.5\"/>"
+                        + "<testcase classname=\"c.CalcTest\" name=\"divides\">"
+                        + "<failure message=\"by zero\"/></testcase>"
+                        + "</testsuite>");
+        return file.toFile();
+    }
+
+    @Test
+    void postsTheDocumentedPayload() throws Exception {
+        CLIResult result = NativeSubmitter.upload(List.of(report()), target("my org"), 1);
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("Submitted 2 test cases from 1 file(s). {\"id\":\"run-1\"}", result.getOutput());
+        assertEquals(
+                "POST /v1/my%20org/projects/proj/runs/data\n"
+                        + "Bearer token\n"
+                        + "application/json\n"
+                        + "{\"name\":\"Nightly\",\"project\":\"proj\",\"organization\":\"my org\","
+                        + "\"source\":\"testfiesta\","
+                        + "\"results\":["
+                        + "{\"suite\":\"Calc\",\"className\":\"c.CalcTest\",\"name\":\"adds\",\"status\":\"passed\","
+                        + "\"duration\":500},"
+                        + "{\"suite\":\"Calc\",\"className\":\"c.CalcTest\",\"name\":\"divides\",\"status\":\"failed\","
+                        + "\"duration\":0,\"message\":\"by zero\"}]}",
+                request);
+        assertEquals(request.substring(request.indexOf('{')).length(), result.getBytesSent());
+        assertEquals(1, result.getSummary().getFailed());
+    }
+
+    @Test
+    void reportsRejectedSubmissions() throws Exception {
+        status = 422;
+
+        CLIResult result = NativeSubmitter.upload(List.of(report()), target("org"), 10);
+
+        assertFalse(result.isSuccess());
+        assertEquals(1, result.getExitCode());
+        assertEquals("TacoTruck API responded with HTTP 422", result.getErrorMessage());
+        assertEquals("{\"error\":\"invalid\"}", result.getOutput());
+    }
+
+    @Test
+    void encodesPathSegments() {
+        assertEquals(
+                "https://api.example.com/v1/my%20org/projects/a%2Fb/runs/data",
+                NativeSubmitter.submitUri("https://api.example.com/", "my org", "a/b").toString());
+    }
+}
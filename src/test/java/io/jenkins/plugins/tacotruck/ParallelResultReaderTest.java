@@ -0,0 +1,117 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelResultReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private List<File> reports(int files, int testCases) throws IOException {
+        List<File> reports = new ArrayList<>();
+        for (int f = 0; f < files; f++) {
+            StringBuilder xml = new StringBuilder("<testsuite name=\"S" + f + "\">");
+            for (int t = 0; t < testCases; t++) {
+                xml.append("<testcase classname=\"C\" name=\"t").append(f).append('.').append(t).append("\"/>");
+            }
+            Path file = dir.resolve("TEST-" + f + ".xml");
+            Files.writeString(file, xml.append("</testsuite>").toString());
+            reports.add(file.toFile());
+        }
+        return reports;
+    }
+
+    @Test
+    void readsEveryFileOnTheCallingThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        Set<String> names = new TreeSet<>();
+        AtomicInteger foreignCalls = new AtomicInteger();
+
+        long count = new ParallelResultReader(7).read(reports(12, 30), batch -> {
+            if (Thread.currentThread() != caller) {
+                foreignCalls.incrementAndGet();
+            }
+            for (TestCaseRecord record : batch) {
+                names.add(record.getName());
+            }
+        });
+
+        assertEquals(360, count);
+        assertEquals(360, names.size());
+        assertEquals(0, foreignCalls.get());
+    }
+
+    @Test
+    void reportsTheFileThatFailedToParse() throws Exception {
+        List<File> files = reports(4, 5);
+        Files.writeString(files.get(2).toPath(), "<testsuite><testcase name=\"x\">");
+
+        IOException e = assertThrows(IOException.class, () -> new ParallelResultReader(2).read(files, batch -> {}));
+        assertTrue(e.getMessage().startsWith("Failed to parse " + files.get(2)), e.getMessage());
+    }
+
+    @Test
+    void errorsInAParserDoNotHangTheReader() throws Exception {
+        List<File> files = reports(6, 50);
+        ParallelResultReader reader = new ParallelResultReader(5, List.of(new FailingParser()));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            AssertionError e = assertThrows(AssertionError.class, () -> reader.read(files, batch -> {}));
+            assertEquals("parser bug", e.getMessage());
+        });
+    }
+
+    @Test
+    void failingSinkStopsTheReader() throws Exception {
+        List<File> files = reports(8, 200);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            IllegalStateException e = assertThrows(
+                    IllegalStateException.class, () -> new ParallelResultReader(1).read(files, batch -> {
+                        throw new IllegalStateException("sink is full");
+                    }));
+            assertEquals("sink is full", e.getMessage());
+        });
+    }
+
+    /**
+     * Accepts every file and fails after its first batch with an {@link Error}, not an exception.
+     */
+    private static final class FailingParser extends ResultParser {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String getFormat() {
+            return "Failing";
+        }
+
+        @Override
+        public boolean accepts(String head) {
+            return true;
+        }
+
+        @Override
+        public long parse(InputStream in, String fileName, int batchSize, TestCaseSink sink)
+                throws IOException, InterruptedException {
+            sink.accept(List.of(new TestCaseRecord(fileName, null, "first", 0, TestCaseRecord.Status.PASSED, null)));
+            throw new AssertionError("parser bug");
+        }
+    }
+}
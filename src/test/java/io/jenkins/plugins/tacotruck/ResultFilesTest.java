@@ -0,0 +1,90 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultFilesTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    void recognisesPatterns() {
+        assertFalse(ResultFiles.isPattern("build/results.xml"));
+        assertTrue(ResultFiles.isPattern("build/**/*.xml"));
+        assertTrue(ResultFiles.isPattern("build/TEST-?.xml"));
+        assertTrue(ResultFiles.isPattern("a.xml,b.xml"));
+    }
+
+    @Test
+    void turnsResultsPathIntoIncludes() {
+        assertEquals("build/**/*.xml", ResultFiles.toIncludes(" ././build\\**\\*.xml "));
+    }
+
+    @Test
+    void resolvesFilesAndPatternsInAStableOrder() throws Exception {
+        write("reports/b/TEST-b.xml", "<testsuite/>");
+        write("reports/a/TEST-a.xml", "<testsuite/>");
+        write("reports/a/notes.txt", "");
+        File workspace = dir.toFile();
+
+        List<File> matches = ResultFiles.resolve(workspace, "reports/**/TEST-*.xml");
+        assertEquals(2, matches.size());
+        assertEquals("TEST-a.xml", matches.get(0).getName());
+        assertEquals("TEST-b.xml", matches.get(1).getName());
+
+        assertEquals(
+                List.of(new File(workspace, "reports/a/notes.txt")),
+                ResultFiles.resolve(workspace, "reports/a/notes.txt"));
+        assertEquals(List.of(), ResultFiles.resolve(workspace, "reports/missing.xml"));
+        assertEquals(List.of(), ResultFiles.resolve(workspace, "other/**/*.xml"));
+    }
+
+    @Test
+    void mergesSuitesUnderOneRoot() throws Exception {
+        Path a = write("a.xml", "<?xml version=\"1.0\"?><testsuites><testsuite name=\"A\">"
+                + "<testcase name=\"a1\"><failure message=\"x\">trace</failure></testcase>"
+                + "</testsuite></testsuites>");
+        Path b = write("b.xml", "<testsuite name=\"B\"><testcase name=\"b1\"/><testcase name=\"b2\"/></testsuite>");
+        Path merged = dir.resolve("merged.xml");
+
+        int sources = new ResultFiles.Merge(List.of(a.toString(), b.toString())).invoke(merged.toFile(), null);
+
+        assertEquals(2, sources);
+        List<TestCaseRecord> records = new ArrayList<>();
+        new ParallelResultReader(10).read(List.of(merged.toFile()), records::addAll);
+        assertEquals(3, records.size());
+        assertEquals("A", records.get(0).getSuite());
+        assertEquals(TestCaseRecord.Status.FAILED, records.get(0).getStatus());
+        assertEquals("B", records.get(2).getSuite());
+    }
+
+    @Test
+    void refusesToMergeMalformedReports() throws Exception {
+        Path broken = write("broken.xml", "<testsuite><testcase>");
+        Path merged = dir.resolve("merged.xml");
+
+        ResultFiles.Merge merge = new ResultFiles.Merge(List.of(broken.toString()));
+
+        IOException e = assertThrows(IOException.class, () -> merge.invoke(merged.toFile(), null));
+        assertTrue(e.getMessage().startsWith("Malformed JUnit XML in " + broken), e.getMessage());
+    }
+}
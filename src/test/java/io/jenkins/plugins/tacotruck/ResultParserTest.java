@@ -0,0 +1,240 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultParserTest {
+
+    private static final String TESTNG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<testng-results total=\"3\"><suite name=\"Suite\"><test name=\"Unit\">\n"
+            + "  <class name=\"com.example.CartTest\">\n"
+            + "    <test-method status=\"PASS\" name=\"setUp\" is-config=\"true\" duration-ms=\"1\"/>\n"
+            + "    <test-method status=\"PASS\" name=\"adds\" duration-ms=\"12\"/>\n"
+            + "    <test-method status=\"FAIL\" name=\"removes\" duration-ms=\"5\">\n"
+            + "      <exception class=\"java.lang.AssertionError\"><message><![CDATA[expected 1]]></message>\n"
+            + "      <full-stacktrace>trace</full-stacktrace></exception>\n"
+            + "    </test-method>\n"
+            + "    <test-method status=\"SKIP\" name=\"empties\" duration-ms=\"0\"/>\n"
+            + "  </class>\n"
+            + "</test></suite></testng-results>\n";
+
+    private static final String XUNIT = "<assemblies><assembly name=\"Tests.dll\">\n"
+            + "  <collection name=\"Cart tests\">\n"
+            + "    <test name=\"Shop.CartTest.Adds\" type=\"Shop.CartTest\" method=\"Adds\" time=\"0.5\""
+            + " result=\"Pass\"/>\n"
+            + "    <test name=\"Shop.CartTest.Removes\" type=\"Shop.CartTest\" method=\"Removes\" time=\"0.1\""
+            + " result=\"Fail\"><failure><message><![CDATA[Assert.Equal() Failure]]></message>"
+            + "<stack-trace>at Removes()</stack-trace></failure></test>\n"
+            + "    <test name=\"Shop.CartTest.Later\" type=\"Shop.CartTest\" method=\"Later\" time=\"0\""
+            + " result=\"Skip\"><reason><![CDATA[not yet]]></reason></test>\n"
+            + "  </collection>\n"
+            + "</assembly></assemblies>\n";
+
+    private static final String NUNIT = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+            + "<test-run id=\"2\" testcasecount=\"3\">\n"
+            + "  <test-suite type=\"Assembly\" name=\"Shop.Tests.dll\">\n"
+            + "    <test-suite type=\"TestFixture\" name=\"CartTest\" fullname=\"Shop.CartTest\">\n"
+            + "      <test-case name=\"Adds\" classname=\"Shop.CartTest\" duration=\"0.25\" result=\"Passed\"/>\n"
+            + "      <test-case name=\"Removes\" classname=\"Shop.CartTest\" result=\"Failed\" label=\"Error\">\n"
+            + "        <failure><message><![CDATA[System.NullReferenceException]]></message></failure>\n"
+            + "      </test-case>\n"
+            + "      <test-case name=\"Later\" classname=\"Shop.CartTest\" result=\"Skipped\" label=\"Ignored\">\n"
+            + "        <reason><message><![CDATA[not yet]]></message></reason>\n"
+            + "      </test-case>\n"
+            + "    </test-suite>\n"
+            + "  </test-suite>\n"
+            + "</test-run>\n";
+
+    private static final String CUCUMBER = "[\n"
+            + "  {\"uri\": \"features/cart.feature\", \"id\": \"cart\", \"keyword\": \"Feature\", \"name\": \"Cart\",\n"
+            + "   \"elements\": [\n"
+            + "    {\"type\": \"background\", \"name\": \"\", \"steps\": [\n"
+            + "      {\"name\": \"a shop\", \"result\": {\"status\": \"passed\", \"duration\": 1000000}}]},\n"
+            + "    {\"type\": \"scenario\", \"name\": \"Adding\", \"tags\": [{\"name\": \"@fast\"}], \"steps\": [\n"
+            + "      {\"name\": \"I add\", \"result\": {\"status\": \"passed\", \"duration\": 2000000}}]},\n"
+            + "    {\"type\": \"scenario\", \"name\": \"Removing \\\"all\\\"\", \"steps\": [\n"
+            + "      {\"name\": \"I remove\", \"result\": {\"status\": \"failed\", \"duration\": 3000000,\n"
+            + "       \"error_message\": \"expected [] but was [1]\"}},\n"
+            + "      {\"name\": \"it is empty\", \"result\": {\"status\": \"skipped\"}}]},\n"
+            + "    {\"type\": \"scenario\", \"name\": \"Paying\", \"steps\": [\n"
+            + "      {\"name\": \"I pay\", \"result\": {\"status\": \"undefined\"}}]}\n"
+            + "  ]}\n"
+            + "]\n";
+
+    private static final String TAP = "TAP version 13\n"
+            + "1..5\n"
+            + "ok 1 - adds\n"
+            + "not ok 2 - removes\n"
+            + "  ---\n"
+            + "  message: 'expected 1'\n"
+            + "  duration_ms: 7\n"
+            + "  ...\n"
+            + "ok 3 - pays # SKIP no gateway\n"
+            + "not ok 4 - refunds # TODO later\n"
+            + "    # Subtest: nested\n"
+            + "    ok 1 - inner\n"
+            + "ok 5 - nested # with a comment\n";
+
+    @TempDir
+    Path dir;
+
+    private File write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file.toFile();
+    }
+
+    private static Map<String, TestCaseRecord> read(File... files) throws Exception {
+        List<TestCaseRecord> records = new ArrayList<>();
+        new ParallelResultReader(2).read(List.of(files), records::addAll);
+        Map<String, TestCaseRecord> byName = new TreeMap<>();
+        for (TestCaseRecord record : records) {
+            byName.put(record.getName(), record);
+        }
+        assertEquals(records.size(), byName.size());
+        return byName;
+    }
+
+    private static void assertCase(
+            TestCaseRecord record, String suite, String className, TestCaseRecord.Status status, String message) {
+        assertEquals(suite, record.getSuite());
+        assertEquals(className, record.getClassName());
+        assertEquals(status, record.getStatus());
+        assertEquals(message, record.getMessage());
+    }
+
+    @Test
+    void readsTestNG() throws Exception {
+        Map<String, TestCaseRecord> cases = read(write("testng-results.xml", TESTNG));
+        assertEquals(3, cases.size());
+        assertCase(cases.get("adds"), "Suite", "com.example.CartTest", TestCaseRecord.Status.PASSED, null);
+        assertEquals(12, cases.get("adds").getDurationMillis());
+        assertCase(
+                cases.get("removes"), "Suite", "com.example.CartTest", TestCaseRecord.Status.FAILED, "expected 1");
+        assertCase(cases.get("empties"), "Suite", "com.example.CartTest", TestCaseRecord.Status.SKIPPED, null);
+    }
+
+    @Test
+    void readsXUnit() throws Exception {
+        Map<String, TestCaseRecord> cases = read(write("xunit.xml", XUNIT));
+        assertEquals(3, cases.size());
+        assertCase(cases.get("Adds"), "Cart tests", "Shop.CartTest", TestCaseRecord.Status.PASSED, null);
+        assertEquals(500, cases.get("Adds").getDurationMillis());
+        assertCase(
+                cases.get("Removes"),
+                "Cart tests",
+                "Shop.CartTest",
+                TestCaseRecord.Status.FAILED,
+                "Assert.Equal() Failure");
+        assertCase(cases.get("Later"), "Cart tests", "Shop.CartTest", TestCaseRecord.Status.SKIPPED, "not yet");
+    }
+
+    @Test
+    void readsNUnit() throws Exception {
+        Map<String, TestCaseRecord> cases = read(write("TestResult.xml", NUNIT));
+        assertEquals(3, cases.size());
+        assertCase(cases.get("Adds"), "Shop.CartTest", "Shop.CartTest", TestCaseRecord.Status.PASSED, null);
+        assertEquals(250, cases.get("Adds").getDurationMillis());
+        assertCase(
+                cases.get("Removes"),
+                "Shop.CartTest",
+                "Shop.CartTest",
+                TestCaseRecord.Status.ERROR,
+                "System.NullReferenceException");
+        assertCase(cases.get("Later"), "Shop.CartTest", "Shop.CartTest", TestCaseRecord.Status.SKIPPED, "not yet");
+    }
+
+    @Test
+    void readsCucumberJson() throws Exception {
+        Map<String, TestCaseRecord> cases = read(write("cucumber.json", CUCUMBER));
+        assertEquals(3, cases.size());
+        assertCase(cases.get("Adding"), "features/cart.feature", "Cart", TestCaseRecord.Status.PASSED, null);
+        assertEquals(3, cases.get("Adding").getDurationMillis());
+        assertCase(
+                cases.get("Removing \"all\""),
+                "features/cart.feature",
+                "Cart",
+                TestCaseRecord.Status.FAILED,
+                "expected [] but was [1]");
+        assertCase(cases.get("Paying"), "features/cart.feature", "Cart", TestCaseRecord.Status.SKIPPED, "undefined");
+    }
+
+    @Test
+    void readsCucumberFeaturesThatNameThemselvesAfterTheirScenarios() throws Exception {
+        Map<String, TestCaseRecord> cases = read(write(
+                "cucumber.json",
+                "[{\"elements\": [{\"type\": \"scenario\", \"name\": \"Adding\", \"steps\": []}],"
+                        + " \"uri\": \"features/cart.feature\", \"name\": \"Cart\"},"
+                        + " {\"elements\": [{\"type\": \"scenario\", \"name\": \"Paying\", \"steps\": []}]}]"));
+        assertEquals(2, cases.size());
+        assertCase(cases.get("Adding"), "features/cart.feature", "Cart", TestCaseRecord.Status.PASSED, null);
+        assertCase(cases.get("Paying"), "cucumber.json", "cucumber.json", TestCaseRecord.Status.PASSED, null);
+    }
+
+    @Test
+    void readsTap() throws Exception {
+        Map<String, TestCaseRecord> cases = read(write("results.tap", TAP));
+        assertEquals(5, cases.size());
+        assertCase(cases.get("adds"), "results.tap", null, TestCaseRecord.Status.PASSED, null);
+        assertCase(cases.get("removes"), "results.tap", null, TestCaseRecord.Status.FAILED, "expected 1");
+        assertEquals(7, cases.get("removes").getDurationMillis());
+        assertCase(cases.get("pays"), "results.tap", null, TestCaseRecord.Status.SKIPPED, "no gateway");
+        assertCase(cases.get("refunds"), "results.tap", null, TestCaseRecord.Status.SKIPPED, "later");
+        assertCase(cases.get("nested # with a comment"), "results.tap", null, TestCaseRecord.Status.PASSED, null);
+    }
+
+    @Test
+    void readsMixedFormatsTogether() throws Exception {
+        String junit = "\uFEFF<?xml version=\"1.0\"?>\n<!-- generated -->\n"
+                + "<testsuite name=\"Junit\"><testcase classname=\"J\" name=\"j\"/></testsuite>";
+        Map<String, TestCaseRecord> cases = read(
+                write("a.xml", junit),
+                write("b.xml", TESTNG),
+                write("c.json", CUCUMBER),
+                write("d.tap", "1..1\nok 1 - tapped\n"));
+        assertEquals(1 + 3 + 3 + 1, cases.size());
+        assertEquals("Junit", cases.get("j").getSuite());
+    }
+
+    @Test
+    void findsTheRootElementAfterALongPreamble() throws Exception {
+        String licence = "<!--" + "Licensed under the Apache License, Version 2.0. ".repeat(500) + "-->\n";
+        Map<String, TestCaseRecord> cases = read(write(
+                "TEST-cart.xml",
+                "<?xml version=\"1.0\"?>\n" + licence + "<testsuite name=\"Cart\">"
+                        + "<testcase classname=\"shop.CartTest\" name=\"adds\"/></testsuite>"));
+        assertEquals(1, cases.size());
+        assertCase(cases.get("adds"), "Cart", "shop.CartTest", TestCaseRecord.Status.PASSED, null);
+    }
+
+    @Test
+    void rejectsUnknownFormats() throws Exception {
+        File file = write("report.html", "<html><body>nothing</body></html>");
+        IOException e = assertThrows(IOException.class, () -> read(file));
+        assertTrue(e.getMessage().contains("Unrecognised result format"), e.getMessage());
+        assertTrue(e.getMessage().contains("Cucumber JSON"), e.getMessage());
+    }
+
+    @Test
+    void findsTheRootElement() {
+        assertEquals("testsuites", XmlResultParser.rootElement("<?xml version=\"1.0\"?>\n<testsuites>"));
+        assertEquals("test-run", XmlResultParser.rootElement("<!DOCTYPE x [<!ENTITY e \"v\">]><test-run id=\"1\">"));
+        assertEquals("assemblies", XmlResultParser.rootElement("<ns:assemblies xmlns:ns=\"urn:x\">"));
+        assertNull(XmlResultParser.rootElement("[{\"uri\": \"a\"}]"));
+        assertNull(XmlResultParser.rootElement("<testsu"));
+    }
+}
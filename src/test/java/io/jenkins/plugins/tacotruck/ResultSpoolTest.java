@@ -0,0 +1,78 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class ResultSpoolTest {
+
+    private static List<TestCaseRecord> records(int count) {
+        List<TestCaseRecord> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TestCaseRecord.Status status = TestCaseRecord.Status.values()[i % TestCaseRecord.Status.values().length];
+            records.add(new TestCaseRecord("Suite", i % 2 == 0 ? "com.example.T" : null, "t" + i, i, status, null));
+        }
+        return records;
+    }
+
+    private static List<TestCaseRecord> readAll(TestCaseSource source) throws Exception {
+        List<TestCaseRecord> read = new ArrayList<>();
+        source.read(read::addAll);
+        return read;
+    }
+
+    @Test
+    void readsBackEveryTestCaseInBatches() throws Exception {
+        List<TestCaseRecord> records = records(25);
+        String trace = "x".repeat(100_000);
+        records.add(new TestCaseRecord("Suite", "com.example.T", "long", 1, TestCaseRecord.Status.FAILED, trace));
+
+        try (ResultSpool spool = ResultSpool.write(sink -> {
+            sink.accept(records);
+            return records.size();
+        })) {
+            assertEquals(26, spool.getCount());
+            List<Integer> sizes = new ArrayList<>();
+            spool.reader(10).read(batch -> sizes.add(batch.size()));
+            assertEquals(List.of(10, 10, 6), sizes);
+
+            List<TestCaseRecord> read = readAll(spool.reader(10));
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(records.get(i).getClassName(), read.get(i).getClassName());
+                assertEquals(records.get(i).getName(), read.get(i).getName());
+                assertEquals(records.get(i).getDurationMillis(), read.get(i).getDurationMillis());
+                assertEquals(records.get(i).getStatus(), read.get(i).getStatus());
+            }
+            assertNull(read.get(1).getClassName());
+            assertEquals(trace, read.get(25).getMessage());
+        }
+    }
+
+    @Test
+    void servesConcurrentReaders() throws Exception {
+        List<TestCaseRecord> records = records(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ResultSpool spool = ResultSpool.write(sink -> {
+            sink.accept(records);
+            return records.size();
+        })) {
+            List<Future<List<TestCaseRecord>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> readAll(spool.reader(64))));
+            }
+            for (Future<List<TestCaseRecord>> future : futures) {
+                List<TestCaseRecord> read = future.get();
+                assertEquals(1000, read.size());
+                assertEquals("t999", read.get(999).getName());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StreamingPayloadTest {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final AtomicReference<String> received = new AtomicReference<>();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try (InputStream in = exchange.getRequestBody()) {
+                received.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    private static StreamingPayload failingAfter(int records) {
+        return new StreamingPayload(json -> {
+            json.beginArray();
+            for (int i = 0; i < records; i++) {
+                json.value("record " + i);
+            }
+            json.flush();
+            throw new IOException("report is malformed");
+        });
+    }
+
+    @Test
+    void producerFailureIsThrownAtTheEndOfTheBody() throws Exception {
+        StreamingPayload payload = failingAfter(3);
+
+        try (InputStream in = payload.open()) {
+            byte[] buffer = new byte[8192];
+            IOException e = assertThrows(IOException.class, () -> {
+                while (in.read(buffer, 0, buffer.length) >= 0) {
+                    // drain
+                }
+            });
+            assertTrue(e.getMessage().contains("report is malformed"), e.getMessage());
+        }
+        assertThrows(IllegalStateException.class, payload::open);
+    }
+
+    @Test
+    void producerFailureAbortsTheRequest() throws Exception {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/data");
+
+        CLIResult result = NativeSubmitter.post(uri, "token", failingAfter(50_000));
+
+        assertFalse(result.isSuccess());
+        assertEquals("Failed to read results: report is malformed", result.getErrorMessage());
+        assertNull(received.get());
+    }
+
+    @Test
+    void completeBodyIsSent() throws Exception {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/data");
+        StreamingPayload payload = new StreamingPayload(json -> json.beginArray().value("a").endArray());
+
+        CLIResult result = NativeSubmitter.post(uri, "token", payload);
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("[\"a\"]", received.get());
+        assertEquals(5, payload.getBytesWritten());
+    }
+}
@@ -0,0 +1,206 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SubmissionCoalescerTest {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final List<String> paths = new CopyOnWriteArrayList<>();
+    private long windowMillis;
+    private int maxBatchSize;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        windowMillis = SubmissionCoalescer.WINDOW_MILLIS;
+        maxBatchSize = SubmissionCoalescer.MAX_BATCH_SIZE;
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        executor.shutdownNow();
+        SubmissionCoalescer.WINDOW_MILLIS = windowMillis;
+        SubmissionCoalescer.MAX_BATCH_SIZE = maxBatchSize;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            paths.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+            try (InputStream in = exchange.getRequestBody()) {
+                bodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            byte[] body = "{\"id\":\"run-1\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(201, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private SubmissionTarget target(String runName) {
+        return new SubmissionTarget(
+                "testfiesta", "proj", "token", "org", runName, "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    private File spool(String... names) throws Exception {
+        List<TestCaseRecord> records = new ArrayList<>();
+        for (String name : names) {
+            records.add(new TestCaseRecord("Suite", "c.T", name, 1, TestCaseRecord.Status.PASSED, null));
+        }
+        File spool = SubmissionCoalescer.createSpool(dir.toFile());
+        try (OutputStream out = Files.newOutputStream(spool.toPath())) {
+            ResultSpool.write(
+                    sink -> {
+                        sink.accept(records);
+                        return records.size();
+                    },
+                    out);
+        }
+        return spool;
+    }
+
+    @Test
+    void combinesParticipantsThatJoinWithinTheWindow() throws Exception {
+        SubmissionCoalescer.WINDOW_MILLIS = 200;
+        SubmissionTarget target = target("Nightly");
+
+        CompletableFuture<CLIResult> first = SubmissionCoalescer.join(
+                new SubmissionCoalescer.Key("job#1", "token", target), spool("a"), 1, target, 10);
+        CompletableFuture<CLIResult> second = SubmissionCoalescer.join(
+                new SubmissionCoalescer.Key("job#1", "token", target), spool("b", "c"), 2, target, 10);
+
+        assertSame(first, second);
+        CLIResult result = first.get(10, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(
+                "Combined 2 submission(s). Submitted 3 test cases from 2 submission(s). {\"id\":\"run-1\"}",
+                result.getOutput());
+        assertEquals(1, bodies.size());
+        assertTrue(bodies.get(0).contains("\"name\":\"a\""), bodies.get(0));
+        assertTrue(bodies.get(0).contains("\"name\":\"c\""), bodies.get(0));
+        assertFalse(Files.exists(dir.resolve(SubmissionCoalescer.SPOOL_DIR)), "spools should be deleted");
+    }
+
+    @Test
+    void flushesFullBatchesWithoutWaitingForTheWindow() throws Exception {
+        SubmissionCoalescer.WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+        SubmissionCoalescer.MAX_BATCH_SIZE = 2;
+        SubmissionTarget target = target("Full");
+
+        SubmissionCoalescer.join(new SubmissionCoalescer.Key("job#1", "token", target), spool("a"), 1, target, 10);
+        CompletableFuture<CLIResult> future = SubmissionCoalescer.join(
+                new SubmissionCoalescer.Key("job#1", "token", target), spool("b"), 1, target, 10);
+
+        assertTrue(future.get(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, bodies.size());
+    }
+
+    @Test
+    void keepsBuildsApart() throws Exception {
+        SubmissionCoalescer.WINDOW_MILLIS = 100;
+        SubmissionTarget target = target("Apart");
+
+        CompletableFuture<CLIResult> first = SubmissionCoalescer.join(
+                new SubmissionCoalescer.Key("job#1", "token", target), spool("a"), 1, target, 10);
+        CompletableFuture<CLIResult> second = SubmissionCoalescer.join(
+                new SubmissionCoalescer.Key("job#2", "token", target), spool("b"), 1, target, 10);
+
+        assertTrue(first.get(10, TimeUnit.SECONDS).isSuccess());
+        assertTrue(second.get(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(2, bodies.size());
+    }
+
+    @Test
+    void keepsCredentialsApart() throws Exception {
+        SubmissionCoalescer.WINDOW_MILLIS = 100;
+        SubmissionTarget target = target("Credentials");
+
+        CompletableFuture<CLIResult> first = SubmissionCoalescer.join(
+                new SubmissionCoalescer.Key("job#1", "token", target), spool("a"), 1, target, 10);
+        CompletableFuture<CLIResult> second = SubmissionCoalescer.join(
+                new SubmissionCoalescer.Key("job#1", "other-token", target), spool("b"), 1, target, 10);
+
+        assertTrue(first.get(10, TimeUnit.SECONDS).isSuccess());
+        assertTrue(second.get(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(2, bodies.size());
+    }
+
+    @Test
+    void uploadsTheBatchInChunks() throws Exception {
+        SubmissionCoalescer.WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+        SubmissionCoalescer.MAX_BATCH_SIZE = 2;
+        SubmissionTarget target = target("Chunked");
+        SubmissionCoalescer.Key key = new SubmissionCoalescer.Key("job#1", "token", target);
+
+        SubmissionCoalescer.join(key, spool("a", "b"), 2, target, null, 10, 2, 2);
+        CompletableFuture<CLIResult> future = SubmissionCoalescer.join(key, spool("c"), 1, target, null, 10, 0, 0);
+
+        CLIResult result = future.get(10, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(
+                List.of(
+                        "POST /v1/org/projects/proj/runs",
+                        "POST /v1/org/projects/proj/runs/run-1/commit",
+                        "PUT /v1/org/projects/proj/runs/run-1/chunks/0",
+                        "PUT /v1/org/projects/proj/runs/run-1/chunks/1"),
+                paths.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void waitsForTheEndpointOnlyWhenTheCombinedUploadIsSent() throws Exception {
+        SubmissionCoalescer.WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+        SubmissionCoalescer.MAX_BATCH_SIZE = 1;
+        SubmissionTarget target = target("Limited");
+        TacotruckEndpoint endpoint = new TacotruckEndpoint("coalesce-limited", target.getBaseUrl());
+        endpoint.setMaxConcurrentSubmissions(1);
+
+        CompletableFuture<CLIResult> future;
+        try (TacotruckEndpoint.Throttle.Permit ignored = endpoint.acquire(TaskListener.NULL)) {
+            future = SubmissionCoalescer.join(
+                    new SubmissionCoalescer.Key("job#1", "token", target), spool("a"), 1, target, endpoint, 10, 0, 0);
+            Thread.sleep(300);
+            assertFalse(future.isDone());
+            assertEquals(0, bodies.size());
+        }
+
+        assertTrue(future.get(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, bodies.size());
+    }
+}
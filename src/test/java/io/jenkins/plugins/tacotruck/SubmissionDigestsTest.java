@@ -0,0 +1,156 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.util.Secret;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class SubmissionDigestsTest {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+            }
+            requests.incrementAndGet();
+            byte[] body = "{\"id\":\"run-1\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(201, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Test
+    void keysAreScopedToTheRunName() {
+        assertNotEquals(
+                SubmissionDigests.key("abc", "https://api", "org", "proj", "Nightly"),
+                SubmissionDigests.key("abc", "https://api", "org", "proj", "Smoke"));
+    }
+
+    @Test
+    void digestCoversFileNamesAndContent() throws Exception {
+        Files.writeString(dir.resolve("TEST-a.xml"), "<testsuite/>");
+        String digest = new SubmissionDigests.Compute("*.xml").invoke(dir.toFile(), null);
+
+        assertEquals(digest, new SubmissionDigests.Compute("*.xml").invoke(dir.toFile(), null));
+        Files.move(dir.resolve("TEST-a.xml"), dir.resolve("TEST-b.xml"));
+        String renamed = new SubmissionDigests.Compute("*.xml").invoke(dir.toFile(), null);
+        assertNotEquals(digest, renamed);
+        Files.writeString(dir.resolve("TEST-b.xml"), "<testsuite name=\"b\"/>");
+        assertNotEquals(renamed, new SubmissionDigests.Compute("*.xml").invoke(dir.toFile(), null));
+        assertNull(new SubmissionDigests.Compute("*.json").invoke(dir.toFile(), null));
+    }
+
+    @Test
+    void keepsTheMostRecentDigests(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        for (int i = 0; i <= SubmissionDigests.MAX_ENTRIES; i++) {
+            SubmissionDigests.record(project, "key" + i, i, "Nightly", "https://app.testfiesta.com/runs/" + i + "\n");
+        }
+
+        assertNull(SubmissionDigests.find(project, "key0"));
+        SubmissionDigests.Submitted last = SubmissionDigests.find(project, "key" + SubmissionDigests.MAX_ENTRIES);
+        assertNotNull(last);
+        assertEquals("https://app.testfiesta.com/runs/" + SubmissionDigests.MAX_ENTRIES, last.getReference());
+    }
+
+    private TacotruckBuilder builder(String runName) {
+        TacotruckBuilder builder = new TacotruckBuilder(
+                runName,
+                "http://127.0.0.1:" + server.getAddress().getPort(),
+                "testfiesta",
+                "org",
+                "proj",
+                "tacotruck-token",
+                "results.xml");
+        builder.setEngine(SubmissionEngine.NATIVE);
+        builder.setSkipUnchanged(true);
+        return builder;
+    }
+
+    @Test
+    void skipsIdenticalResultsAndLinksTheEarlierBuild(JenkinsRule jenkins) throws Exception {
+        SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials()
+                .add(new StringCredentialsImpl(
+                        CredentialsScope.GLOBAL, "tacotruck-token", null, Secret.fromString("token")));
+        store.save();
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                build.getWorkspace()
+                        .child("results.xml")
+                        .write("<testsuite><testcase name=\"adds\"/></testsuite>", StandardCharsets.UTF_8.name());
+                return true;
+            }
+        });
+        TacotruckBuilder builder = builder("Digests");
+        project.getBuildersList().add(builder);
+
+        jenkins.buildAndAssertSuccess(project);
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(project);
+
+        jenkins.assertLogContains("#1 as run 'Digests'", second);
+        jenkins.assertLogContains("skipping upload", second);
+        assertEquals(1, requests.get());
+
+        project.getBuildersList().replace(builder, builder("Digests again"));
+        jenkins.buildAndAssertSuccess(project);
+        assertEquals(2, requests.get(), "the same results as another run are submitted");
+    }
+}
@@ -0,0 +1,183 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class SubmissionFanOutTest {
+
+    private static final String REPORT =
+            "<testsuite name=\"Cart\"><testcase classname=\"shop.CartTest\" name=\"adds\"/></testsuite>";
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    /**
+     * Status of the submissions to project {@code bad}; every other project accepts them.
+     */
+    private volatile int badStatus = 503;
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath();
+            String body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            requests.add(path + " " + body);
+            int status = path.contains("/projects/bad/") ? badStatus : 201;
+            byte[] response = (status < 300 ? "{\"id\":\"run-1\"}" : "{\"error\":\"unavailable\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+    }
+
+    private String apiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private SubmissionTarget target(String project) {
+        return new SubmissionTarget("testfiesta", project, "token", "org", "Nightly", apiUrl());
+    }
+
+    private long requestsTo(String project) {
+        return requests.stream()
+                .filter(request -> request.startsWith("/v1/org/projects/" + project + "/"))
+                .count();
+    }
+
+    @Test
+    void reportsEachDestinationInOrder(JenkinsRule jenkins) throws Exception {
+        Path report = Files.writeString(dir.resolve("TEST-cart.xml"), REPORT);
+
+        List<CLIResult> results = SubmissionFanOut.upload(
+                TestCaseSource.of(List.of(report.toFile()), 10),
+                "1 file(s)",
+                List.of(target("bad"), target("good"), target("other")),
+                10,
+                0,
+                0);
+
+        assertEquals(3, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("TacoTruck API responded with HTTP 503", results.get(0).getErrorMessage());
+        assertTrue(results.get(1).isSuccess(), results.get(1).getErrorMessage());
+        assertTrue(results.get(1).getOutput().startsWith("Submitted 1 test cases from 1 file(s)."));
+        assertTrue(results.get(2).isSuccess(), results.get(2).getErrorMessage());
+        assertEquals(3, requests.size());
+        for (String request : requests) {
+            assertTrue(request.contains("\"name\":\"adds\""), request);
+        }
+    }
+
+    @Test
+    void unreadableResultsFailEveryDestination(JenkinsRule jenkins) throws Exception {
+        Path report = Files.writeString(dir.resolve("TEST-cart.xml"), "not a report");
+
+        List<CLIResult> results = SubmissionFanOut.upload(
+                TestCaseSource.of(List.of(report.toFile()), 10),
+                "1 file(s)",
+                List.of(target("good"), target("other")),
+                10,
+                0,
+                0);
+
+        assertEquals(2, results.size());
+        for (CLIResult result : results) {
+            assertFalse(result.isSuccess());
+            assertTrue(result.getErrorMessage().startsWith("Failed to read results: "), result.getErrorMessage());
+        }
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void queuesOnlyTheFailedDestination(JenkinsRule jenkins) throws Exception {
+        SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials()
+                .add(new StringCredentialsImpl(
+                        CredentialsScope.GLOBAL, "tacotruck-token", null, Secret.fromString("token")));
+        store.save();
+
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                build.getWorkspace().child("results.xml").write(REPORT, StandardCharsets.UTF_8.name());
+                return true;
+            }
+        });
+        TacotruckBuilder builder = new TacotruckBuilder(
+                "Fan-out", apiUrl(), "testfiesta", "org", "good", "tacotruck-token", "results.xml");
+        builder.setDestinations(List.of(new SubmissionDestination(apiUrl(), "org", "bad", "tacotruck-token")));
+        builder.setOutbox(true);
+        project.getBuildersList().add(builder);
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+
+        jenkins.assertLogContains("✗ " + apiUrl() + " org/bad: TacoTruck API responded with HTTP 503", build);
+        List<SubmissionOutbox.Entry> entries = SubmissionOutbox.load();
+        assertEquals(1, entries.size());
+
+        badStatus = 201;
+        SubmissionOutbox.retry(entries.get(0), TaskListener.NULL);
+
+        assertTrue(SubmissionOutbox.load().isEmpty());
+        assertEquals(1, requestsTo("good"));
+        assertEquals(2, requestsTo("bad"));
+    }
+}
@@ -0,0 +1,242 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.util.Secret;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Runs many concurrent freestyle and Pipeline builds that submit through the native engine to a local stub of the
+ * TacoTruck submit endpoint, and reports executor hold time, throughput, controller heap growth and step latency.
+ * Skipped unless {@code tacotruck.loadTest} is set:
+ *
+ * <pre>
+ * mvn test -Dtest=SubmissionLoadTest -Dtacotruck.loadTest=true -Dtacotruck.loadTest.builds=200
+ * </pre>
+ *
+ * <p>Other knobs, all prefixed with {@code tacotruck.loadTest.}: {@code executors}, {@code pipelineShare} (0 to 1),
+ * {@code testCases} per result file, {@code latencyMillis} and {@code errorRate} (0 to 1) of the stub.
+ */
+@WithJenkins
+@EnabledIfSystemProperty(named = "tacotruck.loadTest", matches = "true")
+class SubmissionLoadTest {
+
+    private static final String PREFIX = "tacotruck.loadTest.";
+
+    private final int builds = Integer.getInteger(PREFIX + "builds", 50);
+    private final int executors = Integer.getInteger(PREFIX + "executors", 20);
+    private final double pipelineShare = Double.parseDouble(System.getProperty(PREFIX + "pipelineShare", "0.5"));
+    private final int testCases = Integer.getInteger(PREFIX + "testCases", 200);
+    private final long latencyMillis = Long.getLong(PREFIX + "latencyMillis", 200L);
+    private final double errorRate = Double.parseDouble(System.getProperty(PREFIX + "errorRate", "0"));
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            long read = 0;
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    read += n;
+                }
+            }
+            requests.incrementAndGet();
+            bytesReceived.addAndGet(read);
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            boolean fail = ThreadLocalRandom.current().nextDouble() < errorRate;
+            byte[] body = (fail ? "{\"error\":\"injected failure\"}" : "{\"id\":\"run-" + requests.get() + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fail ? 503 : 201, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Test
+    void concurrentBuilds(JenkinsRule jenkins) throws Exception {
+        jenkins.jenkins.setNumExecutors(executors);
+        SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials()
+                .add(new StringCredentialsImpl(
+                        CredentialsScope.GLOBAL, "tacotruck-token", null, Secret.fromString("load-test-token")));
+        store.save();
+
+        String apiUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        String report = report(testCases);
+        int pipelines = (int) Math.round(builds * pipelineShare);
+
+        List<Object> jobs = new ArrayList<>();
+        for (int i = 0; i < builds - pipelines; i++) {
+            FreeStyleProject project = jenkins.createFreeStyleProject("freestyle-" + i);
+            project.getBuildersList().add(new TestBuilder() {
+                @Override
+                public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                        throws InterruptedException, IOException {
+                    build.getWorkspace().child("results.xml").write(report, StandardCharsets.UTF_8.name());
+                    return true;
+                }
+            });
+            TacotruckBuilder builder = new TacotruckBuilder(
+                    "Load test " + i, apiUrl, "testfiesta", "load", "project", "tacotruck-token", "results.xml");
+            builder.setEngine(SubmissionEngine.NATIVE);
+            project.getBuildersList().add(builder);
+            jobs.add(project);
+        }
+        for (int i = 0; i < pipelines; i++) {
+            WorkflowJob job = jenkins.createProject(WorkflowJob.class, "pipeline-" + i);
+            job.setDefinition(new CpsFlowDefinition(
+                    "node {\n"
+                            + "  writeFile file: 'results.xml', text: '''" + report + "'''\n"
+                            + "  tacotruck(runName: 'Load test p" + i + "', apiUrl: '" + apiUrl + "',"
+                            + " provider: 'testfiesta', handle: 'load', project: 'project',"
+                            + " credentialsId: 'tacotruck-token', resultsPath: 'results.xml', engine: 'NATIVE')\n"
+                            + "}",
+                    true));
+            jobs.add(job);
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        long start = System.nanoTime();
+        List<QueueTaskFuture<? extends Run<?, ?>>> futures = new ArrayList<>();
+        for (Object job : jobs) {
+            futures.add(
+                    job instanceof FreeStyleProject
+                            ? ((FreeStyleProject) job).scheduleBuild2(0)
+                            : ((WorkflowJob) job).scheduleBuild2(0));
+        }
+        List<Run<?, ?>> runs = new ArrayList<>();
+        for (QueueTaskFuture<? extends Run<?, ?>> future : futures) {
+            Run<?, ?> run = future.waitForStart();
+            jenkins.waitForCompletion(run);
+            runs.add(run);
+        }
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+        List<Long> holdMillis = new ArrayList<>();
+        List<Long> stepMillis = new ArrayList<>();
+        int failed = 0;
+        for (Run<?, ?> run : runs) {
+            holdMillis.add(run.getDuration());
+            if (run.getResult() != Result.SUCCESS) {
+                failed++;
+            }
+            SubmissionTimingsAction timings = run.getAction(SubmissionTimingsAction.class);
+            if (timings != null) {
+                for (SubmissionTimingsAction.Submission submission : timings.getSubmissions()) {
+                    stepMillis.add(submission.getTotalMillis());
+                }
+            }
+        }
+
+        System.out.printf(
+                "TacoTruck load test: %d builds (%d Pipeline) on %d executors, %d test cases each, stub latency %d ms,"
+                        + " error rate %.2f%n",
+                builds, pipelines, executors, testCases, latencyMillis, errorRate);
+        System.out.printf(
+                "  throughput        %.2f builds/s (%d ms wall clock, %d failed)%n",
+                builds * 1000.0 / Math.max(wallMillis, 1), wallMillis, failed);
+        System.out.printf(
+                "  executor hold     p50 %d ms, p99 %d ms%n", percentile(holdMillis, 50), percentile(holdMillis, 99));
+        System.out.printf(
+                "  step latency      p50 %d ms, p99 %d ms%n", percentile(stepMillis, 50), percentile(stepMillis, 99));
+        System.out.printf(
+                "  controller heap   %+.1f MB (%.1f MB -> %.1f MB)%n",
+                (heapAfter - heapBefore) / 1048576.0, heapBefore / 1048576.0, heapAfter / 1048576.0);
+        System.out.printf("  stub              %d requests, %d bytes received%n", requests.get(), bytesReceived.get());
+
+        assertEquals(builds, stepMillis.size(), "every build should have submitted once");
+        if (errorRate == 0) {
+            assertEquals(0, failed, "no build should fail without injected errors");
+            assertEquals(builds, requests.get());
+        }
+    }
+
+    private static long percentile(List<Long> values, int percentile) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static String report(int testCases) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<testsuite name=\"Load\">\n");
+        for (int i = 0; i < testCases; i++) {
+            xml.append("  <testcase classname=\"com.example.Load\" name=\"test")
+                    .append(i)
+                    .append("\" time=\"0.01\"/>\n");
+        }
+        return xml.append("</testsuite>\n").toString();
+    }
+}
@@ -0,0 +1,52 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import java.util.Map;
+import java.util.Set;
+import jenkins.metrics.api.Metrics;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class SubmissionMetricsTest {
+
+    @Test
+    void countsQueuedSubmissionsApartFromFailures(JenkinsRule jenkins) {
+        MetricRegistry registry = Metrics.metricRegistry();
+        Map<String, Long> phases = Map.of(SubmissionTimings.UPLOAD, 40L, SubmissionTimings.OUTBOX, 5L);
+
+        SubmissionMetrics.record(50, 2048, phases, SubmissionTimings.Outcome.SUBMITTED);
+        SubmissionMetrics.record(60, 0, phases, SubmissionTimings.Outcome.QUEUED);
+        SubmissionMetrics.record(70, 0, phases, SubmissionTimings.Outcome.QUEUED);
+        SubmissionMetrics.record(80, 0, Map.of(), SubmissionTimings.Outcome.FAILED);
+
+        assertEquals(1, registry.counter("tacotruck.submission.success").getCount());
+        assertEquals(2, registry.counter("tacotruck.submission.queued").getCount());
+        assertEquals(1, registry.counter("tacotruck.submission.failure").getCount());
+        assertEquals(4, registry.timer("tacotruck.submission.duration").getCount());
+        assertEquals(3, registry.timer("tacotruck.phase.parse_and_upload").getCount());
+        assertEquals(3, registry.timer("tacotruck.phase.outbox_spool").getCount());
+        assertEquals(2048, registry.counter("tacotruck.bytes.total").getCount());
+        assertEquals(1, registry.histogram("tacotruck.submission.bytes").getCount());
+    }
+
+    @Test
+    void publishesQueueDepths(JenkinsRule jenkins) {
+        Map<String, Metric> metrics = new SubmissionMetrics.Provider().getMetricSet().getMetrics();
+
+        assertEquals(
+                Set.of(
+                        "tacotruck.outbox.depth",
+                        "tacotruck.coalescer.queued",
+                        "tacotruck.coalescer.waiting",
+                        "tacotruck.background.pending",
+                        "tacotruck.daemon.workers"),
+                metrics.keySet());
+        assertEquals(CliDaemon.getRunningCount(), ((Gauge<?>) metrics.get("tacotruck.daemon.workers")).getValue());
+    }
+}
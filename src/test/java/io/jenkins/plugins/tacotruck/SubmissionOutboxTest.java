@@ -0,0 +1,167 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class SubmissionOutboxTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private volatile int status = 503;
+    private final AtomicInteger requests = new AtomicInteger();
+    private int maxAttempts;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        maxAttempts = SubmissionOutbox.MAX_ATTEMPTS;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+        SubmissionOutbox.MAX_ATTEMPTS = maxAttempts;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+            }
+            requests.incrementAndGet();
+            byte[] body = (status < 300 ? "{\"id\":\"run-1\"}" : "{\"error\":\"unavailable\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private FreeStyleProject project(JenkinsRule jenkins, SubmissionEngine engine) throws IOException {
+        SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials()
+                .add(new StringCredentialsImpl(
+                        CredentialsScope.GLOBAL, "tacotruck-token", null, Secret.fromString("token")));
+        store.save();
+
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                build.getWorkspace()
+                        .child("results.xml")
+                        .write(
+                                "<testsuite name=\"Cart\"><testcase classname=\"shop.CartTest\" name=\"adds\"/>"
+                                        + "</testsuite>",
+                                StandardCharsets.UTF_8.name());
+                return true;
+            }
+        });
+        TacotruckBuilder builder = new TacotruckBuilder(
+                "Outbox",
+                "http://127.0.0.1:" + server.getAddress().getPort(),
+                "testfiesta",
+                "org",
+                "proj",
+                "tacotruck-token",
+                "results.xml");
+        builder.setEngine(engine);
+        builder.setOutbox(true);
+        builder.setSkipUnchanged(true);
+        project.getBuildersList().add(builder);
+        return project;
+    }
+
+    @Test
+    void deliveredRetriesRecordTheDigest(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = project(jenkins, SubmissionEngine.NATIVE);
+
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(project);
+        jenkins.assertLogContains("for a background retry of the TacoTruck submission", first);
+        List<SubmissionOutbox.Entry> entries = SubmissionOutbox.load();
+        assertEquals(1, entries.size());
+        assertEquals(1, SubmissionOutbox.getQueueDepth());
+
+        status = 201;
+        SubmissionOutbox.retry(entries.get(0), TaskListener.NULL);
+
+        assertTrue(SubmissionOutbox.load().isEmpty());
+        assertEquals(0, SubmissionOutbox.getQueueDepth());
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(project);
+        jenkins.assertLogContains("#1 as run 'Outbox'", second);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void abandonedEntriesAreShownAndPurged(JenkinsRule jenkins) throws Exception {
+        SubmissionOutbox.MAX_ATTEMPTS = 1;
+        jenkins.buildAndAssertSuccess(project(jenkins, SubmissionEngine.NATIVE));
+        SubmissionOutbox.retry(SubmissionOutbox.load().get(0), TaskListener.NULL);
+
+        SubmissionOutbox.Monitor monitor = new SubmissionOutbox.Monitor();
+        assertEquals(0, monitor.getQueueDepth());
+        assertTrue(monitor.isActivated());
+        assertEquals(1, monitor.getAbandoned().size());
+        assertEquals("TacoTruck API responded with HTTP 503", monitor.getAbandoned().get(0).getLastError());
+
+        SubmissionOutbox.purge(TaskListener.NULL);
+        assertEquals(1, SubmissionOutbox.load().size(), "recently abandoned entries are kept");
+
+        String id = monitor.getAbandoned().get(0).getId();
+        File entryFile = new File(new File(SubmissionOutbox.getRoot(), id), "entry.xml");
+        assertTrue(entryFile.setLastModified(System.currentTimeMillis()
+                - TimeUnit.DAYS.toMillis(SubmissionOutbox.ABANDONED_RETENTION_DAYS + 1)));
+        SubmissionOutbox.purge(TaskListener.NULL);
+
+        assertTrue(SubmissionOutbox.load().isEmpty());
+        assertFalse(monitor.isActivated());
+    }
+
+    @Test
+    void outboxNeedsTheNativeEngine(JenkinsRule jenkins) throws Exception {
+        FreeStyleBuild build = jenkins.buildAndAssertStatus(Result.FAILURE, project(jenkins, SubmissionEngine.CLI));
+
+        jenkins.assertLogContains("outbox: true retries from the controller with the native engine", build);
+        assertEquals(0, requests.get());
+    }
+}
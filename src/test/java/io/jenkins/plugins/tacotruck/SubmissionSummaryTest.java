@@ -0,0 +1,132 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SubmissionSummaryTest {
+
+    @TempDir
+    Path dir;
+
+    private static SubmissionSummary summary(int passed, int failed, int skipped) {
+        SubmissionSummary.Collector collector = new SubmissionSummary.Collector();
+        for (int i = 0; i < passed; i++) {
+            collector.accept(
+                    new TestCaseRecord("Suite", "com.example.T", "p" + i, 10, TestCaseRecord.Status.PASSED, null));
+        }
+        for (int i = 0; i < failed; i++) {
+            collector.accept(
+                    new TestCaseRecord("Suite", "com.example.T", "f" + i, 20, TestCaseRecord.Status.FAILED, "boom"));
+        }
+        for (int i = 0; i < skipped; i++) {
+            collector.accept(new TestCaseRecord("Suite", null, "s" + i, 0, TestCaseRecord.Status.SKIPPED, null));
+        }
+        return collector.build();
+    }
+
+    @Test
+    void collectsCountsAndRoundTripsThroughBinaryForm() throws Exception {
+        SubmissionSummary summary = summary(3, 2, 1)
+                .describe("Nightly")
+                .linkedTo(SubmissionSummary.linkIn("{\"id\":\"42\",\"url\":\"https://app.testfiesta.com/runs/42\"}"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            summary.writeTo(out);
+        }
+        SubmissionSummary read =
+                SubmissionSummary.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals("Nightly", read.getRunName());
+        assertEquals("https://app.testfiesta.com/runs/42", read.getLink());
+        assertEquals(6, read.getTotal());
+        assertEquals(3, read.getPassed());
+        assertEquals(2, read.getFailed());
+        assertEquals(1, read.getSkipped());
+        assertEquals(70, read.getDurationMillis());
+        assertEquals(List.of("com.example.T.f0", "com.example.T.f1"), read.getFailingTests());
+    }
+
+    @Test
+    void capsFailingTestsButKeepsCounts() {
+        SubmissionSummary summary = summary(0, SubmissionSummary.MAX_FAILING_TESTS + 5, 0).describe("Run");
+
+        assertEquals(SubmissionSummary.MAX_FAILING_TESTS, summary.getFailingTests().size());
+        assertEquals(5, summary.getOmittedFailingTests());
+        assertNull(summary.getLink());
+    }
+
+    @Test
+    void linksOnlyToTheUrlOfTheApiResponse() {
+        assertEquals(
+                "https://app.testfiesta.com/runs/42",
+                SubmissionSummary.linkIn("{\"url\":\"https://app.testfiesta.com/runs/42\"}"));
+        assertNull(SubmissionSummary.linkIn("{\"id\":\"42\",\"docs\":\"https://docs.testfiesta.com\"}"));
+        assertNull(SubmissionSummary.linkIn("{\"url\":\"javascript:alert(1)\"}"));
+        assertNull(SubmissionSummary.linkIn("Submitted to https://app.testfiesta.com/runs/42"));
+        assertNull(SubmissionSummary.linkIn("{not json"));
+    }
+
+    @Test
+    void trendIndexAddsUpSubmissionsPerBuildAndKeepsOnlyTheTail() throws Exception {
+        File index = dir.resolve(SubmissionTrendIndex.FILE_NAME).toFile();
+        for (int build = 1; build <= 50; build++) {
+            SubmissionTrendIndex.append(index, build, build * 1000L, summary(build, 1, 0));
+        }
+        SubmissionTrendIndex.append(index, 50, 50_000L, summary(0, 3, 2));
+
+        List<SubmissionTrendIndex.Point> points = SubmissionTrendIndex.read(index, 10);
+
+        assertEquals(10, points.size());
+        assertEquals(41, points.get(0).getBuild());
+        SubmissionTrendIndex.Point last = points.get(9);
+        assertEquals(50, last.getBuild());
+        assertEquals(50, last.getPassed());
+        assertEquals(4, last.getFailed());
+        assertEquals(2, last.getSkipped());
+    }
+
+    @Test
+    void trendIndexDropsDeletedBuilds() throws Exception {
+        File index = dir.resolve(SubmissionTrendIndex.FILE_NAME).toFile();
+        for (int build = 1; build <= 3; build++) {
+            SubmissionTrendIndex.append(index, build, build * 1000L, summary(build, 0, 0));
+        }
+        SubmissionTrendIndex.append(index, 2, 2000L, summary(5, 0, 0));
+
+        SubmissionTrendIndex.remove(index, 2);
+
+        List<SubmissionTrendIndex.Point> points = SubmissionTrendIndex.read(index, 10);
+        assertEquals(2, points.size());
+        assertEquals(1, points.get(0).getBuild());
+        assertEquals(3, points.get(1).getBuild());
+        assertEquals(3, points.get(1).getPassed());
+        assertEquals(2L * SubmissionTrendIndex.RECORD_SIZE, index.length());
+    }
+
+    @Test
+    void trendIndexIgnoresAndRepairsPartialRecord() throws Exception {
+        File index = dir.resolve(SubmissionTrendIndex.FILE_NAME).toFile();
+        SubmissionTrendIndex.append(index, 1, 1000L, summary(1, 0, 0));
+        try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+            file.setLength(file.length() + 7);
+        }
+
+        assertEquals(1, SubmissionTrendIndex.read(index, 10).size());
+
+        SubmissionTrendIndex.append(index, 2, 2000L, summary(2, 0, 0));
+        assertEquals(2L * SubmissionTrendIndex.RECORD_SIZE, index.length());
+        assertEquals(2, SubmissionTrendIndex.read(index, 10).get(1).getPassed());
+    }
+}
@@ -0,0 +1,91 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.FreeStyleBuild;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class SubmissionTimingsTest {
+
+    @Test
+    void sumsPhasesAndBytesOfTheSubmissionOnTheCurrentThread(JenkinsRule jenkins) throws Exception {
+        assertSame(SubmissionTimings.Phase.NONE, SubmissionTimings.phase(SubmissionTimings.UPLOAD));
+        SubmissionTimings.addBytes(100);
+
+        SubmissionTimings timings = SubmissionTimings.begin();
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.CREDENTIALS)) {
+            Thread.sleep(5);
+        }
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.UPLOAD)) {
+            Thread.sleep(5);
+        }
+        try (SubmissionTimings.Phase ignored = SubmissionTimings.phase(SubmissionTimings.CREDENTIALS)) {
+            Thread.sleep(5);
+        }
+        SubmissionTimings.addBytes(1024);
+        SubmissionTimings.addBytes(-1);
+        SubmissionTimings.addBytes(512);
+
+        assertEquals(
+                List.of(SubmissionTimings.CREDENTIALS, SubmissionTimings.UPLOAD),
+                List.copyOf(timings.getPhases().keySet()));
+        assertTrue(timings.getPhases().get(SubmissionTimings.CREDENTIALS) >= 10, timings.getPhases().toString());
+        assertEquals(1536, timings.getBytes());
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(jenkins.createFreeStyleProject());
+        timings.end(build, "Nightly", SubmissionEngine.NATIVE, SubmissionTimings.Outcome.SUBMITTED);
+
+        assertSame(SubmissionTimings.Phase.NONE, SubmissionTimings.phase(SubmissionTimings.UPLOAD));
+        SubmissionTimings.addBytes(100);
+        assertEquals(1536, timings.getBytes());
+    }
+
+    @Test
+    void recordsTheOutcomeOfEachSubmissionOnTheBuild(JenkinsRule jenkins) throws Exception {
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(jenkins.createFreeStyleProject());
+
+        SubmissionTimings.begin().end(build, "first", SubmissionEngine.NATIVE, SubmissionTimings.Outcome.SUBMITTED);
+        SubmissionTimings.begin().end(build, "second", SubmissionEngine.NATIVE, SubmissionTimings.Outcome.QUEUED);
+        SubmissionTimings.begin().end(build, "third", SubmissionEngine.NATIVE, SubmissionTimings.Outcome.FAILED);
+
+        SubmissionTimingsAction action = build.getAction(SubmissionTimingsAction.class);
+        assertNotNull(action);
+        List<SubmissionTimingsAction.Submission> submissions = action.getSubmissions();
+        assertEquals(3, submissions.size());
+        assertEquals("first", submissions.get(0).getRunName());
+        assertTrue(submissions.get(0).isSuccess());
+        assertFalse(submissions.get(0).isQueued());
+        assertFalse(submissions.get(1).isSuccess());
+        assertTrue(submissions.get(1).isQueued());
+        assertFalse(submissions.get(2).isSuccess());
+        assertFalse(submissions.get(2).isQueued());
+    }
+
+    @Test
+    void accountsTheTimeOutsideOfPhasesAsOther() {
+        SubmissionTimingsAction.Submission submission = new SubmissionTimingsAction.Submission(
+                "Nightly",
+                SubmissionEngine.NATIVE,
+                SubmissionTimings.Outcome.SUBMITTED,
+                2000,
+                0,
+                Map.of("Upload", 1500L));
+
+        List<SubmissionTimingsAction.Row> rows = submission.getRows();
+        assertEquals(2, rows.size());
+        assertEquals("Upload", rows.get(0).getPhase());
+        assertEquals(75, rows.get(0).getPercentage());
+        assertEquals("Other", rows.get(1).getPhase());
+        assertEquals("500 ms", rows.get(1).getDuration());
+        assertEquals("2.00 s", submission.getTotal());
+    }
+}
@@ -0,0 +1,80 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.TaskListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TacotruckEndpointTest {
+
+    private static TacotruckEndpoint endpoint(double requestsPerSecond, int burst, int maxConcurrent) {
+        TacotruckEndpoint endpoint = new TacotruckEndpoint("test", "https://api.example.com");
+        endpoint.setRequestsPerSecond(requestsPerSecond);
+        endpoint.setBurst(burst);
+        endpoint.setMaxConcurrentSubmissions(maxConcurrent);
+        return endpoint;
+    }
+
+    @Test
+    void tokenBucketAllowsBurstThenPacesSubmissions() {
+        TacotruckEndpoint.Throttle throttle = new TacotruckEndpoint.Throttle(endpoint(2, 3, 0));
+        long now = System.nanoTime();
+
+        assertEquals(0, throttle.reserve(now));
+        assertEquals(0, throttle.reserve(now));
+        assertEquals(0, throttle.reserve(now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), throttle.reserve(now), TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), throttle.reserve(now), TimeUnit.MILLISECONDS.toNanos(1));
+
+        long later = now + TimeUnit.SECONDS.toNanos(10);
+        assertEquals(0, throttle.reserve(later));
+    }
+
+    @Test
+    void unlimitedEndpointNeverWaits() {
+        TacotruckEndpoint.Throttle throttle = new TacotruckEndpoint.Throttle(endpoint(0, 1, 0));
+        long now = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, throttle.reserve(now));
+        }
+    }
+
+    @Test
+    void concurrencyCapBlocksUntilPermitIsClosed() throws Exception {
+        TacotruckEndpoint.Throttle throttle = new TacotruckEndpoint.Throttle(endpoint(0, 1, 1));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            TacotruckEndpoint.Throttle.Permit first = throttle.acquire(TaskListener.NULL);
+            CountDownLatch acquired = new CountDownLatch(1);
+            Future<?> second = executor.submit(() -> {
+                try (TacotruckEndpoint.Throttle.Permit ignored = throttle.acquire(TaskListener.NULL)) {
+                    acquired.countDown();
+                }
+                return null;
+            });
+
+            assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+            first.close();
+            first.close();
+            assertTrue(acquired.await(10, TimeUnit.SECONDS));
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void throttleIsReplacedWhenLimitsChange() {
+        TacotruckEndpoint.Throttle throttle = new TacotruckEndpoint.Throttle(endpoint(1, 2, 3));
+        assertTrue(throttle.matches(endpoint(1, 2, 3)));
+        assertFalse(throttle.matches(endpoint(1, 2, 4)));
+        assertFalse(throttle.matches(endpoint(5, 2, 3)));
+    }
+}
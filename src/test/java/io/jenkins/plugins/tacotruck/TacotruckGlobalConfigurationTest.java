@@ -0,0 +1,54 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.ListBoxModel;
+import java.util.List;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class TacotruckGlobalConfigurationTest {
+
+    private static List<String> values(ListBoxModel items) {
+        return items.stream().map(option -> option.value).collect(Collectors.toList());
+    }
+
+    @Test
+    void listsEndpointsOnlyToUsersWhoMayConfigureTheJob(JenkinsRule jenkins) throws Exception {
+        TacotruckGlobalConfiguration.get()
+                .setEndpoints(List.of(
+                        new TacotruckEndpoint("production", "https://api.testfiesta.com"),
+                        new TacotruckEndpoint("staging", "https://staging.api.testfiesta.com")));
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        jenkins.jenkins.setSecurityRealm(jenkins.createDummySecurityRealm());
+        jenkins.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ, Item.READ)
+                .everywhere()
+                .to("reader")
+                .grant(Jenkins.READ, Item.READ, Item.CONFIGURE)
+                .everywhere()
+                .to("dev"));
+
+        try (ACLContext ignored = ACL.as2(User.getById("reader", true).impersonate2())) {
+            assertEquals(
+                    List.of("", "staging"), values(TacotruckGlobalConfiguration.fillEndpointItems(project, "staging")));
+            assertEquals(List.of(""), values(TacotruckGlobalConfiguration.fillEndpointItems(project, "")));
+        }
+        try (ACLContext ignored = ACL.as2(User.getById("dev", true).impersonate2())) {
+            assertEquals(
+                    List.of("", "production", "staging"),
+                    values(TacotruckGlobalConfiguration.fillEndpointItems(project, "staging")));
+            assertEquals(List.of(""), values(TacotruckGlobalConfiguration.fillEndpointItems(null, "")));
+        }
+    }
+}
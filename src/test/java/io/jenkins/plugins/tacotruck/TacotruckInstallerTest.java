@@ -0,0 +1,142 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.security.AccessDeniedException3;
+import hudson.tools.InstallSourceProperty;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import jenkins.model.Jenkins;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class TacotruckInstallerTest {
+
+    @TempDir
+    Path dir;
+
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    private Path pkg(String name, String manifest) throws IOException {
+        Path pkg = Files.createDirectories(dir.resolve(name).resolve("package"));
+        Files.writeString(pkg.resolve("package.json"), manifest);
+        return pkg;
+    }
+
+    private File tarball(String name, String manifest) throws Exception {
+        Path pkg = pkg(name, manifest);
+        Files.writeString(pkg.resolve("cli.js"), "#!/usr/bin/env node\nconsole.log('1.2.3');\n");
+        Path leftPad = Files.createDirectories(pkg.resolve("node_modules/left-pad"));
+        Files.writeString(leftPad.resolve("package.json"), "{\"name\": \"left-pad\", \"version\": \"1.3.0\"}");
+        Files.writeString(leftPad.resolve("index.js"), "module.exports = (s) => s;\n");
+        File tarball = dir.resolve(name + ".tgz").toFile();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tarball.toPath()))) {
+            new FilePath(dir.resolve(name).toFile()).tar(out, "package/**");
+        }
+        return tarball;
+    }
+
+    private static String manifest(String bundled) {
+        return "{\"name\": \"@testfiesta/tacotruck\", \"version\": \"1.2.3\", \"bin\": {\"tacotruck\": \"cli.js\"},"
+                + " \"dependencies\": {\"left-pad\": \"1.3.0\", \"chalk\": \"^5.0.0\"}" + bundled + "}";
+    }
+
+    private static TacotruckInstallation installation(TacotruckInstaller installer) {
+        TacotruckInstallation installation = new TacotruckInstallation(
+                "tacotruck-1.2.3", null, List.of(new InstallSourceProperty(List.of(installer))));
+        Jenkins.get().getDescriptorByType(TacotruckInstallation.DescriptorImpl.class).setInstallations(installation);
+        return installation;
+    }
+
+    @Test
+    void reportsDependenciesThatAreNeitherBundledNorShrinkwrapped(JenkinsRule jenkins) throws Exception {
+        assertEquals(
+                List.of("chalk", "left-pad"),
+                TacotruckInstaller.unpinnedDependencies(new FilePath(pkg("plain", manifest("")).toFile())));
+        assertEquals(
+                List.of("chalk"),
+                TacotruckInstaller.unpinnedDependencies(new FilePath(
+                        pkg("partly", manifest(", \"bundleDependencies\": [\"left-pad\"]")).toFile())));
+        assertEquals(
+                List.of(),
+                TacotruckInstaller.unpinnedDependencies(
+                        new FilePath(pkg("all", manifest(", \"bundledDependencies\": true")).toFile())));
+
+        Path shrinkwrapped = pkg("shrinkwrapped", manifest(""));
+        Files.writeString(shrinkwrapped.resolve("npm-shrinkwrap.json"), "{\"lockfileVersion\": 3}");
+        assertEquals(List.of(), TacotruckInstaller.unpinnedDependencies(new FilePath(shrinkwrapped.toFile())));
+    }
+
+    @Test
+    void refusesToInstallUnpinnedDependencies(JenkinsRule jenkins) throws Exception {
+        TacotruckInstaller installer = new TacotruckInstaller(null, "1.2.3");
+        installer.setSource(tarball("unpinned", manifest(", \"bundleDependencies\": [\"left-pad\"]")).getPath());
+
+        AbortException e = assertThrows(
+                AbortException.class,
+                () -> installer.performInstallation(
+                        installation(installer), jenkins.jenkins, new StreamTaskListener(log, StandardCharsets.UTF_8)));
+        assertTrue(
+                e.getMessage().startsWith("TacoTruck CLI 1.2.3 does not pin its dependencies [chalk]"), e.getMessage());
+    }
+
+    @Test
+    void installsBundledTarballsWithTheBuildEnvironment(JenkinsRule jenkins) throws Exception {
+        assumeTrue(!Functions.isWindows(), "needs a Unix shell");
+        TacotruckInstaller installer = new TacotruckInstaller(null, "1.2.3");
+        installer.setSource(tarball("bundled", manifest(", \"bundleDependencies\": [\"left-pad\", \"chalk\"]"))
+                .getPath());
+        TacotruckInstallation installation = installation(installer);
+
+        // an npm that is only on the build's PATH, as a NodeJS tool would put it there
+        Path bin = Files.createDirectories(dir.resolve("tool-bin"));
+        Path npmLog = dir.resolve("npm.log");
+        Path npm = Files.writeString(bin.resolve("npm"), "#!/bin/sh\necho \"$*\" >> \"" + npmLog + "\"\n");
+        assumeTrue(npm.toFile().setExecutable(true));
+        EnvVars env = new EnvVars("PATH", bin + File.pathSeparator + System.getenv("PATH"));
+
+        TacotruckInstallation installed =
+                installation.forBuild(jenkins.jenkins, env, new StreamTaskListener(log, StandardCharsets.UTF_8));
+
+        String npmCalls = Files.readString(npmLog);
+        assertTrue(npmCalls.startsWith("install --prefix " + installed.getHome()), npmCalls);
+        assertTrue(new File(installed.getHome(), ".tacotruck-installed").isFile());
+    }
+
+    @Test
+    void validationRequiresAdministerPermission(JenkinsRule jenkins) {
+        jenkins.jenkins.setSecurityRealm(jenkins.createDummySecurityRealm());
+        jenkins.jenkins.setAuthorizationStrategy(
+                new MockAuthorizationStrategy().grant(Jenkins.READ).everywhere().to("dev"));
+        TacotruckInstaller.DescriptorImpl descriptor =
+                jenkins.jenkins.getDescriptorByType(TacotruckInstaller.DescriptorImpl.class);
+
+        try (ACLContext ignored = ACL.as2(User.getById("dev", true).impersonate2())) {
+            assertThrows(AccessDeniedException3.class, () -> descriptor.doCheckVersion("1.2.3"));
+            assertThrows(AccessDeniedException3.class, () -> descriptor.doCheckSha256("abc"));
+        }
+        assertEquals("OK", descriptor.doCheckVersion("1.2.3").kind.name());
+    }
+}
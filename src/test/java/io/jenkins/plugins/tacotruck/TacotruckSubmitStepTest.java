@@ -0,0 +1,166 @@
+package io.jenkins.plugins.tacotruck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.model.FreeStyleBuild;
+import hudson.model.Result;
+import hudson.util.Secret;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class TacotruckSubmitStepTest {
+
+    private static final String REPORT = "<testsuite name=\"Cart\">"
+            + "<testcase classname=\"shop.CartTest\" name=\"adds\" time=\"0.1\"/>"
+            + "</testsuite>";
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try (InputStream in = exchange.getRequestBody()) {
+                bodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            byte[] body = "{\"id\":\"run-1\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(201, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private WorkflowJob pipeline(JenkinsRule jenkins, String script) throws IOException {
+        SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials()
+                .add(new StringCredentialsImpl(
+                        CredentialsScope.GLOBAL, "tacotruck-token", null, Secret.fromString("token")));
+        store.save();
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition(script, true));
+        return job;
+    }
+
+    private String submit(String engine) {
+        return "tacotruckSubmit(runName: 'Detached', apiUrl: 'http://127.0.0.1:" + server.getAddress().getPort()
+                + "', provider: 'testfiesta', handle: 'org', project: 'proj', credentialsId: 'tacotruck-token',"
+                + " resultsPath: 'reports/*.xml', engine: '" + engine + "', wait: false)";
+    }
+
+    @Test
+    void detachedSubmissionDoesNotNeedTheWorkspace(JenkinsRule jenkins) throws Exception {
+        WorkflowJob job = pipeline(
+                jenkins,
+                "def upload\n"
+                        + "node {\n"
+                        + "  writeFile file: 'reports/TEST-cart.xml', text: '" + REPORT + "'\n"
+                        + "  upload = " + submit("NATIVE") + "\n"
+                        + "  deleteDir()\n"
+                        + "}\n"
+                        + "tacotruckAwait(upload)\n");
+
+        WorkflowRun run = jenkins.buildAndAssertSuccess(job);
+
+        jenkins.assertLogContains("TacoTruck submission continues in the background", run);
+        // the upload logs to its own file, which tacotruckAwait copies into the build log
+        String log = JenkinsRule.getLog(run);
+        int waiting = log.indexOf("Waiting for TacoTruck submission");
+        assertTrue(waiting >= 0, log);
+        assertTrue(log.indexOf("Submitted 1 test cases") > waiting, log);
+        assertNotNull(run.getAction(SubmissionSummaryAction.class));
+        assertNotNull(run.getAction(SubmissionTimingsAction.class));
+        assertEquals(1, bodies.size());
+        assertTrue(bodies.get(0).contains("\"name\":\"adds\""), bodies.get(0));
+        assertFalse(new File(run.getRootDir(), PendingSubmissions.STAGING_DIR).list().length > 0);
+        assertEquals(0, PendingSubmissions.getPendingCount());
+    }
+
+    @Test
+    void detachedSubmissionNeedsTheNativeEngine(JenkinsRule jenkins) throws Exception {
+        WorkflowJob job = pipeline(
+                jenkins,
+                "node {\n"
+                        + "  writeFile file: 'reports/TEST-cart.xml', text: '" + REPORT + "'\n"
+                        + "  " + submit("CLI") + "\n"
+                        + "}\n");
+
+        WorkflowRun run = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+
+        jenkins.assertLogContains("needs engine: 'NATIVE'", run);
+        assertTrue(bodies.isEmpty());
+    }
+
+    @Test
+    void unknownHandlesFail(JenkinsRule jenkins) throws Exception {
+        WorkflowJob job = pipeline(jenkins, "tacotruckAwait('tacotruck-unknown')");
+
+        WorkflowRun run = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+
+        jenkins.assertLogContains("Unknown or already awaited TacoTruck submission: tacotruck-unknown", run);
+    }
+
+    @Test
+    void cancellingInterruptsTheUpload(JenkinsRule jenkins) throws Exception {
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(jenkins.createFreeStyleProject());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        PendingSubmissions.Submission submission = new PendingSubmissions.Submission(build).start(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        submission.cancel();
+
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS), "the upload thread should be interrupted");
+        assertTrue(submission.getFuture().isCompletedExceptionally());
+    }
+}